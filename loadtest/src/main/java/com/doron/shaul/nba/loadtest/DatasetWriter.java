@@ -0,0 +1,129 @@
+package com.doron.shaul.nba.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Writes a generated league as {@code dataset.sql} (reference data and schedules, loaded with the mysql client),
+ * {@code history.ndjson} (stat lines for every game already played, posted through the bulk ingestion endpoint)
+ * and {@code dataset.properties}, which lets the workload driver rebuild the same league.
+ */
+public class DatasetWriter {
+
+    private static final int ROWS_PER_INSERT = 500;
+
+    private final SyntheticLeague league;
+    private final int liveGames;
+
+    public DatasetWriter(SyntheticLeague league, int liveGames) {
+        this.league = league;
+        this.liveGames = liveGames;
+    }
+
+    public void write(Path directory, Properties parameters) throws IOException {
+        Files.createDirectories(directory);
+
+        try (Writer out = Files.newBufferedWriter(directory.resolve("dataset.properties"), StandardCharsets.UTF_8)) {
+            parameters.store(out, "Synthetic league parameters");
+        }
+
+        try (BufferedWriter sql = Files.newBufferedWriter(directory.resolve("dataset.sql"), StandardCharsets.UTF_8)) {
+            writeReferenceData(sql);
+        }
+
+        long lines = 0;
+        try (BufferedWriter ndjson = Files.newBufferedWriter(directory.resolve("history.ndjson"),
+                StandardCharsets.UTF_8)) {
+            StringBuilder json = new StringBuilder(256);
+            for (SyntheticLeague.Season season : league.getSeasons()) {
+                List<SyntheticLeague.Game> games = playedGames(season);
+                for (SyntheticLeague.Game game : games) {
+                    for (SyntheticLeague.StatLine line : league.boxScore(game)) {
+                        json.setLength(0);
+                        line.appendJson(json);
+                        ndjson.append(json).append('\n');
+                        lines++;
+                    }
+                }
+            }
+        }
+
+        System.out.printf("Wrote %d teams, %d players, %d seasons and %d historical stat lines to %s%n",
+                league.getTeams().size(), league.getPlayers().size(), league.getSeasons().size(), lines, directory);
+    }
+
+    /**
+     * Games of the current season that have no stats yet; the workload driver posts these during a run.
+     */
+    public static List<SyntheticLeague.Game> liveGames(SyntheticLeague league, int liveGames) {
+        List<SyntheticLeague.Game> schedule = league.schedule(league.getCurrentSeason());
+        return schedule.subList(Math.max(0, schedule.size() - liveGames), schedule.size());
+    }
+
+    private List<SyntheticLeague.Game> playedGames(SyntheticLeague.Season season) {
+        List<SyntheticLeague.Game> schedule = league.schedule(season);
+        if (season.id() != league.getCurrentSeason().id()) {
+            return schedule;
+        }
+        return schedule.subList(0, Math.max(0, schedule.size() - liveGames));
+    }
+
+    private void writeReferenceData(BufferedWriter sql) throws IOException {
+        sql.append("USE nba_stats;\n\n");
+
+        List<String> rows = new ArrayList<>();
+        for (SyntheticLeague.Season season : league.getSeasons()) {
+            rows.add(String.format("(%d, '%s', '%s', '%s')", season.id(), season.name(),
+                    season.startDate(), season.endDate()));
+        }
+        insert(sql, "seasons (season_id, season_name, start_date, end_date)", rows);
+
+        for (SyntheticLeague.Team team : league.getTeams()) {
+            rows.add(String.format("(%d, '%s', '%s', '%s')", team.id(), team.name(), team.abbreviation(),
+                    team.conference()));
+        }
+        insert(sql, "teams (team_id, team_name, team_abbreviation, team_conference)", rows);
+
+        for (SyntheticLeague.Player player : league.getPlayers()) {
+            rows.add(String.format("(%d, '%s', '%s', %d, '%s')", player.id(), player.firstName(),
+                    player.lastName(), player.jerseyNumber(), player.position()));
+        }
+        insert(sql, "players (player_id, player_first_name, player_last_name, player_jersey_number, " +
+                "player_position)", rows);
+
+        for (SyntheticLeague.Season season : league.getSeasons()) {
+            for (SyntheticLeague.Team team : league.getTeams()) {
+                for (SyntheticLeague.Player player : league.roster(season.id(), team.id())) {
+                    rows.add(String.format("(%d, %d, %d, '%s')", player.id(), team.id(), season.id(),
+                            season.startDate()));
+                }
+            }
+        }
+        insert(sql, "player_teams (player_id, team_id, season_id, join_date)", rows);
+
+        for (SyntheticLeague.Season season : league.getSeasons()) {
+            for (SyntheticLeague.Game game : league.schedule(season)) {
+                rows.add(String.format("(%d, '%s', %d, %d, %d, FALSE)", game.id(), game.date(),
+                        game.homeTeamId(), game.awayTeamId(), game.seasonId()));
+            }
+        }
+        insert(sql, "games (game_id, game_date, home_team_id, away_team_id, season_id, game_is_playoff)", rows);
+    }
+
+    private void insert(BufferedWriter sql, String table, List<String> rows) throws IOException {
+        for (int from = 0; from < rows.size(); from += ROWS_PER_INSERT) {
+            sql.append("INSERT INTO ").append(table).append(" VALUES\n");
+            sql.append(String.join(",\n", rows.subList(from, Math.min(from + ROWS_PER_INSERT, rows.size()))));
+            sql.append(";\n");
+        }
+        sql.append('\n');
+        rows.clear();
+    }
+}
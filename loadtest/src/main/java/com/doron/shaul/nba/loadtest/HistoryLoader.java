@@ -0,0 +1,70 @@
+package com.doron.shaul.nba.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Posts {@code history.ndjson} to the bulk ingestion endpoint in fixed-size requests, so historical seasons go
+ * through the same validation, insert and rollup path as production traffic.
+ */
+public class HistoryLoader {
+
+    private final URI baseUrl;
+    private final int linesPerRequest;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public HistoryLoader(URI baseUrl, int linesPerRequest) {
+        this.baseUrl = baseUrl;
+        this.linesPerRequest = linesPerRequest;
+    }
+
+    public void load(Path ndjson) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        long posted = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(ndjson, StandardCharsets.UTF_8)) {
+            StringBuilder body = new StringBuilder();
+            int lines = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                body.append(line).append('\n');
+                if (++lines == linesPerRequest) {
+                    posted += post(body);
+                    body.setLength(0);
+                    lines = 0;
+                }
+            }
+            if (lines > 0) {
+                posted += post(body);
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Loaded %d stat lines in %.1f s (%.0f lines/s)%n", posted, seconds, posted / seconds);
+    }
+
+    private int post(StringBuilder body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUrl.resolve("/api/v1/stats/bulk"))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Bulk ingestion failed with HTTP " + response.statusCode() + ": " + response.body());
+        }
+        return (int) body.chars().filter(c -> c == '\n').count();
+    }
+}
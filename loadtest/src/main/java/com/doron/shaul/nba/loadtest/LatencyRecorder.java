@@ -0,0 +1,60 @@
+package com.doron.shaul.nba.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps every latency sample per endpoint; runs are short enough that exact percentiles are affordable.
+ */
+public class LatencyRecorder {
+
+    public record Summary(long count, long errors, double throughput, double p50Millis, double p95Millis,
+                          double p99Millis, double maxMillis) {
+    }
+
+    private static class Samples {
+        private long[] nanos = new long[4096];
+        private int size;
+        private long errors;
+
+        synchronized void add(long latency, boolean success) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = latency;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized Summary summarize(double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return new Summary(size, errors, size / seconds,
+                    millis(sorted, 0.50), millis(sorted, 0.95), millis(sorted, 0.99), millis(sorted, 1.0));
+        }
+
+        private static double millis(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private final ConcurrentMap<String, Samples> samples = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long latencyNanos, boolean success) {
+        samples.computeIfAbsent(endpoint, key -> new Samples()).add(latencyNanos, success);
+    }
+
+    public Map<String, Summary> summarize(double seconds) {
+        Map<String, Summary> summaries = new TreeMap<>();
+        samples.forEach((endpoint, endpointSamples) -> summaries.put(endpoint, endpointSamples.summarize(seconds)));
+        return summaries;
+    }
+}
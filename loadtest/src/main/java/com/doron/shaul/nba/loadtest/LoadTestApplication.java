@@ -0,0 +1,150 @@
+package com.doron.shaul.nba.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Entry point of the load-test harness:
+ * <pre>
+ *   generate [--out DIR] [--seed N] [--seasons N] [--last-season YEAR] [--live-games N]
+ *   load     [--dataset DIR] [--url URL] [--lines-per-request N]
+ *   run      [--dataset DIR] [--url URL] [--warmup 30s] [--duration 2m] [--read-rate N] [--burst-interval 10s]
+ *            [--burst-size N] [--zipf S] [--current-season-share F] [--batch-size N] [--report FILE]
+ *            [--baseline FILE] [--max-regression F]
+ * </pre>
+ */
+public class LoadTestApplication {
+
+    private static final String DEFAULT_DATASET = "build/loadtest";
+    private static final String DEFAULT_URL = "http://localhost:8080";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+
+        Map<String, String> options = parseOptions(args);
+        switch (args[0]) {
+            case "generate" -> generate(options);
+            case "load" -> load(options);
+            case "run" -> System.exit(run(options));
+            default -> usage();
+        }
+    }
+
+    private static void generate(Map<String, String> options) throws IOException {
+        Properties parameters = new Properties();
+        parameters.setProperty("seed", options.getOrDefault("seed", "42"));
+        parameters.setProperty("seasons", options.getOrDefault("seasons", "10"));
+        parameters.setProperty("last-season", options.getOrDefault("last-season", "2021"));
+        parameters.setProperty("live-games", options.getOrDefault("live-games", "300"));
+
+        SyntheticLeague league = league(parameters);
+        new DatasetWriter(league, Integer.parseInt(parameters.getProperty("live-games")))
+                .write(Path.of(options.getOrDefault("out", DEFAULT_DATASET)), parameters);
+    }
+
+    private static void load(Map<String, String> options) throws IOException, InterruptedException {
+        Path dataset = Path.of(options.getOrDefault("dataset", DEFAULT_DATASET));
+        new HistoryLoader(URI.create(options.getOrDefault("url", DEFAULT_URL)),
+                Integer.parseInt(options.getOrDefault("lines-per-request", "20000")))
+                .load(dataset.resolve("history.ndjson"));
+    }
+
+    private static int run(Map<String, String> options) throws IOException, InterruptedException {
+        Path dataset = Path.of(options.getOrDefault("dataset", DEFAULT_DATASET));
+        Properties parameters = new Properties();
+        try (Reader reader = Files.newBufferedReader(dataset.resolve("dataset.properties"), StandardCharsets.UTF_8)) {
+            parameters.load(reader);
+        }
+        SyntheticLeague league = league(parameters);
+
+        WorkloadDriver.Config config = new WorkloadDriver.Config(
+                URI.create(options.getOrDefault("url", DEFAULT_URL)),
+                duration(options.getOrDefault("warmup", "30s")),
+                duration(options.getOrDefault("duration", "2m")),
+                Double.parseDouble(options.getOrDefault("read-rate", "200")),
+                duration(options.getOrDefault("burst-interval", "10s")),
+                Integer.parseInt(options.getOrDefault("burst-size", "8")),
+                Double.parseDouble(options.getOrDefault("zipf", "1.1")),
+                Double.parseDouble(options.getOrDefault("current-season-share", "0.8")),
+                Integer.parseInt(options.getOrDefault("batch-size", "50")),
+                Long.parseLong(parameters.getProperty("seed")));
+
+        List<SyntheticLeague.Game> liveGames = DatasetWriter.liveGames(league,
+                Integer.parseInt(parameters.getProperty("live-games")));
+        System.out.printf("Driving %s for %s after %s warm-up: %.0f reads/s, %d-game write bursts every %s%n",
+                config.baseUrl(), config.duration(), config.warmup(), config.readRate(), config.burstSize(),
+                config.burstInterval());
+
+        Map<String, LatencyRecorder.Summary> results = new WorkloadDriver(config, league, liveGames).run();
+
+        Map<String, Object> reportConfig = new LinkedHashMap<>();
+        reportConfig.put("dataset", parameters);
+        reportConfig.put("url", config.baseUrl().toString());
+        reportConfig.put("warmup", config.warmup().toString());
+        reportConfig.put("duration", config.duration().toString());
+        reportConfig.put("readRate", config.readRate());
+        reportConfig.put("burstInterval", config.burstInterval().toString());
+        reportConfig.put("burstSize", config.burstSize());
+        reportConfig.put("zipfExponent", config.zipfExponent());
+        reportConfig.put("currentSeasonShare", config.currentSeasonShare());
+        reportConfig.put("batchSize", config.batchSize());
+        LoadTestReport report = new LoadTestReport(reportConfig, results);
+        report.print();
+        report.save(Path.of(options.getOrDefault("report", dataset.resolve("report.json").toString())));
+
+        if (!options.containsKey("baseline")) {
+            return 0;
+        }
+        List<String> regressions = report.compare(Path.of(options.get("baseline")),
+                Double.parseDouble(options.getOrDefault("max-regression", "0.10")));
+        regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+        return regressions.isEmpty() ? 0 : 2;
+    }
+
+    private static SyntheticLeague league(Properties parameters) {
+        return new SyntheticLeague(Long.parseLong(parameters.getProperty("seed")),
+                Integer.parseInt(parameters.getProperty("seasons")),
+                Integer.parseInt(parameters.getProperty("last-season")));
+    }
+
+    static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration " + value);
+        };
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static void usage() {
+        System.out.println("Usage: loadtest (generate | load | run) [--option value ...]");
+    }
+}
@@ -0,0 +1,81 @@
+package com.doron.shaul.nba.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints and saves the per-endpoint results of a run and compares them with a saved baseline.
+ */
+public class LoadTestReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, Object> config;
+    private final Map<String, LatencyRecorder.Summary> endpoints;
+
+    public LoadTestReport(Map<String, Object> config, Map<String, LatencyRecorder.Summary> endpoints) {
+        this.config = config;
+        this.endpoints = endpoints;
+    }
+
+    public void print() {
+        System.out.printf("%-40s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        endpoints.forEach((endpoint, summary) -> System.out.printf("%-40s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint, summary.count(), summary.errors(), summary.throughput(),
+                summary.p50Millis(), summary.p95Millis(), summary.p99Millis(), summary.maxMillis()));
+    }
+
+    public void save(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("endpoints", endpoints);
+        MAPPER.writeValue(file.toFile(), report);
+    }
+
+    /**
+     * Returns one message per endpoint whose p95 or p99 latency exceeds the baseline by more than
+     * {@code maxRegression} (0.1 = 10%), or whose error count grew.
+     */
+    public List<String> compare(Path baselineFile, double maxRegression) throws IOException {
+        JsonNode baseline = MAPPER.readTree(baselineFile.toFile()).path("endpoints");
+        List<String> regressions = new ArrayList<>();
+
+        endpoints.forEach((endpoint, summary) -> {
+            JsonNode previous = baseline.path(endpoint);
+            if (previous.isMissingNode()) {
+                return;
+            }
+            check(regressions, endpoint, "p95", previous.path("p95Millis").asDouble(), summary.p95Millis(),
+                    maxRegression);
+            check(regressions, endpoint, "p99", previous.path("p99Millis").asDouble(), summary.p99Millis(),
+                    maxRegression);
+            if (summary.errors() > previous.path("errors").asLong()) {
+                regressions.add(String.format("%s: %d errors (baseline %d)", endpoint, summary.errors(),
+                        previous.path("errors").asLong()));
+            }
+        });
+
+        return regressions;
+    }
+
+    private static void check(List<String> regressions, String endpoint, String percentile, double baseline,
+                              double current, double maxRegression) {
+        if (baseline > 0 && current > baseline * (1 + maxRegression)) {
+            regressions.add(String.format("%s: %s %.2f ms (baseline %.2f ms, +%.0f%%)", endpoint, percentile,
+                    current, baseline, (current / baseline - 1) * 100));
+        }
+    }
+}
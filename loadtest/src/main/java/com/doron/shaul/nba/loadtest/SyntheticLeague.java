@@ -0,0 +1,219 @@
+package com.doron.shaul.nba.loadtest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic league: 30 teams of 17 players, 82-game regular seasons and box scores that depend only
+ * on the seed, so the generator and the workload driver agree on ids without sharing state. Ids are offset from
+ * the rows seeded by {@code sql/init.sql}.
+ */
+public class SyntheticLeague {
+
+    public static final int TEAMS = 30;
+    public static final int PLAYERS_PER_TEAM = 17;
+    public static final int GAMES_PER_TEAM = 82;
+
+    static final long TEAM_ID_BASE = 1_000;
+    static final long PLAYER_ID_BASE = 10_000;
+    static final long SEASON_ID_BASE = 100;
+    static final long GAME_ID_BASE = 1_000_000;
+
+    private static final String[] FIRST_NAMES = {"James", "Marcus", "Andre", "Tyler", "Jalen", "Luka", "Devin",
+            "Chris", "Anthony", "Kevin", "Darius", "Malik", "Evan", "Jordan", "Isaiah", "Cole", "Nikola", "Zion"};
+    private static final String[] LAST_NAMES = {"Walker", "Brooks", "Hayes", "Coleman", "Price", "Bennett",
+            "Reed", "Foster", "Griffin", "Russell", "Barnes", "Hughes", "Ward", "Porter", "Tucker", "Mills"};
+    private static final String[] POSITIONS = {"PG", "SG", "SF", "PF", "C"};
+
+    public record Team(long id, String name, String abbreviation, String conference) {
+    }
+
+    public record Player(long id, String firstName, String lastName, int jerseyNumber, String position,
+                         double skill) {
+    }
+
+    public record Season(long id, String name, LocalDate startDate, LocalDate endDate) {
+    }
+
+    public record Game(long id, long seasonId, LocalDate date, long homeTeamId, long awayTeamId) {
+    }
+
+    public record StatLine(long gameId, long playerId, int points, int rebounds, int assists, int steals,
+                           int blocks, int fouls, int turnovers, double minutesPlayed) {
+
+        public void appendJson(StringBuilder json) {
+            json.append("{\"gameId\":").append(gameId)
+                    .append(",\"playerId\":").append(playerId)
+                    .append(",\"points\":").append(points)
+                    .append(",\"rebounds\":").append(rebounds)
+                    .append(",\"assists\":").append(assists)
+                    .append(",\"steals\":").append(steals)
+                    .append(",\"blocks\":").append(blocks)
+                    .append(",\"fouls\":").append(fouls)
+                    .append(",\"turnovers\":").append(turnovers)
+                    .append(",\"minutesPlayed\":").append(minutesPlayed)
+                    .append('}');
+        }
+    }
+
+    private final long seed;
+    private final List<Team> teams = new ArrayList<>(TEAMS);
+    private final List<Player> players = new ArrayList<>(TEAMS * PLAYERS_PER_TEAM);
+    private final List<Season> seasons = new ArrayList<>();
+    private final List<int[]> teamIndexByPlayer = new ArrayList<>();
+
+    public SyntheticLeague(long seed, int seasonCount, int lastSeasonStartYear) {
+        this.seed = seed;
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for (int t = 0; t < TEAMS; t++) {
+            teams.add(new Team(TEAM_ID_BASE + t, String.format("Synthetic Team %02d", t + 1),
+                    String.format("S%02d", t + 1), t < TEAMS / 2 ? "EAST" : "WEST"));
+        }
+
+        for (int p = 0; p < TEAMS * PLAYERS_PER_TEAM; p++) {
+            double skill = Math.max(0.3, Math.min(2.0, 1.0 + gaussian(random) * 0.35));
+            players.add(new Player(PLAYER_ID_BASE + p,
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    random.nextInt(0, 100),
+                    POSITIONS[p % POSITIONS.length],
+                    skill));
+        }
+
+        int[] assignment = new int[players.size()];
+        for (int p = 0; p < assignment.length; p++) {
+            assignment[p] = p / PLAYERS_PER_TEAM;
+        }
+
+        for (int s = 0; s < seasonCount; s++) {
+            int startYear = lastSeasonStartYear - seasonCount + 1 + s;
+            LocalDate start = LocalDate.of(startYear, 10, 18);
+            seasons.add(new Season(SEASON_ID_BASE + s,
+                    String.format("%d-%02d", startYear, (startYear + 1) % 100),
+                    start, start.plusDays(GAMES_PER_TEAM * 2L + 60)));
+
+            if (s > 0) {
+                assignment = assignment.clone();
+                SplittableRandom trades = new SplittableRandom(mix(seed, SEASON_ID_BASE + s));
+                for (int trade = 0; trade < assignment.length / 20; trade++) {
+                    int a = trades.nextInt(assignment.length);
+                    int b = trades.nextInt(assignment.length);
+                    int team = assignment[a];
+                    assignment[a] = assignment[b];
+                    assignment[b] = team;
+                }
+            }
+            teamIndexByPlayer.add(assignment);
+        }
+    }
+
+    public List<Team> getTeams() {
+        return teams;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public List<Season> getSeasons() {
+        return seasons;
+    }
+
+    public Season getCurrentSeason() {
+        return seasons.get(seasons.size() - 1);
+    }
+
+    public List<Player> roster(long seasonId, long teamId) {
+        int[] assignment = teamIndexByPlayer.get((int) (seasonId - SEASON_ID_BASE));
+        int teamIndex = (int) (teamId - TEAM_ID_BASE);
+
+        List<Player> roster = new ArrayList<>(PLAYERS_PER_TEAM);
+        for (int p = 0; p < assignment.length; p++) {
+            if (assignment[p] == teamIndex) {
+                roster.add(players.get(p));
+            }
+        }
+        return roster;
+    }
+
+    /**
+     * Round-robin schedule (circle method): every round each team plays once, one round every other day.
+     */
+    public List<Game> schedule(Season season) {
+        int seasonIndex = (int) (season.id() - SEASON_ID_BASE);
+        List<Game> games = new ArrayList<>(TEAMS * GAMES_PER_TEAM / 2);
+
+        int[] circle = new int[TEAMS];
+        for (int t = 0; t < TEAMS; t++) {
+            circle[t] = t;
+        }
+
+        for (int round = 0; round < GAMES_PER_TEAM; round++) {
+            LocalDate date = season.startDate().plusDays(round * 2L);
+            for (int i = 0; i < TEAMS / 2; i++) {
+                int a = circle[i];
+                int b = circle[TEAMS - 1 - i];
+                boolean aAtHome = (round + i) % 2 == 0;
+                long gameId = GAME_ID_BASE + (long) seasonIndex * 10_000 + games.size();
+                games.add(new Game(gameId, season.id(), date,
+                        TEAM_ID_BASE + (aAtHome ? a : b), TEAM_ID_BASE + (aAtHome ? b : a)));
+            }
+
+            int last = circle[TEAMS - 1];
+            System.arraycopy(circle, 1, circle, 2, TEAMS - 2);
+            circle[1] = last;
+        }
+
+        return games;
+    }
+
+    public List<StatLine> boxScore(Game game) {
+        SplittableRandom random = new SplittableRandom(mix(seed, game.id()));
+        List<StatLine> lines = new ArrayList<>(26);
+        teamLines(game, game.homeTeamId(), random, lines);
+        teamLines(game, game.awayTeamId(), random, lines);
+        return lines;
+    }
+
+    private void teamLines(Game game, long teamId, SplittableRandom random, List<StatLine> lines) {
+        List<Player> roster = new ArrayList<>(roster(game.seasonId(), teamId));
+        roster.sort(Comparator.comparingDouble(Player::skill).reversed());
+        int playing = Math.min(roster.size(), 10 + random.nextInt(4));
+
+        double[] weights = new double[playing];
+        double totalWeight = 0;
+        for (int i = 0; i < playing; i++) {
+            weights[i] = roster.get(i).skill() * (0.8 + random.nextDouble() * 0.4);
+            totalWeight += weights[i];
+        }
+
+        for (int i = 0; i < playing; i++) {
+            Player player = roster.get(i);
+            double minutes = Math.min(48.0, Math.round(240.0 * weights[i] / totalWeight * 10) / 10.0);
+            int minutesInt = (int) minutes;
+            lines.add(new StatLine(game.id(), player.id(),
+                    (int) Math.round(minutes * player.skill() * 0.55 * (0.6 + random.nextDouble() * 0.8)),
+                    (int) Math.round(minutes * 0.2 * (0.5 + random.nextDouble())),
+                    (int) Math.round(minutes * 0.12 * (0.5 + random.nextDouble())),
+                    random.nextInt(1 + minutesInt / 12),
+                    random.nextInt(1 + minutesInt / 14),
+                    Math.min(6, random.nextInt(1 + minutesInt / 8)),
+                    random.nextInt(1 + minutesInt / 10),
+                    minutes));
+        }
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private static long mix(long seed, long id) {
+        return seed ^ (id * 0x9E3779B97F4A7C15L);
+    }
+}
@@ -0,0 +1,192 @@
+package com.doron.shaul.nba.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a game-night mix against a running instance: an open-loop stream of averages reads whose players and
+ * teams follow a Zipfian popularity curve, interleaved with bursts of box-score POSTs for the current season's
+ * unplayed games. Read latency is measured from the scheduled send time, so a stalled server is not hidden by
+ * the driver backing off.
+ */
+public class WorkloadDriver {
+
+    public record Config(URI baseUrl, Duration warmup, Duration duration, double readRate,
+                         Duration burstInterval, int burstSize, double zipfExponent, double currentSeasonShare,
+                         int batchSize, long seed) {
+    }
+
+    private record Call(String endpoint, HttpRequest request) {
+    }
+
+    static final String POST_STATS = "POST /games/{gameId}/stats";
+    static final String PLAYER_AVERAGES = "GET /players/{playerId}/stats/averages";
+    static final String TEAM_AVERAGES = "GET /teams/{teamId}/stats/averages";
+    static final String PLAYER_BATCH = "POST /players/stats/averages:batch";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Config config;
+    private final SyntheticLeague league;
+    private final Deque<SyntheticLeague.Game> liveGames;
+    private final List<SyntheticLeague.Player> playersByPopularity;
+    private final ZipfSampler playerSampler;
+    private final ZipfSampler teamSampler;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private ExecutorService executor;
+    private HttpClient client;
+
+    public WorkloadDriver(Config config, SyntheticLeague league, List<SyntheticLeague.Game> liveGames) {
+        this.config = config;
+        this.league = league;
+        this.liveGames = new ArrayDeque<>(liveGames);
+        this.playersByPopularity = league.getPlayers().stream()
+                .sorted(Comparator.comparingDouble(SyntheticLeague.Player::skill).reversed())
+                .toList();
+        this.playerSampler = new ZipfSampler(playersByPopularity.size(), config.zipfExponent());
+        this.teamSampler = new ZipfSampler(league.getTeams().size(), config.zipfExponent());
+    }
+
+    public Map<String, LatencyRecorder.Summary> run() throws InterruptedException {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+
+        Thread writer = Thread.ofVirtual().name("burst-writer").start(() -> writeBursts(start, measureFrom, end));
+
+        SplittableRandom random = new SplittableRandom(config.seed());
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / config.readRate());
+        for (long scheduled = start; scheduled < end; scheduled += interval) {
+            sleepUntil(scheduled);
+            Call call = nextRead(random);
+            long sentAt = scheduled;
+            executor.execute(() -> send(call, sentAt, sentAt >= measureFrom));
+        }
+
+        writer.join();
+        executor.shutdown();
+        if (!executor.awaitTermination(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+
+        return recorder.summarize(config.duration().toNanos() / 1e9);
+    }
+
+    private void writeBursts(long start, long measureFrom, long end) {
+        for (long burstAt = start; burstAt < end; burstAt += config.burstInterval().toNanos()) {
+            sleepUntil(burstAt);
+            for (int i = 0; i < config.burstSize(); i++) {
+                SyntheticLeague.Game game;
+                synchronized (liveGames) {
+                    game = liveGames.pollFirst();
+                }
+                if (game == null) {
+                    return;
+                }
+                Call call = postStats(game);
+                long sentAt = burstAt;
+                executor.execute(() -> send(call, sentAt, sentAt >= measureFrom));
+            }
+        }
+    }
+
+    private Call nextRead(SplittableRandom random) {
+        long seasonId = random.nextDouble() < config.currentSeasonShare()
+                ? league.getCurrentSeason().id()
+                : league.getSeasons().get(random.nextInt(league.getSeasons().size())).id();
+
+        double kind = random.nextDouble();
+        if (kind < 0.7) {
+            long playerId = playersByPopularity.get(playerSampler.sample(random)).id();
+            return new Call(PLAYER_AVERAGES, get("/api/v1/players/" + playerId + "/stats/averages?seasonId=" + seasonId));
+        }
+        if (kind < 0.9) {
+            long teamId = league.getTeams().get(teamSampler.sample(random)).id();
+            return new Call(TEAM_AVERAGES, get("/api/v1/teams/" + teamId + "/stats/averages?seasonId=" + seasonId));
+        }
+
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < config.batchSize(); i++) {
+            if (i > 0) {
+                ids.append(',');
+            }
+            ids.append(playersByPopularity.get(playerSampler.sample(random)).id());
+        }
+        return new Call(PLAYER_BATCH, post("/api/v1/players/stats/averages:batch",
+                "{\"seasonId\":" + seasonId + ",\"ids\":[" + ids + "]}"));
+    }
+
+    private Call postStats(SyntheticLeague.Game game) {
+        StringBuilder json = new StringBuilder("[");
+        for (SyntheticLeague.StatLine line : league.boxScore(game)) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            line.appendJson(json);
+        }
+        json.append(']');
+        return new Call(POST_STATS, post("/api/v1/games/" + game.id() + "/stats", json.toString()));
+    }
+
+    private void send(Call call, long scheduledAt, boolean measured) {
+        boolean success;
+        try {
+            HttpResponse<Void> response = client.send(call.request(), HttpResponse.BodyHandlers.discarding());
+            // Players who never got minutes in a season have no averages, which is a valid answer
+            success = response.statusCode() < 300 || response.statusCode() == 404;
+        } catch (IOException ex) {
+            success = false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (measured) {
+            recorder.record(call.endpoint(), System.nanoTime() - scheduledAt, success);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(config.baseUrl().resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(config.baseUrl().resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
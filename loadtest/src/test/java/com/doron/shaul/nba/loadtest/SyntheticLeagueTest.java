@@ -0,0 +1,58 @@
+package com.doron.shaul.nba.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SyntheticLeagueTest {
+
+    @Test
+    void testSameSeedProducesSameLeague() {
+        SyntheticLeague first = new SyntheticLeague(7, 3, 2021);
+        SyntheticLeague second = new SyntheticLeague(7, 3, 2021);
+
+        assertEquals(first.getPlayers(), second.getPlayers());
+        SyntheticLeague.Season season = first.getCurrentSeason();
+        SyntheticLeague.Game game = first.schedule(season).get(100);
+        assertEquals(first.boxScore(game), second.boxScore(game));
+    }
+
+    @Test
+    void testScheduleGivesEveryTeamOneGamePerRound() {
+        SyntheticLeague league = new SyntheticLeague(42, 2, 2021);
+        List<SyntheticLeague.Game> games = league.schedule(league.getCurrentSeason());
+
+        assertEquals(SyntheticLeague.TEAMS * SyntheticLeague.GAMES_PER_TEAM / 2, games.size());
+
+        Map<Long, Integer> gamesPerTeam = new HashMap<>();
+        Set<String> teamDates = new HashSet<>();
+        for (SyntheticLeague.Game game : games) {
+            gamesPerTeam.merge(game.homeTeamId(), 1, Integer::sum);
+            gamesPerTeam.merge(game.awayTeamId(), 1, Integer::sum);
+            assertTrue(teamDates.add(game.homeTeamId() + "@" + game.date()));
+            assertTrue(teamDates.add(game.awayTeamId() + "@" + game.date()));
+        }
+        assertEquals(Set.of(SyntheticLeague.GAMES_PER_TEAM), new HashSet<>(gamesPerTeam.values()));
+    }
+
+    @Test
+    void testBoxScoresStayWithinValidationLimits() {
+        SyntheticLeague league = new SyntheticLeague(42, 2, 2021);
+        for (SyntheticLeague.Season season : league.getSeasons()) {
+            for (SyntheticLeague.Game game : league.schedule(season)) {
+                for (SyntheticLeague.StatLine line : league.boxScore(game)) {
+                    assertTrue(line.fouls() >= 0 && line.fouls() <= 6);
+                    assertTrue(line.minutesPlayed() >= 0 && line.minutesPlayed() <= 48.0);
+                    assertTrue(line.points() >= 0 && line.rebounds() >= 0 && line.assists() >= 0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.config.InstanceIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the averages cache key, which {@code @Cacheable} resolves on every call. The generations are served from
+ * the local mirror, as they are between expiries; Redis is stubbed and only seeds them on the first call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheKeyBenchmark {
+
+    // The key expression of StatsService.getPlayerSeasonStats
+    private final Expression playerKey = new SpelExpressionParser()
+            .parseExpression("@cacheGenerations.playerKey(#playerId, #seasonId)");
+
+    private long playerId = 2544;
+    private long seasonId = 1;
+
+    private CacheGenerations cacheGenerations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringRedisTemplate redisTemplate = new StringRedisTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+                return (T) Collections.nCopies(keys.size(), Long.parseLong((String) args[0]));
+            }
+        };
+        cacheGenerations = new CacheGenerations(redisTemplate, null, new InstanceIdentity(),
+                new RedisMessageListenerContainer(), new SimpleMeterRegistry(), 10000, Duration.ofMinutes(10),
+                Duration.ofSeconds(5), Duration.ofHours(1));
+    }
+
+    @Benchmark
+    public String identity() {
+        return CacheKeys.playerSeason(playerId, seasonId);
+    }
+
+    @Benchmark
+    public String generationKey() {
+        return cacheGenerations.playerKey(playerId, seasonId);
+    }
+
+    @Benchmark
+    public Object spelExpression() {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.setBeanResolver((evaluationContext, beanName) -> cacheGenerations);
+        context.setVariable("playerId", playerId);
+        context.setVariable("seasonId", seasonId);
+        return playerKey.getValue(context);
+    }
+}
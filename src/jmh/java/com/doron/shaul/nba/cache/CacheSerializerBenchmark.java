@@ -0,0 +1,115 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.TeamSeasonStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheSerializerBenchmark {
+
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+    private final CompactStatsSerializer compactSerializer = new CompactStatsSerializer(serializer, 512);
+
+    private PlayerSeasonStats playerStats;
+    private List<TeamSeasonStats> teamStats;
+    private byte[] playerBytes;
+    private byte[] teamBytes;
+    private byte[] compactPlayerBytes;
+    private byte[] compactTeamBytes;
+
+    @Setup
+    public void setUp() {
+        playerStats = new PlayerSeasonStats();
+        playerStats.setPlayerId(23L);
+        playerStats.setFirstName("LeBron");
+        playerStats.setLastName("James");
+        playerStats.setSeasonId(1L);
+        playerStats.setSeasonName("2023-24");
+        playerStats.setTeamId(14L);
+        playerStats.setTeamName("Los Angeles Lakers");
+        playerStats.setAvgPoints(25.7);
+        playerStats.setAvgRebounds(7.3);
+        playerStats.setAvgAssists(8.3);
+        playerStats.setAvgSteals(1.3);
+        playerStats.setAvgBlocks(0.5);
+        playerStats.setAvgFouls(1.1);
+        playerStats.setAvgTurnovers(3.5);
+        playerStats.setAvgMinutesPlayed(35.3);
+        playerStats.setGamesPlayed(71);
+
+        TeamSeasonStats team = new TeamSeasonStats();
+        team.setTeamId(14L);
+        team.setTeamName("Los Angeles Lakers");
+        team.setSeasonId(1L);
+        team.setSeasonName("2023-24");
+        team.setAvgPoints(9.6);
+        team.setAvgRebounds(3.7);
+        team.setAvgAssists(2.4);
+        team.setAvgSteals(0.6);
+        team.setAvgBlocks(0.4);
+        team.setAvgFouls(1.5);
+        team.setAvgTurnovers(1.2);
+        team.setAvgMinutesPlayed(19.8);
+        team.setGamesPlayed(82);
+        team.setPlayersCount(17);
+        teamStats = new ArrayList<>(List.of(team));
+
+        playerBytes = serializer.serialize(playerStats);
+        teamBytes = serializer.serialize(teamStats);
+        compactPlayerBytes = compactSerializer.serialize(playerStats);
+        compactTeamBytes = compactSerializer.serialize(teamStats);
+    }
+
+    @Benchmark
+    public byte[] playerEncode() {
+        return serializer.serialize(playerStats);
+    }
+
+    @Benchmark
+    public Object playerDecode() {
+        return serializer.deserialize(playerBytes);
+    }
+
+    @Benchmark
+    public byte[] teamEncode() {
+        return serializer.serialize(teamStats);
+    }
+
+    @Benchmark
+    public Object teamDecode() {
+        return serializer.deserialize(teamBytes);
+    }
+
+    @Benchmark
+    public byte[] playerEncodeCompact() {
+        return compactSerializer.serialize(playerStats);
+    }
+
+    @Benchmark
+    public Object playerDecodeCompact() {
+        return compactSerializer.deserialize(compactPlayerBytes);
+    }
+
+    @Benchmark
+    public byte[] teamEncodeCompact() {
+        return compactSerializer.serialize(teamStats);
+    }
+
+    @Benchmark
+    public Object teamDecodeCompact() {
+        return compactSerializer.deserialize(compactTeamBytes);
+    }
+}
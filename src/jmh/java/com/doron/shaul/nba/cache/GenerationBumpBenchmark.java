@@ -0,0 +1,105 @@
+package com.doron.shaul.nba.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest latency of a burst of box scores under the two ways of invalidating the averages caches: two Redis round
+ * trips per touched player and team inside the transaction, holding its JDBC connection, or the post-commit bump
+ * (one script call, one pipelined delete of the superseded entries and one pub/sub message) after the connection is
+ * returned. Database and Redis calls are simulated with their latencies; the pool has Hikari's default size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GenerationBumpBenchmark {
+
+    private static final int POOL_SIZE = 10;
+    private static final int POST_COMMIT_ROUND_TRIPS = 3;
+
+    @Param({"8", "32"})
+    private int boxScores;
+
+    @Param({"26"})
+    private int players;
+
+    @Param({"2"})
+    private int teams;
+
+    @Param({"5"})
+    private int dbLatencyMillis;
+
+    // Shorter sleeps are rounded up to about a millisecond by most schedulers
+    @Param({"1000"})
+    private int redisLatencyMicros;
+
+    @Param({"inTransaction", "postCommit"})
+    private String bump;
+
+    private ExecutorService executor;
+    private Semaphore connections;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        connections = new Semaphore(POOL_SIZE);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<Integer>> responses = new ArrayList<>(boxScores);
+        for (int i = 0; i < boxScores; i++) {
+            responses.add(executor.submit(this::ingest));
+        }
+
+        int completed = 0;
+        for (Future<Integer> response : responses) {
+            completed += response.get();
+        }
+        return completed;
+    }
+
+    private int ingest() throws InterruptedException {
+        boolean inTransaction = bump.equals("inTransaction");
+        connections.acquire();
+        try {
+            TimeUnit.MILLISECONDS.sleep(dbLatencyMillis);
+            if (inTransaction) {
+                redis(2 * (players + teams));
+            }
+        } finally {
+            connections.release();
+        }
+        if (!inTransaction) {
+            redis(POST_COMMIT_ROUND_TRIPS);
+        }
+        return 1;
+    }
+
+    private void redis(int roundTrips) throws InterruptedException {
+        for (int i = 0; i < roundTrips; i++) {
+            TimeUnit.MICROSECONDS.sleep(redisLatencyMicros);
+        }
+    }
+}
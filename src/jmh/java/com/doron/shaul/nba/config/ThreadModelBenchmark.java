@@ -0,0 +1,100 @@
+package com.doron.shaul.nba.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a burst of requests that each do a fast Redis round trip and, for a share of them, a slow JDBC query
+ * behind a bulkhead the size of the JDBC pool. Compares Tomcat's default 200 platform threads against one virtual
+ * thread per request. Redis calls are not capped: Lettuce multiplexes them over one connection, and a shared cap
+ * would bound both thread models alike.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThreadModelBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"2000", "10000"})
+    private int requests;
+
+    @Param({"20"})
+    private int dbLatencyMillis;
+
+    @Param({"1"})
+    private int redisLatencyMillis;
+
+    @Param({"10"})
+    private int missPercent;
+
+    @Param({"platform", "virtual"})
+    private String threadModel;
+
+    private ExecutorService executor;
+    private ConcurrencyBulkhead jdbcBulkhead;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        executor = threadModel.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        jdbcBulkhead = new ConcurrencyBulkhead("jdbc", 10, Duration.ofSeconds(60));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<Integer>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            boolean miss = i % 100 < missPercent;
+            responses.add(executor.submit(() -> handle(miss)));
+        }
+
+        int completed = 0;
+        for (Future<Integer> response : responses) {
+            completed += response.get();
+        }
+        return completed;
+    }
+
+    private int handle(boolean miss) throws InterruptedException {
+        Thread.sleep(redisLatencyMillis);
+        if (miss) {
+            call(jdbcBulkhead, dbLatencyMillis);
+            Thread.sleep(redisLatencyMillis);
+        }
+        return 1;
+    }
+
+    private static void call(ConcurrencyBulkhead bulkhead, int latencyMillis) throws InterruptedException {
+        if (!bulkhead.tryAcquire()) {
+            throw new IllegalStateException("Bulkhead " + bulkhead.getName() + " timed out");
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
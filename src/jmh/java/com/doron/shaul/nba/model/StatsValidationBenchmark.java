@@ -0,0 +1,70 @@
+package com.doron.shaul.nba.model;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatsValidationBenchmark {
+
+    @Param({"20", "5000"})
+    private int batchSize;
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private List<PlayerGameStats> statsList;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        statsList = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            PlayerGameStats stats = new PlayerGameStats();
+            stats.setGameId(1L);
+            stats.setPlayerId(1L + i);
+            stats.setPoints(i % 40);
+            stats.setRebounds(i % 15);
+            stats.setAssists(i % 12);
+            stats.setSteals(i % 4);
+            stats.setBlocks(i % 3);
+            stats.setFouls(i % 6);
+            stats.setTurnovers(i % 5);
+            stats.setMinutesPlayed((i % 480) / 10.0);
+            statsList.add(stats);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public int validateBatch() {
+        int violations = 0;
+        for (PlayerGameStats stats : statsList) {
+            Set<ConstraintViolation<PlayerGameStats>> result = validator.validate(stats);
+            violations += result.size();
+        }
+        return violations;
+    }
+}
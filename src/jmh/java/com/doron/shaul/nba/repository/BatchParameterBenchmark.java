@@ -0,0 +1,51 @@
+package com.doron.shaul.nba.repository;
+
+import com.doron.shaul.nba.model.PlayerGameStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchParameterBenchmark {
+
+    @Param({"20", "5000"})
+    private int batchSize;
+
+    private List<PlayerGameStats> statsList;
+
+    @Setup
+    public void setUp() {
+        statsList = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            PlayerGameStats stats = new PlayerGameStats();
+            stats.setGameId(1L + i / 20);
+            stats.setPlayerId(1L + i % 450);
+            stats.setPoints(i % 40);
+            stats.setRebounds(i % 15);
+            stats.setAssists(i % 12);
+            stats.setSteals(i % 4);
+            stats.setBlocks(i % 3);
+            stats.setFouls(i % 6);
+            stats.setTurnovers(i % 5);
+            stats.setMinutesPlayed((i % 480) / 10.0);
+            statsList.add(stats);
+        }
+    }
+
+    @Benchmark
+    public SqlParameterSource[] savePlayerStatsParameters() {
+        return PlayerStatsRepository.toBatchParams(statsList);
+    }
+}
@@ -0,0 +1,109 @@
+package com.doron.shaul.nba.repository;
+
+import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.TeamSeasonStats;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RowMapperBenchmark {
+
+    private static final String[] AVERAGE_COLUMNS = {"avg_points", "avg_rebounds", "avg_assists", "avg_steals",
+            "avg_blocks", "avg_fouls", "avg_turnovers", "avg_minutes_played"};
+
+    private final BeanPropertyRowMapper<PlayerSeasonStats> sharedPlayerMapper =
+            new BeanPropertyRowMapper<>(PlayerSeasonStats.class);
+    private final BeanPropertyRowMapper<TeamSeasonStats> sharedTeamMapper =
+            new BeanPropertyRowMapper<>(TeamSeasonStats.class);
+
+    private SimpleResultSet playerRow;
+    private SimpleResultSet teamRow;
+
+    @Setup
+    public void setUp() {
+        playerRow = new SimpleResultSet();
+        playerRow.addColumn("player_id", Types.BIGINT, 19, 0);
+        playerRow.addColumn("player_first_name", Types.VARCHAR, 50, 0);
+        playerRow.addColumn("player_last_name", Types.VARCHAR, 50, 0);
+        playerRow.addColumn("season_id", Types.BIGINT, 19, 0);
+        playerRow.addColumn("season_name", Types.VARCHAR, 9, 0);
+        playerRow.addColumn("team_id", Types.BIGINT, 19, 0);
+        playerRow.addColumn("team_name", Types.VARCHAR, 100, 0);
+        addAverageColumns(playerRow);
+        playerRow.addColumn("games_played", Types.INTEGER, 10, 0);
+        playerRow.addRow(23L, "LeBron", "James", 1L, "2023-24", 14L, "Los Angeles Lakers",
+                avg("25.7"), avg("7.3"), avg("8.3"), avg("1.3"), avg("0.5"), avg("1.1"), avg("3.5"), avg("35.3"), 71);
+
+        teamRow = new SimpleResultSet();
+        teamRow.addColumn("team_id", Types.BIGINT, 19, 0);
+        teamRow.addColumn("team_name", Types.VARCHAR, 100, 0);
+        teamRow.addColumn("season_id", Types.BIGINT, 19, 0);
+        teamRow.addColumn("season_name", Types.VARCHAR, 9, 0);
+        addAverageColumns(teamRow);
+        teamRow.addColumn("games_played", Types.INTEGER, 10, 0);
+        teamRow.addColumn("players_count", Types.INTEGER, 10, 0);
+        teamRow.addRow(14L, "Los Angeles Lakers", 1L, "2023-24",
+                avg("9.6"), avg("3.7"), avg("2.4"), avg("0.6"), avg("0.4"), avg("1.5"), avg("1.2"), avg("19.8"), 82, 17);
+    }
+
+    @Benchmark
+    public PlayerSeasonStats playerBeanPropertyPerQuery() throws SQLException {
+        return new BeanPropertyRowMapper<>(PlayerSeasonStats.class).mapRow(rewind(playerRow), 0);
+    }
+
+    @Benchmark
+    public PlayerSeasonStats playerBeanPropertyShared() throws SQLException {
+        return sharedPlayerMapper.mapRow(rewind(playerRow), 0);
+    }
+
+    @Benchmark
+    public PlayerSeasonStats playerHandWritten() throws SQLException {
+        return SeasonStatsRowMappers.PLAYER.mapRow(rewind(playerRow), 0);
+    }
+
+    @Benchmark
+    public TeamSeasonStats teamBeanPropertyPerQuery() throws SQLException {
+        return new BeanPropertyRowMapper<>(TeamSeasonStats.class).mapRow(rewind(teamRow), 0);
+    }
+
+    @Benchmark
+    public TeamSeasonStats teamBeanPropertyShared() throws SQLException {
+        return sharedTeamMapper.mapRow(rewind(teamRow), 0);
+    }
+
+    @Benchmark
+    public TeamSeasonStats teamHandWritten() throws SQLException {
+        return SeasonStatsRowMappers.TEAM.mapRow(rewind(teamRow), 0);
+    }
+
+    private static void addAverageColumns(SimpleResultSet resultSet) {
+        for (String column : AVERAGE_COLUMNS) {
+            resultSet.addColumn(column, Types.DECIMAL, 14, 4);
+        }
+    }
+
+    private static BigDecimal avg(String value) {
+        return new BigDecimal(value);
+    }
+
+    private static ResultSet rewind(SimpleResultSet resultSet) throws SQLException {
+        resultSet.beforeFirst();
+        resultSet.next();
+        return resultSet;
+    }
+}
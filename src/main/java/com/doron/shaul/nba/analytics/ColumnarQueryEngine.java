@@ -0,0 +1,256 @@
+package com.doron.shaul.nba.analytics;
+
+import com.doron.shaul.nba.model.AnalyticsQuery;
+import com.doron.shaul.nba.model.AnalyticsRow;
+import com.doron.shaul.nba.model.StatCategory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Filter + group-by + sum/avg/count over a {@link SeasonColumnStore.Snapshot}. Rows are split into
+ * fork-join leaves; each leaf accumulates into its own flat {@code long[]} of
+ * {@code [count, sum(stat 0), ..., sum(stat n)]} per group, so the scan loop does not allocate.
+ */
+public class ColumnarQueryEngine {
+
+    private static final StatCategory[] CATEGORIES = StatCategory.values();
+    private static final int WIDTH = SeasonColumnStore.STATS + 1;
+    private static final String GAMES_PLAYED = "gamesPlayed";
+
+    private final ForkJoinPool pool;
+    private final int leafRows;
+
+    public ColumnarQueryEngine(ForkJoinPool pool, int leafRows) {
+        this.pool = pool;
+        this.leafRows = leafRows;
+    }
+
+    public List<AnalyticsRow> execute(SeasonColumnStore.Snapshot snapshot, AnalyticsQuery query) {
+        Comparator<AnalyticsRow> order = comparator(query);
+        Filter filter = compile(snapshot, query);
+        if (filter == null || snapshot.rows == 0) {
+            return List.of();
+        }
+
+        long[] acc = snapshot.rows <= leafRows
+                ? new ScanTask(snapshot, filter, 0, snapshot.rows).compute()
+                : pool.invoke(new ScanTask(snapshot, filter, 0, snapshot.rows));
+
+        List<AnalyticsRow> rows = new ArrayList<>();
+        for (int group = 0; group < filter.groups; group++) {
+            long count = acc[group * WIDTH];
+            if (count > 0) {
+                rows.add(toRow(snapshot, query, acc, group));
+            }
+        }
+
+        rows.sort(order);
+        if (query.getLimit() != null && rows.size() > query.getLimit()) {
+            return new ArrayList<>(rows.subList(0, query.getLimit()));
+        }
+        return rows;
+    }
+
+    private Filter compile(SeasonColumnStore.Snapshot snapshot, AnalyticsQuery query) {
+        Filter filter = new Filter();
+        filter.fromDay = query.getFrom() != null ? (int) query.getFrom().toEpochDay() : Integer.MIN_VALUE;
+        filter.toDay = query.getTo() != null ? (int) query.getTo().toEpochDay() : Integer.MAX_VALUE;
+
+        if (query.getPlayoff() != null) {
+            filter.flagMask |= SeasonColumnStore.FLAG_PLAYOFF;
+            filter.flagValue |= query.getPlayoff() ? SeasonColumnStore.FLAG_PLAYOFF : 0;
+        }
+        if (query.getHome() != null) {
+            filter.flagMask |= SeasonColumnStore.FLAG_HOME | SeasonColumnStore.FLAG_TEAM;
+            filter.flagValue |= SeasonColumnStore.FLAG_TEAM | (query.getHome() ? SeasonColumnStore.FLAG_HOME : 0);
+        }
+
+        if (query.getPlayerIds() != null && !query.getPlayerIds().isEmpty()) {
+            filter.players = membership(snapshot.playerIds, snapshot.playerCount, query.getPlayerIds());
+            if (filter.players == null) {
+                return null;
+            }
+        }
+        if (query.getTeamIds() != null && !query.getTeamIds().isEmpty()) {
+            filter.teams = membership(snapshot.teamIds, snapshot.teamCount, query.getTeamIds());
+            if (filter.teams == null) {
+                return null;
+            }
+        }
+
+        switch (query.getGroupBy()) {
+            case PLAYER -> {
+                filter.groupColumn = snapshot.players;
+                filter.groups = snapshot.playerCount;
+            }
+            case TEAM -> {
+                filter.groupColumn = snapshot.teams;
+                filter.groups = snapshot.teamCount;
+            }
+            case GAME -> {
+                filter.groupColumn = snapshot.games;
+                filter.groups = snapshot.gameCount;
+            }
+            default -> filter.groups = 1;
+        }
+        return filter;
+    }
+
+    private boolean[] membership(IdDictionary dictionary, int size, List<Long> ids) {
+        boolean[] members = new boolean[size];
+        boolean any = false;
+        for (Long id : ids) {
+            int code = dictionary.lookup(id);
+            if (code >= 0 && code < size) {
+                members[code] = true;
+                any = true;
+            }
+        }
+        return any ? members : null;
+    }
+
+    private AnalyticsRow toRow(SeasonColumnStore.Snapshot snapshot, AnalyticsQuery query, long[] acc, int group) {
+        int base = group * WIDTH;
+        long count = acc[base];
+        double minutes = acc[base + 1 + SeasonColumnStore.MINUTES] / 10.0;
+
+        AnalyticsRow row = new AnalyticsRow();
+        row.setGroupId(switch (query.getGroupBy()) {
+            case PLAYER -> snapshot.playerIds.decode(group);
+            case TEAM -> snapshot.teamIds.decode(group);
+            case GAME -> snapshot.gameIds.decode(group);
+            default -> null;
+        });
+        row.setGamesPlayed(count);
+        if (query.isPer36()) {
+            row.setPer36(new LinkedHashMap<>());
+        }
+
+        for (StatCategory category : CATEGORIES) {
+            double total = category == StatCategory.MINUTES_PLAYED
+                    ? minutes
+                    : acc[base + 1 + category.ordinal()];
+            row.getTotals().put(category.getKey(), total);
+            row.getAverages().put(category.getKey(), round(total / count));
+            if (query.isPer36() && category != StatCategory.MINUTES_PLAYED) {
+                row.getPer36().put(category.getKey(), minutes > 0 ? round(total * 36 / minutes) : 0.0);
+            }
+        }
+        return row;
+    }
+
+    private Comparator<AnalyticsRow> comparator(AnalyticsQuery query) {
+        Comparator<AnalyticsRow> byGroup = Comparator.comparing(AnalyticsRow::getGroupId,
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        if (query.getOrderBy() == null || query.getOrderBy().isBlank()) {
+            return byGroup;
+        }
+        if (GAMES_PLAYED.equalsIgnoreCase(query.getOrderBy())) {
+            return Comparator.comparingLong(AnalyticsRow::getGamesPlayed).reversed().thenComparing(byGroup);
+        }
+
+        String key = StatCategory.fromKey(query.getOrderBy()).getKey();
+        Comparator<AnalyticsRow> byStat = query.isPer36() && !key.equals(StatCategory.MINUTES_PLAYED.getKey())
+                ? Comparator.comparingDouble(row -> row.getPer36().get(key))
+                : Comparator.comparingDouble(row -> row.getAverages().get(key));
+        return byStat.reversed().thenComparing(byGroup);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static final class Filter {
+        int fromDay;
+        int toDay;
+        int flagMask;
+        int flagValue;
+        boolean[] players;
+        boolean[] teams;
+        int[] groupColumn;
+        int groups;
+    }
+
+    private final class ScanTask extends RecursiveTask<long[]> {
+
+        private final SeasonColumnStore.Snapshot snapshot;
+        private final Filter filter;
+        private final int from;
+        private final int to;
+
+        private ScanTask(SeasonColumnStore.Snapshot snapshot, Filter filter, int from, int to) {
+            this.snapshot = snapshot;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= leafRows) {
+                return scan();
+            }
+
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(snapshot, filter, from, middle);
+            ScanTask right = new ScanTask(snapshot, filter, middle, to);
+            left.fork();
+            long[] result = right.compute();
+            long[] other = left.join();
+            for (int i = 0; i < result.length; i++) {
+                result[i] += other[i];
+            }
+            return result;
+        }
+
+        private long[] scan() {
+            long[] acc = new long[filter.groups * WIDTH];
+
+            int[] dates = snapshot.dates;
+            byte[] flags = snapshot.flags;
+            int[] players = snapshot.players;
+            int[] teams = snapshot.teams;
+            int[][] stats = snapshot.stats;
+            int[] groupColumn = filter.groupColumn;
+            boolean[] playerFilter = filter.players;
+            boolean[] teamFilter = filter.teams;
+            int fromDay = filter.fromDay;
+            int toDay = filter.toDay;
+            int flagMask = filter.flagMask;
+            int flagValue = filter.flagValue;
+            int playerLimit = playerFilter != null ? playerFilter.length : 0;
+            int teamLimit = teamFilter != null ? teamFilter.length : 0;
+
+            for (int row = from; row < to; row++) {
+                int day = dates[row];
+                if (day < fromDay || day > toDay || (flags[row] & flagMask) != flagValue) {
+                    continue;
+                }
+                if (playerFilter != null && (players[row] >= playerLimit || !playerFilter[players[row]])) {
+                    continue;
+                }
+                int team = teams[row];
+                if (teamFilter != null && (team < 0 || team >= teamLimit || !teamFilter[team])) {
+                    continue;
+                }
+                int group = groupColumn != null ? groupColumn[row] : 0;
+                if (group < 0) {
+                    continue;
+                }
+
+                int base = group * WIDTH;
+                acc[base]++;
+                for (int s = 0; s < SeasonColumnStore.STATS; s++) {
+                    acc[base + 1 + s] += stats[s][row];
+                }
+            }
+            return acc;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.doron.shaul.nba.analytics;
+
+import com.doron.shaul.nba.model.FormAverages;
+import com.doron.shaul.nba.model.GameLine;
+import com.doron.shaul.nba.model.StatCategory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, date-ordered prefix sums of one player's or team's games in a season. Row {@code i} of the prefix
+ * holds the running totals of every stat (minutes in tenths) and of the stat line count over the first {@code i}
+ * games, so the averages of any contiguous run of games are two row lookups and a subtraction.
+ * <p>
+ * {@link #with} returns a new series: games appended after the last one only add prefix rows, while a late game
+ * recomputes the rows from its position on. Stat ids already included are skipped, so replays are harmless.
+ */
+public final class FormSeries {
+
+    static final int STATS = StatCategory.values().length;
+    static final int LINES = STATS;
+    static final int COLUMNS = STATS + 1;
+
+    public static final FormSeries EMPTY = new FormSeries(new long[0], new int[0], new long[COLUMNS], new long[0]);
+
+    private record Game(long gameId, int day, long[] values) {
+    }
+
+    private final long[] gameIds;
+    private final int[] days;
+    private final long[] prefix;
+    private final long[] statIds;
+
+    private FormSeries(long[] gameIds, int[] days, long[] prefix, long[] statIds) {
+        this.gameIds = gameIds;
+        this.days = days;
+        this.prefix = prefix;
+        this.statIds = statIds;
+    }
+
+    public int games() {
+        return gameIds.length;
+    }
+
+    /**
+     * Games plus stat lines held, the unit the form index is bounded in.
+     */
+    public int weight() {
+        return gameIds.length + statIds.length;
+    }
+
+    public FormSeries with(Collection<GameLine> lines) {
+        Map<Long, Game> added = new LinkedHashMap<>();
+        long[] newStatIds = new long[lines.size()];
+        int newLines = 0;
+        for (GameLine line : lines) {
+            if (Arrays.binarySearch(statIds, line.getStatId()) >= 0) {
+                continue;
+            }
+            newStatIds[newLines++] = line.getStatId();
+            Game game = added.computeIfAbsent(line.getGameId(), gameId ->
+                    new Game(gameId, (int) line.getGameDate().toEpochDay(), new long[COLUMNS]));
+            accumulate(game.values(), line);
+        }
+        if (added.isEmpty()) {
+            return this;
+        }
+
+        int from = games();
+        for (Game game : added.values()) {
+            from = Math.min(from, position(game));
+        }
+
+        List<Game> tail = new ArrayList<>(games() - from + added.size());
+        for (int i = from; i < games(); i++) {
+            long[] values = new long[COLUMNS];
+            for (int c = 0; c < COLUMNS; c++) {
+                values[c] = prefix[(i + 1) * COLUMNS + c] - prefix[i * COLUMNS + c];
+            }
+            Game extra = added.remove(gameIds[i]);
+            if (extra != null) {
+                for (int c = 0; c < COLUMNS; c++) {
+                    values[c] += extra.values()[c];
+                }
+            }
+            tail.add(new Game(gameIds[i], days[i], values));
+        }
+        tail.addAll(added.values());
+        tail.sort(Comparator.comparingInt(Game::day).thenComparingLong(Game::gameId));
+
+        int size = from + tail.size();
+        long[] mergedGameIds = Arrays.copyOf(gameIds, size);
+        int[] mergedDays = Arrays.copyOf(days, size);
+        long[] mergedPrefix = Arrays.copyOf(prefix, (size + 1) * COLUMNS);
+        for (int i = from; i < size; i++) {
+            Game game = tail.get(i - from);
+            mergedGameIds[i] = game.gameId();
+            mergedDays[i] = game.day();
+            for (int c = 0; c < COLUMNS; c++) {
+                mergedPrefix[(i + 1) * COLUMNS + c] = mergedPrefix[i * COLUMNS + c] + game.values()[c];
+            }
+        }
+
+        long[] mergedStatIds = Arrays.copyOf(statIds, statIds.length + newLines);
+        System.arraycopy(newStatIds, 0, mergedStatIds, statIds.length, newLines);
+        Arrays.sort(mergedStatIds);
+
+        return new FormSeries(mergedGameIds, mergedDays, mergedPrefix, mergedStatIds);
+    }
+
+    /**
+     * Averages over the last {@code count} games (all games if there are fewer).
+     */
+    public FormAverages lastGames(int count) {
+        return average(Math.max(0, games() - count), games());
+    }
+
+    /**
+     * Averages over the games played between {@code from} and {@code to}, both inclusive.
+     */
+    public FormAverages between(LocalDate from, LocalDate to) {
+        int start = lowerBound((int) from.toEpochDay());
+        int end = lowerBound((int) to.toEpochDay() + 1);
+        return average(start, Math.max(start, end));
+    }
+
+    private FormAverages average(int from, int to) {
+        FormAverages averages = new FormAverages();
+        averages.setGamesPlayed(to - from);
+
+        long lines = total(from, to, LINES);
+        if (lines == 0) {
+            return averages;
+        }
+
+        averages.setFrom(LocalDate.ofEpochDay(days[from]));
+        averages.setTo(LocalDate.ofEpochDay(days[to - 1]));
+        averages.setAvgPoints(average(from, to, StatCategory.POINTS, lines));
+        averages.setAvgRebounds(average(from, to, StatCategory.REBOUNDS, lines));
+        averages.setAvgAssists(average(from, to, StatCategory.ASSISTS, lines));
+        averages.setAvgSteals(average(from, to, StatCategory.STEALS, lines));
+        averages.setAvgBlocks(average(from, to, StatCategory.BLOCKS, lines));
+        averages.setAvgFouls(average(from, to, StatCategory.FOULS, lines));
+        averages.setAvgTurnovers(average(from, to, StatCategory.TURNOVERS, lines));
+        averages.setAvgMinutesPlayed(average(from, to, StatCategory.MINUTES_PLAYED, lines) / 10);
+        return averages;
+    }
+
+    private double average(int from, int to, StatCategory category, long lines) {
+        return (double) total(from, to, category.ordinal()) / lines;
+    }
+
+    private long total(int from, int to, int column) {
+        return prefix[to * COLUMNS + column] - prefix[from * COLUMNS + column];
+    }
+
+    /**
+     * Index of the game {@code game} updates, or where it would be inserted to keep (date, game id) order.
+     */
+    private int position(Game game) {
+        int i = games();
+        while (i > 0 && (days[i - 1] > game.day() || (days[i - 1] == game.day() && gameIds[i - 1] >= game.gameId()))) {
+            i--;
+        }
+        return i;
+    }
+
+    private int lowerBound(int day) {
+        int low = 0;
+        int high = games();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void accumulate(long[] values, GameLine line) {
+        values[StatCategory.POINTS.ordinal()] += line.getPoints();
+        values[StatCategory.REBOUNDS.ordinal()] += line.getRebounds();
+        values[StatCategory.ASSISTS.ordinal()] += line.getAssists();
+        values[StatCategory.STEALS.ordinal()] += line.getSteals();
+        values[StatCategory.BLOCKS.ordinal()] += line.getBlocks();
+        values[StatCategory.FOULS.ordinal()] += line.getFouls();
+        values[StatCategory.TURNOVERS.ordinal()] += line.getTurnovers();
+        values[StatCategory.MINUTES_PLAYED.ordinal()] += Math.round(line.getMinutesPlayed() * 10);
+        values[LINES]++;
+    }
+}
@@ -0,0 +1,39 @@
+package com.doron.shaul.nba.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary-encodes database ids into dense {@code int} codes usable as array indexes.
+ */
+public class IdDictionary {
+
+    private final LongIntHashMap codes = new LongIntHashMap(64);
+    private long[] ids = new long[64];
+
+    public synchronized int encode(long id) {
+        int code = codes.get(id, -1);
+        if (code >= 0) {
+            return code;
+        }
+
+        code = codes.size();
+        if (code == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length << 1);
+        }
+        ids[code] = id;
+        codes.put(id, code);
+        return code;
+    }
+
+    public synchronized int lookup(long id) {
+        return codes.get(id, -1);
+    }
+
+    public synchronized long decode(int code) {
+        return ids[code];
+    }
+
+    public synchronized int size() {
+        return codes.size();
+    }
+}
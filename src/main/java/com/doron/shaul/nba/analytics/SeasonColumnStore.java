@@ -0,0 +1,164 @@
+package com.doron.shaul.nba.analytics;
+
+import com.doron.shaul.nba.model.GameLine;
+import com.doron.shaul.nba.model.StatCategory;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Append-only columnar copy of one season's game lines. Writers are serialized; readers scan an
+ * immutable {@link Snapshot} so queries never block ingestion.
+ */
+public class SeasonColumnStore {
+
+    static final int STATS = StatCategory.values().length;
+    static final int MINUTES = StatCategory.MINUTES_PLAYED.ordinal();
+
+    static final byte FLAG_HOME = 1;
+    static final byte FLAG_PLAYOFF = 2;
+    static final byte FLAG_TEAM = 4;
+
+    private final long seasonId;
+    private final IdDictionary playerIds = new IdDictionary();
+    private final IdDictionary teamIds = new IdDictionary();
+    private final IdDictionary gameIds = new IdDictionary();
+    private final LongIntHashMap rowsByStatId;
+
+    private int[] players;
+    private int[] teams;
+    private int[] games;
+    private int[] dates;
+    private byte[] flags;
+    private final int[][] stats = new int[STATS][];
+    private int rows;
+
+    private volatile Snapshot snapshot;
+
+    public SeasonColumnStore(long seasonId, int initialCapacity) {
+        this.seasonId = seasonId;
+        this.rowsByStatId = new LongIntHashMap(initialCapacity);
+        allocate(Math.max(16, initialCapacity));
+        publish();
+    }
+
+    public long getSeasonId() {
+        return seasonId;
+    }
+
+    public int size() {
+        return snapshot.rows;
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public synchronized int append(Collection<GameLine> lines) {
+        ensureCapacity(rows + lines.size());
+
+        int appended = 0;
+        for (GameLine line : lines) {
+            if (rowsByStatId.containsKey(line.getStatId())) {
+                continue;
+            }
+
+            int row = rows++;
+            players[row] = playerIds.encode(line.getPlayerId());
+            games[row] = gameIds.encode(line.getGameId());
+            teams[row] = line.getTeamId() != null ? teamIds.encode(line.getTeamId()) : -1;
+            dates[row] = (int) line.getGameDate().toEpochDay();
+            flags[row] = (byte) ((line.isHome() ? FLAG_HOME : 0)
+                    | (line.isPlayoff() ? FLAG_PLAYOFF : 0)
+                    | (line.getTeamId() != null ? FLAG_TEAM : 0));
+
+            stats[StatCategory.POINTS.ordinal()][row] = line.getPoints();
+            stats[StatCategory.REBOUNDS.ordinal()][row] = line.getRebounds();
+            stats[StatCategory.ASSISTS.ordinal()][row] = line.getAssists();
+            stats[StatCategory.STEALS.ordinal()][row] = line.getSteals();
+            stats[StatCategory.BLOCKS.ordinal()][row] = line.getBlocks();
+            stats[StatCategory.FOULS.ordinal()][row] = line.getFouls();
+            stats[StatCategory.TURNOVERS.ordinal()][row] = line.getTurnovers();
+            stats[MINUTES][row] = (int) Math.round(line.getMinutesPlayed() * 10);
+
+            rowsByStatId.put(line.getStatId(), row);
+            appended++;
+        }
+
+        if (appended > 0) {
+            publish();
+        }
+        return appended;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= players.length) {
+            return;
+        }
+
+        int capacity = Math.max(required, players.length + (players.length >> 1));
+        players = Arrays.copyOf(players, capacity);
+        teams = Arrays.copyOf(teams, capacity);
+        games = Arrays.copyOf(games, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        for (int s = 0; s < STATS; s++) {
+            stats[s] = Arrays.copyOf(stats[s], capacity);
+        }
+    }
+
+    private void allocate(int capacity) {
+        players = new int[capacity];
+        teams = new int[capacity];
+        games = new int[capacity];
+        dates = new int[capacity];
+        flags = new byte[capacity];
+        for (int s = 0; s < STATS; s++) {
+            stats[s] = new int[capacity];
+        }
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(rows, players, teams, games, dates, flags, stats.clone(),
+                playerIds, teamIds, gameIds,
+                playerIds.size(), teamIds.size(), gameIds.size());
+    }
+
+    public static final class Snapshot {
+        final int rows;
+        final int[] players;
+        final int[] teams;
+        final int[] games;
+        final int[] dates;
+        final byte[] flags;
+        final int[][] stats;
+        final IdDictionary playerIds;
+        final IdDictionary teamIds;
+        final IdDictionary gameIds;
+        final int playerCount;
+        final int teamCount;
+        final int gameCount;
+
+        private Snapshot(int rows, int[] players, int[] teams, int[] games, int[] dates, byte[] flags,
+                         int[][] stats, IdDictionary playerIds, IdDictionary teamIds, IdDictionary gameIds,
+                         int playerCount, int teamCount, int gameCount) {
+            this.rows = rows;
+            this.players = players;
+            this.teams = teams;
+            this.games = games;
+            this.dates = dates;
+            this.flags = flags;
+            this.stats = stats;
+            this.playerIds = playerIds;
+            this.teamIds = teamIds;
+            this.gameIds = gameIds;
+            this.playerCount = playerCount;
+            this.teamCount = teamCount;
+            this.gameCount = gameCount;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+    }
+}
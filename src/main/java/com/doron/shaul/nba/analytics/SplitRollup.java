@@ -0,0 +1,76 @@
+package com.doron.shaul.nba.analytics;
+
+import com.doron.shaul.nba.model.GameMetadata;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.model.SplitTotals;
+import com.doron.shaul.nba.model.SplitType;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sums a batch of stat lines into the split rollup rows they add to, using the game's context. Every line counts
+ * towards its player's {@code PLAYOFF} or {@code REGULAR} split. For each of the player's teams that played in the
+ * game, it also counts towards the {@code HOME} or {@code AWAY} and {@code OPPONENT} splits of the player and of
+ * that team, and towards the team's {@code PLAYOFF} or {@code REGULAR} split.
+ */
+public final class SplitRollup {
+
+    private record Key(long entityId, long seasonId, SplitType split, long opponentTeamId) {
+    }
+
+    private final Map<Key, SplitTotals> players = new LinkedHashMap<>();
+    private final Map<Key, SplitTotals> teams = new LinkedHashMap<>();
+
+    public void add(PlayerGameStats line, GameMetadata game, Collection<Long> playerTeamIds) {
+        long playerId = line.getPlayerId();
+        long seasonId = game.getSeasonId();
+        SplitType phase = game.isPlayoff() ? SplitType.PLAYOFF : SplitType.REGULAR;
+        add(players, new Key(playerId, seasonId, phase, 0), line);
+
+        for (long teamId : playerTeamIds) {
+            boolean home = teamId == game.getHomeTeamId();
+            if (!home && teamId != game.getAwayTeamId()) {
+                continue;
+            }
+            SplitType venue = home ? SplitType.HOME : SplitType.AWAY;
+            long opponentTeamId = home ? game.getAwayTeamId() : game.getHomeTeamId();
+
+            add(players, new Key(playerId, seasonId, venue, 0), line);
+            add(players, new Key(playerId, seasonId, SplitType.OPPONENT, opponentTeamId), line);
+            add(teams, new Key(teamId, seasonId, venue, 0), line);
+            add(teams, new Key(teamId, seasonId, SplitType.OPPONENT, opponentTeamId), line);
+            add(teams, new Key(teamId, seasonId, phase, 0), line);
+        }
+    }
+
+    public Collection<SplitTotals> playerTotals() {
+        return players.values();
+    }
+
+    public Collection<SplitTotals> teamTotals() {
+        return teams.values();
+    }
+
+    private static void add(Map<Key, SplitTotals> rows, Key key, PlayerGameStats line) {
+        SplitTotals totals = rows.computeIfAbsent(key, k -> {
+            SplitTotals row = new SplitTotals();
+            row.setEntityId(k.entityId());
+            row.setSeasonId(k.seasonId());
+            row.setSplit(k.split());
+            row.setOpponentTeamId(k.opponentTeamId());
+            return row;
+        });
+        totals.setPoints(totals.getPoints() + line.getPoints());
+        totals.setRebounds(totals.getRebounds() + line.getRebounds());
+        totals.setAssists(totals.getAssists() + line.getAssists());
+        totals.setSteals(totals.getSteals() + line.getSteals());
+        totals.setBlocks(totals.getBlocks() + line.getBlocks());
+        totals.setFouls(totals.getFouls() + line.getFouls());
+        totals.setTurnovers(totals.getTurnovers() + line.getTurnovers());
+        totals.setMinutesPlayed(totals.getMinutesPlayed().add(BigDecimal.valueOf(line.getMinutesPlayed())));
+        totals.setStatLines(totals.getStatLines() + 1);
+    }
+}
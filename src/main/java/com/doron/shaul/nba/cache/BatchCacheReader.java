@@ -0,0 +1,153 @@
+package com.doron.shaul.nba.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BatchCacheReader {
+
+    private final TwoLevelCacheManager cacheManager;
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+
+    @SuppressWarnings("unchecked")
+    public <V> Map<String, V> getAll(String cacheName,
+                                     Collection<String> keys,
+                                     Function<List<String>, Map<String, V>> loader) {
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache(cacheName);
+        RedisCacheConfiguration config = redisCacheManager.getCacheConfigurations().get(cacheName);
+
+        Map<String, V> result = new LinkedHashMap<>();
+        cache.getAllLocal(keys).forEach((key, value) -> result.put((String) key, (V) value));
+
+        List<String> remoteKeys = keys.stream().filter(key -> !result.containsKey(key)).toList();
+        if (remoteKeys.isEmpty()) {
+            return result;
+        }
+
+        Map<String, V> remoteHits = multiGet(cacheName, config, remoteKeys);
+        cache.recordRemote(remoteHits.size(), remoteKeys.size() - remoteHits.size());
+        cache.putAllLocal(remoteHits);
+        result.putAll(remoteHits);
+
+        List<String> missingKeys = remoteKeys.stream().filter(key -> !remoteHits.containsKey(key)).toList();
+        if (missingKeys.isEmpty()) {
+            return result;
+        }
+
+        Map<String, V> loaded = loader.apply(missingKeys);
+        if (!loaded.isEmpty()) {
+            multiSet(cacheName, config, loaded);
+            cache.putAllLocal(loaded);
+            result.putAll(loaded);
+        }
+
+        return result;
+    }
+
+    /**
+     * Deletes the given keys of each cache from L1 and Redis, with all Redis deletes sent in one pipeline.
+     */
+    public void evictAll(Map<String, ? extends Collection<String>> keysByCache) {
+        List<byte[]> redisKeys = new ArrayList<>();
+        keysByCache.forEach((cacheName, keys) -> {
+            RedisCacheConfiguration config = redisCacheManager.getCacheConfigurations().get(cacheName);
+            ((TwoLevelCache) cacheManager.getCache(cacheName)).evictAllLocal(keys);
+            keys.forEach(key -> redisKeys.add(redisKey(cacheName, config, key)));
+        });
+        if (redisKeys.isEmpty()) {
+            return;
+        }
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            redisKeys.forEach(key -> connection.keyCommands().del(key));
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> Map<String, V> multiGet(String cacheName, RedisCacheConfiguration config, List<String> keys) {
+        byte[][] redisKeys = keys.stream()
+                .map(key -> redisKey(cacheName, config, key))
+                .toArray(byte[][]::new);
+
+        List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(redisKeys));
+
+        Map<String, V> hits = new LinkedHashMap<>();
+        if (values == null) {
+            return hits;
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            try {
+                Object decoded = config.getValueSerializationPair().read(ByteBuffer.wrap(value));
+                if (decoded != null) {
+                    hits.put(keys.get(i), (V) decoded);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Ignoring undecodable cache entry {}::{}: {}", cacheName, keys.get(i), ex.getMessage());
+            }
+        }
+        return hits;
+    }
+
+    private <V> void multiSet(String cacheName, RedisCacheConfiguration config, Map<String, V> values) {
+        List<byte[]> keys = new ArrayList<>(values.size());
+        List<byte[]> payloads = new ArrayList<>(values.size());
+        List<Expiration> expirations = new ArrayList<>(values.size());
+        values.forEach((key, value) -> {
+            keys.add(redisKey(cacheName, config, key));
+            payloads.add(toBytes(config.getValueSerializationPair().write(value)));
+            // Asked per entry, as RedisCache does on put, so a TTL that depends on the key or value is honoured
+            expirations.add(expiration(config.getTtlFunction().getTimeToLive(key, value)));
+        });
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            RedisStringCommands commands = connection.stringCommands();
+            for (int i = 0; i < keys.size(); i++) {
+                commands.set(keys.get(i), payloads.get(i), expirations.get(i), RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+    }
+
+    private Expiration expiration(Duration ttl) {
+        return ttl == null || ttl.isZero() || ttl.isNegative()
+                ? Expiration.persistent()
+                : Expiration.from(ttl);
+    }
+
+    private byte[] redisKey(String cacheName, RedisCacheConfiguration config, String key) {
+        return (config.getKeyPrefixFor(cacheName) + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,348 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.config.DataSourceRouting;
+import com.doron.shaul.nba.config.InstanceIdentity;
+import com.doron.shaul.nba.service.StatsRecordedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Generation counters embedded in the averages cache keys ({@code <identity>#<season gen>.<entity gen>}).
+ * Bumping a counter moves readers to keys that were never cached, so a player, a team or a whole season is
+ * invalidated in O(1) without touching its entries. The superseded entries of bumped players and teams are deleted
+ * in one pipeline; entries superseded by a season bump, or by a bump whose previous generation was not mirrored
+ * locally, are never read again and expire after {@code nba.cache.averages.ttl}.
+ * <p>
+ * Counters live in Redis and are mirrored locally. Other instances learn about bumps over pub/sub, and a mirrored
+ * counter expires with the L1 entries it addresses, so a missed message is bounded by the same window as a missed
+ * L1 invalidation. Missing counters are seeded from the clock, so a counter evicted by Redis cannot repeat a
+ * generation whose entries are still cached.
+ * <p>
+ * A bump moves a counter to at least the current time in milliseconds, so a generation also tells when it was
+ * bumped. Loads keyed under a generation younger than the replica lag window read the primary (see
+ * {@link #playerLoads}): a replica may not have the write yet, and its result would be cached under that write's
+ * generation until the next one.
+ * <p>
+ * Bumps that fail after the commit are queued and retried every {@code nba.cache.generations.retry-interval}, so
+ * the averages they should have invalidated are not served until they expire.
+ */
+@Slf4j
+@Component
+public class CacheGenerations implements MessageListener {
+
+    public static final String CHANNEL = "nba:cache-generations";
+
+    private static final String COUNTER_PREFIX = "generation:";
+    private static final String SEPARATOR = "\n";
+    private static final String ASSIGN = "=";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> BUMP_SCRIPT = RedisScript.of(
+            new ClassPathResource("scripts/generation-bump.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_SCRIPT = RedisScript.of(
+            new ClassPathResource("scripts/generation-read.lua"), List.class);
+
+    private record Entry(String cacheName, String splitsCacheName, String identity, long seasonId) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final BatchCacheReader batchCacheReader;
+    private final InstanceIdentity instanceIdentity;
+    private final Cache<String, Long> local;
+    private final long replicaLagMillis;
+    private final long retryIntervalMillis;
+    private final Timer bumpTimer;
+
+    private final ScheduledExecutorService retrier;
+    private final Set<Entry> failedBumps = ConcurrentHashMap.newKeySet();
+
+    public CacheGenerations(StringRedisTemplate redisTemplate,
+                            BatchCacheReader batchCacheReader,
+                            InstanceIdentity instanceIdentity,
+                            RedisMessageListenerContainer listenerContainer,
+                            MeterRegistry meterRegistry,
+                            @Value("${nba.cache.local.maximum-size:10000}") long localMaximumSize,
+                            @Value("${nba.cache.local.expire-after-write:60s}") Duration localExpireAfterWrite,
+                            @Value("${nba.datasource.routing.read-your-writes-window:5s}") Duration replicaLag,
+                            @Value("${nba.cache.generations.retry-interval:1s}") Duration retryInterval) {
+        this.redisTemplate = redisTemplate;
+        this.batchCacheReader = batchCacheReader;
+        this.instanceIdentity = instanceIdentity;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localExpireAfterWrite)
+                .build();
+        this.replicaLagMillis = replicaLag.toMillis();
+        this.retryIntervalMillis = retryInterval.toMillis();
+        this.bumpTimer = Timer.builder("nba.cache.generations.bump")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("nba.cache.generations.pending", failedBumps, Set::size);
+
+        this.retrier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "generation-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retrier.scheduleWithFixedDelay(this::retryFailedBumps, retryIntervalMillis, retryIntervalMillis,
+                TimeUnit.MILLISECONDS);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public String playerKey(long playerId, long seasonId) {
+        return playerKeys(List.of(playerId), seasonId).get(playerId);
+    }
+
+    public String teamKey(long teamId, long seasonId) {
+        return teamKeys(List.of(teamId), seasonId).get(teamId);
+    }
+
+    public String playerSplitsKey(long playerId, long seasonId) {
+        return CacheKeys.qualify(playerKey(playerId, seasonId), CacheKeys.SPLITS);
+    }
+
+    public String teamSplitsKey(long teamId, long seasonId) {
+        return CacheKeys.qualify(teamKey(teamId, seasonId), CacheKeys.SPLITS);
+    }
+
+    /**
+     * Returns the current cache key of every player, in iteration order of {@code playerIds}.
+     */
+    public Map<Long, String> playerKeys(Collection<Long> playerIds, long seasonId) {
+        return keys(playerIds, seasonId, playerId -> CacheKeys.playerSeason(playerId, seasonId));
+    }
+
+    public Map<Long, String> teamKeys(Collection<Long> teamIds, long seasonId) {
+        return keys(teamIds, seasonId, teamId -> CacheKeys.teamSeason(teamId, seasonId));
+    }
+
+    /**
+     * Opens a primary-only routing scope for a load of the given players' averages if any of their generations was
+     * bumped within the replica lag window, and a scope that leaves routing unchanged otherwise.
+     */
+    public DataSourceRouting.Scope playerLoads(Collection<Long> playerIds, long seasonId) {
+        return loads(playerIds, seasonId, playerId -> CacheKeys.playerSeason(playerId, seasonId));
+    }
+
+    public DataSourceRouting.Scope teamLoads(Collection<Long> teamIds, long seasonId) {
+        return loads(teamIds, seasonId, teamId -> CacheKeys.teamSeason(teamId, seasonId));
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onStatsRecorded(StatsRecordedEvent event) {
+        List<Entry> entries = new ArrayList<>();
+        event.statsBySeasonId().forEach((seasonId, lines) -> lines.stream()
+                .map(line -> CacheKeys.playerSeason(line.getPlayerId(), seasonId))
+                .distinct()
+                .forEach(identity -> entries.add(new Entry(CacheKeys.PLAYER_SEASON_STATS, CacheKeys.PLAYER_SPLIT_STATS,
+                        identity, seasonId))));
+        event.getTeamIdsBySeasonId().forEach((seasonId, teamIds) -> teamIds.forEach(teamId ->
+                entries.add(new Entry(CacheKeys.TEAM_SEASON_STATS, CacheKeys.TEAM_SPLIT_STATS,
+                        CacheKeys.teamSeason(teamId, seasonId), seasonId))));
+
+        List<String> counters = entries.stream().map(entry -> counter(entry.identity())).toList();
+        if (counters.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            bumpAndEvict(entries);
+        } catch (RuntimeException ex) {
+            fail(entries, ex);
+        } finally {
+            bumpTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Bumps the generations whose post-commit bump failed, so their superseded averages are not served until the
+     * entries expire.
+     */
+    void retryFailedBumps() {
+        if (failedBumps.isEmpty()) {
+            return;
+        }
+
+        // Removed before the bump, so an entry that fails again meanwhile is queued for the next retry
+        List<Entry> entries = List.copyOf(failedBumps);
+        entries.forEach(failedBumps::remove);
+        try {
+            bumpAndEvict(entries);
+            log.info("Bumped {} cache generations after an earlier failure", entries.size());
+        } catch (RuntimeException ex) {
+            fail(entries, ex);
+        }
+    }
+
+    /**
+     * Invalidates every cached player and team aggregate of the given seasons.
+     */
+    public void invalidateSeasons(Collection<Long> seasonIds) {
+        if (!seasonIds.isEmpty()) {
+            bump(seasonIds.stream().map(CacheGenerations::seasonCounter).toList());
+            log.info("Invalidated cached averages of {} seasons", seasonIds.size());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] lines = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR);
+        if (lines.length < 2 || instanceIdentity.isSelf(lines[0])) {
+            return;
+        }
+
+        for (int i = 1; i < lines.length; i++) {
+            int assign = lines[i].lastIndexOf(ASSIGN);
+            if (assign > 0) {
+                advance(lines[i].substring(0, assign), Long.parseLong(lines[i].substring(assign + 1)));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retrier.shutdownNow();
+    }
+
+    private void bumpAndEvict(List<Entry> entries) {
+        Map<String, Long> previous = bump(entries.stream().map(entry -> counter(entry.identity())).toList());
+
+        Map<String, List<String>> superseded = new HashMap<>();
+        for (Entry entry : entries) {
+            Long entityGeneration = previous.get(counter(entry.identity()));
+            Long seasonGeneration = local.getIfPresent(seasonCounter(entry.seasonId()));
+            if (entityGeneration != null && seasonGeneration != null) {
+                String key = CacheKeys.withGeneration(entry.identity(), seasonGeneration, entityGeneration);
+                superseded.computeIfAbsent(entry.cacheName(), name -> new ArrayList<>()).add(key);
+                superseded.computeIfAbsent(entry.splitsCacheName(), name -> new ArrayList<>())
+                        .add(CacheKeys.qualify(key, CacheKeys.SPLITS));
+            }
+        }
+        batchCacheReader.evictAll(superseded);
+    }
+
+    private void fail(List<Entry> entries, RuntimeException ex) {
+        local.invalidateAll(entries.stream().map(entry -> counter(entry.identity())).toList());
+        failedBumps.addAll(entries);
+        log.warn("Failed to bump {} cache generations, retrying every {} ms: {}",
+                entries.size(), retryIntervalMillis, ex.getMessage());
+    }
+
+    private Map<Long, String> keys(Collection<Long> ids, long seasonId, LongFunction<String> identities) {
+        Map<Long, String> identitiesById = new LinkedHashMap<>();
+        ids.forEach(id -> identitiesById.put(id, identities.apply(id)));
+
+        List<String> counters = new ArrayList<>(identitiesById.size() + 1);
+        counters.add(seasonCounter(seasonId));
+        identitiesById.values().forEach(identity -> counters.add(counter(identity)));
+        Map<String, Long> generations = local.getAll(counters, this::read);
+
+        long seasonGeneration = generations.get(seasonCounter(seasonId));
+        Map<Long, String> keys = new LinkedHashMap<>();
+        identitiesById.forEach((id, identity) -> keys.put(id,
+                CacheKeys.withGeneration(identity, seasonGeneration, generations.get(counter(identity)))));
+        return keys;
+    }
+
+    private DataSourceRouting.Scope loads(Collection<Long> ids, long seasonId, LongFunction<String> identities) {
+        List<String> counters = new ArrayList<>(ids.size() + 1);
+        counters.add(seasonCounter(seasonId));
+        ids.forEach(id -> counters.add(counter(identities.apply(id))));
+
+        long bumpedAfter = System.currentTimeMillis() - replicaLagMillis;
+        boolean recent = local.getAll(counters, this::read).values().stream()
+                .anyMatch(generation -> generation > bumpedAfter);
+        return recent ? DataSourceRouting.primaryOnly() : () -> {
+        };
+    }
+
+    private Map<String, Long> read(Set<? extends String> counters) {
+        List<String> keys = List.copyOf(counters);
+        List<?> values = redisTemplate.execute(READ_SCRIPT, keys, seed());
+
+        Map<String, Long> generations = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            generations.put(keys.get(i), ((Number) values.get(i)).longValue());
+        }
+        return generations;
+    }
+
+    /**
+     * Bumps the counters in one script call, mirrors and broadcasts the new generations, and returns the previous
+     * generation of every counter that already existed.
+     */
+    private Map<String, Long> bump(List<String> counters) {
+        List<String> keys = counters.stream().distinct().toList();
+        List<?> values = redisTemplate.execute(BUMP_SCRIPT, keys, seed());
+
+        Map<String, Long> previous = new HashMap<>();
+        StringBuilder message = new StringBuilder(instanceIdentity.getId());
+        for (int i = 0; i < keys.size(); i++) {
+            long before = ((Number) values.get(2 * i)).longValue();
+            long after = ((Number) values.get(2 * i + 1)).longValue();
+            if (before > 0) {
+                previous.put(keys.get(i), before);
+            }
+            advance(keys.get(i), after);
+            message.append(SEPARATOR).append(keys.get(i)).append(ASSIGN).append(after);
+        }
+
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message.toString());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to broadcast {} cache generations: {}", keys.size(), ex.getMessage());
+        }
+        return previous;
+    }
+
+    private void advance(String counter, long generation) {
+        local.asMap().merge(counter, generation, Long::max);
+    }
+
+    private static String counter(String identity) {
+        return COUNTER_PREFIX + identity;
+    }
+
+    private static String seasonCounter(long seasonId) {
+        return COUNTER_PREFIX + "season_" + seasonId;
+    }
+
+    private static String seed() {
+        return Long.toString(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,34 @@
+package com.doron.shaul.nba.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Slf4j
+@RequiredArgsConstructor
+public class CacheInvalidationPublisher {
+
+    public static final String CHANNEL = "nba:cache-invalidation";
+
+    private static final String SEPARATOR = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String instanceId;
+
+    public void publish(String cacheName, Object key) {
+        String message = instanceId + SEPARATOR + cacheName + (key != null ? SEPARATOR + key : "");
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to broadcast invalidation of {}::{}: {}", cacheName, key, ex.getMessage());
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    static String[] decode(String message) {
+        return message.split(SEPARATOR, 3);
+    }
+}
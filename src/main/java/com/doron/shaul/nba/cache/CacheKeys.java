@@ -0,0 +1,53 @@
+package com.doron.shaul.nba.cache;
+
+public final class CacheKeys {
+
+    public static final String PLAYER_SEASON_STATS = "playerSeasonStats";
+    public static final String TEAM_SEASON_STATS = "teamSeasonStats";
+    public static final String PLAYER_SPLIT_STATS = "playerSplitStats";
+    public static final String TEAM_SPLIT_STATS = "teamSplitStats";
+
+    public static final String SPLITS = "splits";
+
+    private static final char GENERATION_SEPARATOR = '#';
+
+    private CacheKeys() {
+    }
+
+    public static String playerSeason(long playerId, long seasonId) {
+        return "player_" + playerId + "_season_" + seasonId;
+    }
+
+    public static String teamSeason(long teamId, long seasonId) {
+        return "team_" + teamId + "_season_" + seasonId;
+    }
+
+    /**
+     * Appends the season and entity generations to an identity key, see {@link CacheGenerations}.
+     */
+    public static String withGeneration(String identity, long seasonGeneration, long entityGeneration) {
+        return identity + GENERATION_SEPARATOR + seasonGeneration + '.' + entityGeneration;
+    }
+
+    /**
+     * Adds a qualifier to the identity of a key, so data derived from the same entity moves with its generations.
+     */
+    public static String qualify(String key, String qualifier) {
+        String identity = identity(key);
+        return identity + '_' + qualifier + key.substring(identity.length());
+    }
+
+    /**
+     * Strips the generation suffix, if any, leaving the player or team identity the key stands for.
+     */
+    public static String identity(Object key) {
+        String value = key.toString();
+        int separator = value.indexOf(GENERATION_SEPARATOR);
+        return separator < 0 ? value : value.substring(0, separator);
+    }
+
+    public static String generation(String key) {
+        int separator = key.indexOf(GENERATION_SEPARATOR);
+        return separator < 0 ? "" : key.substring(separator + 1);
+    }
+}
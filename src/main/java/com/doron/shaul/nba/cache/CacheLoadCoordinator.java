@@ -0,0 +1,118 @@
+package com.doron.shaul.nba.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settings and shared resources for stampede protection in {@link TwoLevelCache}: an optional Redis lease so that
+ * only one instance recomputes a missing key, and the executor used to revalidate stale entries.
+ */
+@Slf4j
+public class CacheLoadCoordinator implements AutoCloseable {
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean leaseEnabled;
+    private final Duration leaseTtl;
+    private final Duration leaseWait;
+    private final Duration pollInterval;
+    private final Duration staleTtl;
+    private final ExecutorService refreshExecutor;
+
+    public CacheLoadCoordinator(StringRedisTemplate redisTemplate,
+                                boolean leaseEnabled,
+                                Duration leaseTtl,
+                                Duration leaseWait,
+                                Duration pollInterval,
+                                Duration staleTtl,
+                                int refreshThreads,
+                                boolean virtualThreads) {
+        this.redisTemplate = redisTemplate;
+        this.leaseEnabled = leaseEnabled;
+        this.leaseTtl = leaseTtl;
+        this.leaseWait = leaseWait;
+        this.pollInterval = pollInterval;
+        this.staleTtl = staleTtl;
+
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = Thread.ofVirtual().name("cache-refresh-", 1).factory();
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        this.refreshExecutor = Executors.newFixedThreadPool(Math.max(1, refreshThreads), threadFactory);
+    }
+
+    public boolean isLeaseEnabled() {
+        return leaseEnabled;
+    }
+
+    public Duration getLeaseWait() {
+        return leaseWait;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public Duration getStaleTtl() {
+        return staleTtl;
+    }
+
+    public boolean isStaleWhileRevalidate() {
+        return !staleTtl.isZero() && !staleTtl.isNegative();
+    }
+
+    ExecutorService getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    /**
+     * Returns a token when this caller owns the load of {@code key}, {@code null} when another instance holds the
+     * lease. Redis failures are treated as owning the lease so a Redis hiccup never blocks loads.
+     */
+    String tryAcquireLease(String cacheName, Object key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(leaseKey(cacheName, key), token, leaseTtl);
+            return Boolean.FALSE.equals(acquired) ? null : token;
+        } catch (RuntimeException ex) {
+            log.warn("Failed to acquire load lease for {}::{}: {}", cacheName, key, ex.getMessage());
+            return token;
+        }
+    }
+
+    void releaseLease(String cacheName, Object key, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey(cacheName, key)), token);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to release load lease for {}::{}: {}", cacheName, key, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private static String leaseKey(String cacheName, Object key) {
+        return "lease:" + cacheName + ":" + key;
+    }
+}
@@ -0,0 +1,274 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.TeamSeasonStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Schema-versioned binary encoding for the season stats cache entries:
+ * {@code [magic][version][type][flags][body]}, where each value is written as a null bitmask followed by its
+ * non-null fields. List bodies above {@code compressThreshold} bytes are deflated. Anything that does not start
+ * with the magic byte is read with the JSON serializer, so entries written before the switch stay readable.
+ */
+@Slf4j
+public class CompactStatsSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xB5;
+    static final byte VERSION = 1;
+
+    private static final byte TYPE_PLAYER = 1;
+    private static final byte TYPE_PLAYER_LIST = 2;
+    private static final byte TYPE_TEAM = 3;
+    private static final byte TYPE_TEAM_LIST = 4;
+
+    private static final byte FLAG_DEFLATED = 1;
+
+    private final GenericJackson2JsonRedisSerializer fallback;
+    private final int compressThreshold;
+
+    public CompactStatsSerializer(GenericJackson2JsonRedisSerializer fallback, int compressThreshold) {
+        this.fallback = fallback;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte type = typeOf(value);
+        if (type == 0) {
+            return fallback.serialize(value);
+        }
+
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(body);
+            switch (type) {
+                case TYPE_PLAYER -> writePlayer(out, (PlayerSeasonStats) value);
+                case TYPE_TEAM -> writeTeam(out, (TeamSeasonStats) value);
+                default -> writeList(out, type, (List<?>) value);
+            }
+            out.flush();
+
+            byte flags = 0;
+            byte[] payload = body.toByteArray();
+            if ((type == TYPE_PLAYER_LIST || type == TYPE_TEAM_LIST) && payload.length > compressThreshold) {
+                ByteArrayOutputStream deflated = new ByteArrayOutputStream(payload.length / 2);
+                try (DeflaterOutputStream deflater = new DeflaterOutputStream(deflated)) {
+                    deflater.write(payload);
+                }
+                payload = deflated.toByteArray();
+                flags |= FLAG_DEFLATED;
+            }
+
+            byte[] bytes = new byte[payload.length + 4];
+            bytes[0] = MAGIC;
+            bytes[1] = VERSION;
+            bytes[2] = type;
+            bytes[3] = flags;
+            System.arraycopy(payload, 0, bytes, 4, payload.length);
+            return bytes;
+        } catch (IOException ex) {
+            throw new SerializationException("Failed to encode " + value.getClass().getSimpleName(), ex);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < 4 || bytes[1] != VERSION) {
+            // Written by a newer schema: report a miss so the entry is recomputed and overwritten.
+            log.debug("Ignoring cache entry with unsupported codec version {}", bytes.length > 1 ? bytes[1] : -1);
+            return null;
+        }
+
+        try {
+            InputStream body = new ByteArrayInputStream(bytes, 4, bytes.length - 4);
+            if ((bytes[3] & FLAG_DEFLATED) != 0) {
+                body = new InflaterInputStream(body);
+            }
+            DataInputStream in = new DataInputStream(body);
+
+            return switch (bytes[2]) {
+                case TYPE_PLAYER -> readPlayer(in);
+                case TYPE_TEAM -> readTeam(in);
+                case TYPE_PLAYER_LIST, TYPE_TEAM_LIST -> readList(in, bytes[2]);
+                default -> throw new SerializationException("Unknown cache entry type " + bytes[2]);
+            };
+        } catch (IOException ex) {
+            throw new SerializationException("Failed to decode cache entry", ex);
+        }
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof PlayerSeasonStats) {
+            return TYPE_PLAYER;
+        }
+        if (value instanceof TeamSeasonStats) {
+            return TYPE_TEAM;
+        }
+        if (value instanceof List<?> list) {
+            if (list.stream().allMatch(TeamSeasonStats.class::isInstance)) {
+                return TYPE_TEAM_LIST;
+            }
+            if (list.stream().allMatch(PlayerSeasonStats.class::isInstance)) {
+                return TYPE_PLAYER_LIST;
+            }
+        }
+        return 0;
+    }
+
+    private static void writeList(DataOutputStream out, byte type, List<?> values) throws IOException {
+        writeVarLong(out, values.size());
+        for (Object value : values) {
+            if (type == TYPE_TEAM_LIST) {
+                writeTeam(out, (TeamSeasonStats) value);
+            } else {
+                writePlayer(out, (PlayerSeasonStats) value);
+            }
+        }
+    }
+
+    private static List<Object> readList(DataInputStream in, byte type) throws IOException {
+        int size = (int) readVarLong(in);
+        List<Object> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(type == TYPE_TEAM_LIST ? readTeam(in) : readPlayer(in));
+        }
+        return values;
+    }
+
+    private static void writePlayer(DataOutputStream out, PlayerSeasonStats stats) throws IOException {
+        Object[] fields = {stats.getPlayerId(), stats.getFirstName(), stats.getLastName(), stats.getSeasonId(),
+                stats.getSeasonName(), stats.getTeamId(), stats.getTeamName(), stats.getAvgPoints(),
+                stats.getAvgRebounds(), stats.getAvgAssists(), stats.getAvgSteals(), stats.getAvgBlocks(),
+                stats.getAvgFouls(), stats.getAvgTurnovers(), stats.getAvgMinutesPlayed(), stats.getGamesPlayed()};
+        writeFields(out, fields);
+    }
+
+    private static PlayerSeasonStats readPlayer(DataInputStream in) throws IOException {
+        int mask = in.readUnsignedShort();
+        PlayerSeasonStats stats = new PlayerSeasonStats();
+        stats.setPlayerId(readLong(in, mask, 0));
+        stats.setFirstName(readString(in, mask, 1));
+        stats.setLastName(readString(in, mask, 2));
+        stats.setSeasonId(readLong(in, mask, 3));
+        stats.setSeasonName(readString(in, mask, 4));
+        stats.setTeamId(readLong(in, mask, 5));
+        stats.setTeamName(readString(in, mask, 6));
+        stats.setAvgPoints(readDouble(in, mask, 7));
+        stats.setAvgRebounds(readDouble(in, mask, 8));
+        stats.setAvgAssists(readDouble(in, mask, 9));
+        stats.setAvgSteals(readDouble(in, mask, 10));
+        stats.setAvgBlocks(readDouble(in, mask, 11));
+        stats.setAvgFouls(readDouble(in, mask, 12));
+        stats.setAvgTurnovers(readDouble(in, mask, 13));
+        stats.setAvgMinutesPlayed(readDouble(in, mask, 14));
+        stats.setGamesPlayed(readInt(in, mask, 15));
+        return stats;
+    }
+
+    private static void writeTeam(DataOutputStream out, TeamSeasonStats stats) throws IOException {
+        Object[] fields = {stats.getTeamId(), stats.getTeamName(), stats.getSeasonId(), stats.getSeasonName(),
+                stats.getAvgPoints(), stats.getAvgRebounds(), stats.getAvgAssists(), stats.getAvgSteals(),
+                stats.getAvgBlocks(), stats.getAvgFouls(), stats.getAvgTurnovers(), stats.getAvgMinutesPlayed(),
+                stats.getGamesPlayed(), stats.getPlayersCount()};
+        writeFields(out, fields);
+    }
+
+    private static TeamSeasonStats readTeam(DataInputStream in) throws IOException {
+        int mask = in.readUnsignedShort();
+        TeamSeasonStats stats = new TeamSeasonStats();
+        stats.setTeamId(readLong(in, mask, 0));
+        stats.setTeamName(readString(in, mask, 1));
+        stats.setSeasonId(readLong(in, mask, 2));
+        stats.setSeasonName(readString(in, mask, 3));
+        stats.setAvgPoints(readDouble(in, mask, 4));
+        stats.setAvgRebounds(readDouble(in, mask, 5));
+        stats.setAvgAssists(readDouble(in, mask, 6));
+        stats.setAvgSteals(readDouble(in, mask, 7));
+        stats.setAvgBlocks(readDouble(in, mask, 8));
+        stats.setAvgFouls(readDouble(in, mask, 9));
+        stats.setAvgTurnovers(readDouble(in, mask, 10));
+        stats.setAvgMinutesPlayed(readDouble(in, mask, 11));
+        stats.setGamesPlayed(readInt(in, mask, 12));
+        stats.setPlayersCount(readInt(in, mask, 13));
+        return stats;
+    }
+
+    private static void writeFields(DataOutputStream out, Object[] fields) throws IOException {
+        int mask = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        out.writeShort(mask);
+
+        for (Object field : fields) {
+            if (field instanceof Long value) {
+                writeVarLong(out, value);
+            } else if (field instanceof Integer value) {
+                writeVarLong(out, value);
+            } else if (field instanceof Double value) {
+                out.writeDouble(value);
+            } else if (field instanceof String value) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    private static Long readLong(DataInputStream in, int mask, int field) throws IOException {
+        return (mask & (1 << field)) != 0 ? readVarLong(in) : null;
+    }
+
+    private static Integer readInt(DataInputStream in, int mask, int field) throws IOException {
+        return (mask & (1 << field)) != 0 ? (int) readVarLong(in) : null;
+    }
+
+    private static Double readDouble(DataInputStream in, int mask, int field) throws IOException {
+        return (mask & (1 << field)) != 0 ? in.readDouble() : null;
+    }
+
+    private static String readString(DataInputStream in, int mask, int field) throws IOException {
+        return (mask & (1 << field)) != 0 ? in.readUTF() : null;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,171 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.analytics.LongIntHashMap;
+import com.doron.shaul.nba.model.GameMetadata;
+import com.doron.shaul.nba.repository.GameRepository;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process index of game metadata (season, teams, date, playoff flag). Schedules are immutable once published,
+ * so entries never expire. Rows live in parallel primitive arrays addressed through a {@link LongIntHashMap};
+ * a miss loads the whole schedule of the game's season in one query.
+ */
+@Slf4j
+@Component
+public class GameMetadataIndex {
+
+    private static final int MISSING = -1;
+
+    private final GameRepository gameRepository;
+    private final SeasonRepository seasonRepository;
+    private final List<Long> preloadSeasons;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    private final LongIntHashMap slots = new LongIntHashMap(4096);
+    private long[] seasonIds = new long[4096];
+    private long[] homeTeamIds = new long[4096];
+    private long[] awayTeamIds = new long[4096];
+    private long[] epochDays = new long[4096];
+    private boolean[] playoff = new boolean[4096];
+    private int size;
+
+    public GameMetadataIndex(GameRepository gameRepository,
+                             SeasonRepository seasonRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${nba.games.index.preload-seasons:}") List<Long> preloadSeasons) {
+        this.gameRepository = gameRepository;
+        this.seasonRepository = seasonRepository;
+        this.preloadSeasons = preloadSeasons;
+
+        this.hits = meterRegistry.counter("nba.games.index.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("nba.games.index.lookups", "result", "miss");
+        meterRegistry.gauge("nba.games.index.size", this, GameMetadataIndex::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            List<Long> seasons = preloadSeasons.isEmpty()
+                    ? seasonRepository.findCurrentSeasonId().stream().toList()
+                    : preloadSeasons;
+            seasons.forEach(this::loadSeason);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to preload game metadata, games will be loaded on demand: {}", ex.getMessage());
+        }
+    }
+
+    public int loadSeason(long seasonId) {
+        List<GameMetadata> games = gameRepository.findMetadataBySeasonId(seasonId);
+        putAll(games);
+        log.info("Indexed {} games of season {}", games.size(), seasonId);
+        return games.size();
+    }
+
+    /**
+     * Returns the metadata of the given games; unknown game ids are absent from the result.
+     */
+    public Map<Long, GameMetadata> getAll(Collection<Long> gameIds) {
+        Map<Long, GameMetadata> found = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+
+        lock.readLock().lock();
+        try {
+            for (Long gameId : gameIds) {
+                int slot = slots.get(gameId, MISSING);
+                if (slot == MISSING) {
+                    missing.add(gameId);
+                } else {
+                    found.put(gameId, read(gameId, slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.increment(found.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+        misses.increment(missing.size());
+
+        for (GameMetadata game : putAll(gameRepository.findSeasonMetadataByGameIds(missing))) {
+            if (missing.contains(game.getGameId())) {
+                found.put(game.getGameId(), game);
+            }
+        }
+        return found;
+    }
+
+    public GameMetadata get(long gameId) {
+        return getAll(List.of(gameId)).get(gameId);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<GameMetadata> putAll(List<GameMetadata> games) {
+        lock.writeLock().lock();
+        try {
+            for (GameMetadata game : games) {
+                int slot = slots.get(game.getGameId(), MISSING);
+                if (slot == MISSING) {
+                    slot = size++;
+                    ensureCapacity(size);
+                    slots.put(game.getGameId(), slot);
+                }
+                seasonIds[slot] = game.getSeasonId();
+                homeTeamIds[slot] = game.getHomeTeamId();
+                awayTeamIds[slot] = game.getAwayTeamId();
+                epochDays[slot] = game.getGameDate().toEpochDay();
+                playoff[slot] = game.isPlayoff();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return games;
+    }
+
+    private GameMetadata read(long gameId, int slot) {
+        return new GameMetadata(gameId, seasonIds[slot], homeTeamIds[slot], awayTeamIds[slot],
+                LocalDate.ofEpochDay(epochDays[slot]), playoff[slot]);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= seasonIds.length) {
+            return;
+        }
+        int grown = Math.max(capacity, seasonIds.length * 2);
+        seasonIds = Arrays.copyOf(seasonIds, grown);
+        homeTeamIds = Arrays.copyOf(homeTeamIds, grown);
+        awayTeamIds = Arrays.copyOf(awayTeamIds, grown);
+        epochDays = Arrays.copyOf(epochDays, grown);
+        playoff = Arrays.copyOf(playoff, grown);
+    }
+}
@@ -0,0 +1,133 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.TeamSeasonStats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Immutable aggregates of a frozen season, read straight from a memory-mapped file.
+ * <p>
+ * Layout: a header ({@code magic, version, seasonId, playerCount, teamCount}), then index entries
+ * ({@code id, offset, length}) for players and teams sorted by id, then the entries themselves in the
+ * {@link CompactStatsSerializer} encoding. Lookups binary-search the index and decode only the matching entry.
+ */
+public final class SeasonSnapshot {
+
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x4E424153;
+    private static final int HEADER_BYTES = 24;
+    private static final int ENTRY_BYTES = 16;
+
+    private final ByteBuffer buffer;
+    private final CompactStatsSerializer codec;
+    private final long seasonId;
+    private final int playerCount;
+    private final int teamCount;
+
+    private SeasonSnapshot(ByteBuffer buffer, CompactStatsSerializer codec) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " season snapshot");
+        }
+        this.buffer = buffer;
+        this.codec = codec;
+        this.seasonId = buffer.getLong(8);
+        this.playerCount = buffer.getInt(16);
+        this.teamCount = buffer.getInt(20);
+    }
+
+    public static SeasonSnapshot map(Path file, CompactStatsSerializer codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new SeasonSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), codec);
+        }
+    }
+
+    static SeasonSnapshot wrap(byte[] bytes, CompactStatsSerializer codec) {
+        return new SeasonSnapshot(ByteBuffer.wrap(bytes).asReadOnlyBuffer(), codec);
+    }
+
+    public static byte[] encode(long seasonId,
+                                SortedMap<Long, PlayerSeasonStats> players,
+                                SortedMap<Long, List<TeamSeasonStats>> teams,
+                                CompactStatsSerializer codec) {
+        List<byte[]> entries = new ArrayList<>(players.size() + teams.size());
+        players.values().forEach(stats -> entries.add(codec.serialize(stats)));
+        teams.values().forEach(stats -> entries.add(codec.serialize(stats)));
+
+        int indexBytes = (players.size() + teams.size()) * ENTRY_BYTES;
+        int bodyBytes = entries.stream().mapToInt(entry -> entry.length).sum();
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + indexBytes + bodyBytes);
+        out.putInt(MAGIC).putInt(VERSION).putLong(seasonId).putInt(players.size()).putInt(teams.size());
+
+        int offset = HEADER_BYTES + indexBytes;
+        int entry = 0;
+        for (Map<Long, ?> section : List.of(players, teams)) {
+            for (Long id : section.keySet()) {
+                int length = entries.get(entry++).length;
+                out.putLong(id).putInt(offset).putInt(length);
+                offset += length;
+            }
+        }
+        entries.forEach(out::put);
+        return out.array();
+    }
+
+    public long getSeasonId() {
+        return seasonId;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public int getTeamCount() {
+        return teamCount;
+    }
+
+    public int sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns the player's season averages, or {@code null} if the player has no stats in this season.
+     */
+    public PlayerSeasonStats player(long playerId) {
+        return (PlayerSeasonStats) find(HEADER_BYTES, playerCount, playerId);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<TeamSeasonStats> team(long teamId) {
+        Object stats = find(HEADER_BYTES + playerCount * ENTRY_BYTES, teamCount, teamId);
+        return stats != null ? (List<TeamSeasonStats>) stats : List.of();
+    }
+
+    private Object find(int indexStart, int count, long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = indexStart + mid * ENTRY_BYTES;
+            long midId = buffer.getLong(position);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                byte[] bytes = new byte[buffer.getInt(position + 12)];
+                buffer.get(buffer.getInt(position + 8), bytes);
+                return codec.deserialize(bytes);
+            }
+        }
+        return null;
+    }
+}
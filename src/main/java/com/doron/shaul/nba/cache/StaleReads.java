@@ -0,0 +1,31 @@
+package com.doron.shaul.nba.cache;
+
+/**
+ * Remembers, per thread, the key of a stale value a {@link TwoLevelCache} served in place of the requested key. A
+ * stale copy stands in for the next generation's entry, so a response that carries it must be tagged with the
+ * generation it was cached under rather than the current one.
+ */
+public final class StaleReads {
+
+    private static final ThreadLocal<Object> SERVED = new ThreadLocal<>();
+
+    private StaleReads() {
+    }
+
+    public static void clear() {
+        SERVED.remove();
+    }
+
+    /**
+     * Returns and forgets the key of the last stale value served on this thread since {@link #clear()}, if any.
+     */
+    public static Object take() {
+        Object key = SERVED.get();
+        SERVED.remove();
+        return key;
+    }
+
+    static void served(Object key) {
+        SERVED.set(key);
+    }
+}
@@ -0,0 +1,55 @@
+package com.doron.shaul.nba.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * ETags of the player and team averages. They are the {@link CacheGenerations} of the aggregate's cache key, which
+ * move on every committed ingestion that can change it, so a conditional GET is answered without loading the
+ * aggregate.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatsVersions {
+
+    private final CacheGenerations cacheGenerations;
+
+    /**
+     * Returns the strong ETag of the player's averages, or {@code null} if Redis is unavailable.
+     */
+    public String playerETag(long playerId, long seasonId) {
+        return eTag(() -> cacheGenerations.playerKey(playerId, seasonId));
+    }
+
+    /**
+     * Returns the strong ETag of the team's averages, or {@code null} if Redis is unavailable.
+     */
+    public String teamETag(long teamId, long seasonId) {
+        return eTag(() -> cacheGenerations.teamKey(teamId, seasonId));
+    }
+
+    /**
+     * Returns the ETag of the value loaded since {@link StaleReads#clear()}: {@code eTag}, unless the cache served a
+     * stale copy, which is tagged with the generation it was cached under so clients revalidate it.
+     */
+    public String servedETag(String eTag) {
+        Object staleKey = StaleReads.take();
+        if (staleKey == null || eTag == null) {
+            return eTag;
+        }
+        return "\"" + CacheKeys.generation(staleKey.toString()) + "\"";
+    }
+
+    private String eTag(Supplier<String> key) {
+        try {
+            return "\"" + CacheKeys.generation(key.get()) + "\"";
+        } catch (RuntimeException ex) {
+            log.debug("Failed to read cache generations: {}", ex.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.doron.shaul.nba.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    /**
+     * A value served in place of {@code key}'s current entry, together with the key it was cached under.
+     */
+    private record Stale(Object key, Object value) {
+    }
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final org.springframework.cache.Cache remote;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final CacheLoadCoordinator loadCoordinator;
+    private final Cache<Object, Stale> stale;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter loads;
+    private final Counter coalescedLoads;
+    private final Counter staleServed;
+    private final Counter leaseWaits;
+    private final Timer loadTimer;
+    private final Counter explicitEvictions;
+    private final Counter remoteEvictions;
+    private final Counter clears;
+
+    public TwoLevelCache(String name,
+                         Cache<Object, Object> local,
+                         org.springframework.cache.Cache remote,
+                         CacheInvalidationPublisher invalidationPublisher,
+                         CacheLoadCoordinator loadCoordinator,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.loadCoordinator = loadCoordinator;
+        this.stale = loadCoordinator.isStaleWhileRevalidate()
+                ? Caffeine.newBuilder()
+                        .maximumSize(10_000)
+                        .expireAfterWrite(loadCoordinator.getStaleTtl())
+                        .build()
+                : null;
+
+        this.localHits = counter(meterRegistry, "l1", "hit");
+        this.localMisses = counter(meterRegistry, "l1", "miss");
+        this.remoteHits = counter(meterRegistry, "l2", "hit");
+        this.remoteMisses = counter(meterRegistry, "l2", "miss");
+        this.loads = loadCounter(meterRegistry, "loaded");
+        this.coalescedLoads = loadCounter(meterRegistry, "coalesced");
+        this.staleServed = loadCounter(meterRegistry, "stale");
+        this.leaseWaits = loadCounter(meterRegistry, "lease-wait");
+        this.loadTimer = Timer.builder("nba.cache.load.time")
+                .tag("cache", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.explicitEvictions = evictionCounter(meterRegistry, "explicit");
+        this.remoteEvictions = evictionCounter(meterRegistry, "remote");
+        this.clears = evictionCounter(meterRegistry, "clear");
+
+        meterRegistry.gauge("nba.cache.local.size",
+                Tags.of("cache", name), local, Cache::estimatedSize);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        localMisses.increment();
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+
+        local.put(key, wrapper.get());
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        Stale staleValue = staleValue(key);
+        if (staleValue != null) {
+            staleServed.increment();
+            if (!inFlight.containsKey(key)) {
+                loadCoordinator.getRefreshExecutor().execute(() -> {
+                    try {
+                        singleFlight(key, valueLoader);
+                    } catch (RuntimeException ex) {
+                        log.warn("Background refresh of {}::{} failed: {}", name, key, ex.getMessage());
+                    }
+                });
+            }
+            return (T) unwrap(staleValue);
+        }
+
+        return (T) singleFlight(key, valueLoader);
+    }
+
+    private Object singleFlight(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, load);
+        if (existing != null) {
+            coalescedLoads.increment();
+            try {
+                return unwrap(existing.join());
+            } catch (CompletionException ex) {
+                throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+            }
+        }
+
+        try {
+            Object value = loadOnce(key, valueLoader);
+            load.complete(value);
+            return unwrap(value);
+        } catch (RuntimeException ex) {
+            load.completeExceptionally(ex instanceof ValueRetrievalException && ex.getCause() != null
+                    ? ex.getCause()
+                    : ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Loads the value, or returns a {@link Stale} copy while another instance holds the lease.
+     */
+    private Object loadOnce(Object key, Callable<?> valueLoader) {
+        if (!loadCoordinator.isLeaseEnabled()) {
+            return loadAndPut(key, valueLoader);
+        }
+
+        String token = loadCoordinator.tryAcquireLease(name, key);
+        if (token != null) {
+            try {
+                return loadAndPut(key, valueLoader);
+            } finally {
+                loadCoordinator.releaseLease(name, key, token);
+            }
+        }
+
+        // Another instance is loading this key: serve a stale copy if there is one, otherwise wait for its result.
+        leaseWaits.increment();
+        Stale staleValue = staleValue(key);
+        if (staleValue != null) {
+            return staleValue;
+        }
+
+        long deadline = System.nanoTime() + loadCoordinator.getLeaseWait().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(loadCoordinator.getPollInterval().toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                local.put(key, wrapper.get());
+                return wrapper.get();
+            }
+        }
+
+        return loadAndPut(key, valueLoader);
+    }
+
+    private Object loadAndPut(Object key, Callable<?> valueLoader) {
+        Object value;
+        long start = System.nanoTime();
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        loads.increment();
+        put(key, value);
+        if (stale != null) {
+            // Kept under the identity rather than the key, so it can stand in for the next generation's entry
+            stale.put(CacheKeys.identity(key), new Stale(key, value));
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        remote.put(key, value);
+        local.put(key, value);
+        invalidationPublisher.publish(name, key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        explicitEvictions.increment();
+        retainStale(key);
+        remote.evict(key);
+        local.invalidate(key);
+        invalidationPublisher.publish(name, key);
+    }
+
+    @Override
+    public void clear() {
+        clears.increment();
+        remote.clear();
+        local.invalidateAll();
+        if (stale != null) {
+            stale.invalidateAll();
+        }
+        invalidationPublisher.publish(name, null);
+    }
+
+    Map<Object, Object> getAllLocal(Collection<?> keys) {
+        Map<Object, Object> present = local.getAllPresent(keys);
+        localHits.increment(present.size());
+        localMisses.increment(keys.size() - present.size());
+        return present;
+    }
+
+    void putAllLocal(Map<?, ?> values) {
+        local.putAll(values);
+    }
+
+    void evictAllLocal(Collection<?> keys) {
+        local.invalidateAll(keys);
+    }
+
+    void recordRemote(int hits, int misses) {
+        remoteHits.increment(hits);
+        remoteMisses.increment(misses);
+    }
+
+    void evictLocal(Object key) {
+        remoteEvictions.increment();
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            retainStale(key);
+            local.invalidate(key);
+        }
+    }
+
+    private void retainStale(Object key) {
+        if (stale == null) {
+            return;
+        }
+        Object previous = local.getIfPresent(key);
+        if (previous != null) {
+            stale.put(CacheKeys.identity(key), new Stale(key, previous));
+        }
+    }
+
+    private Stale staleValue(Object key) {
+        return stale != null ? stale.getIfPresent(CacheKeys.identity(key)) : null;
+    }
+
+    private static Object unwrap(Object value) {
+        if (value instanceof Stale staleValue) {
+            StaleReads.served(staleValue.key());
+            return staleValue.value();
+        }
+        return value;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("nba.cache.gets")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter evictionCounter(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("nba.cache.evictions")
+                .tag("cache", name)
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    private Counter loadCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("nba.cache.loads")
+                .tag("cache", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
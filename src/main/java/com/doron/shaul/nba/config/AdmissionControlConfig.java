@@ -0,0 +1,62 @@
+package com.doron.shaul.nba.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "nba.admission.enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimit writeAdmissionLimit(
+            @Value("${nba.admission.writes.min-limit:2}") int writeMinLimit,
+            @Value("${nba.admission.writes.max-limit:${spring.datasource.hikari.maximum-pool-size:10}}") int writeMaxLimit) {
+        return new AdaptiveConcurrencyLimit("write", writeMaxLimit, writeMinLimit, writeMaxLimit);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdaptiveConcurrencyLimit writeAdmissionLimit,
+            MeterRegistry meterRegistry,
+            @Value("${nba.admission.writes.max-wait:2s}") Duration maxWait,
+            @Value("${nba.admission.retry-after:1s}") Duration retryAfter) {
+        AdmissionControlFilter filter = new AdmissionControlFilter(writeAdmissionLimit, maxWait, retryAfter,
+                meterRegistry);
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    public ReadAdmissionAspect readAdmissionAspect(
+            AdaptiveConcurrencyLimit writeAdmissionLimit,
+            MeterRegistry meterRegistry,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${nba.admission.writes.reserved-connections:3}") int reservedConnections,
+            @Value("${nba.admission.reads.min-limit:1}") int readMinLimit,
+            @Value("${nba.datasource.routing.enabled:false}") boolean routingEnabled,
+            @Value("${nba.datasource.replicas.urls:}") List<String> replicaUrls,
+            @Value("${nba.datasource.replicas.maximum-pool-size:10}") int replicaPoolSize) {
+
+        int readMaxLimit = Math.max(readMinLimit, poolSize - reservedConnections);
+        AdaptiveConcurrencyLimit replicaReads = null;
+        if (routingEnabled && !replicaUrls.isEmpty()) {
+            int replicaMaxLimit = Math.max(readMinLimit, replicaPoolSize * replicaUrls.size());
+            replicaReads = new AdaptiveConcurrencyLimit("replica-read", replicaMaxLimit, readMinLimit, replicaMaxLimit);
+        }
+        log.info("Admitting up to {} concurrent primary loads, {} replica loads and {} writes", readMaxLimit,
+                replicaReads != null ? replicaReads.getLimit() : 0, writeAdmissionLimit.getLimit());
+
+        return new ReadAdmissionAspect(new AdaptiveConcurrencyLimit("read", readMaxLimit, readMinLimit, readMaxLimit),
+                replicaReads, writeAdmissionLimit, meterRegistry);
+    }
+}
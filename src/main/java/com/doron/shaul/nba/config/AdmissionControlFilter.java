@@ -0,0 +1,120 @@
+package com.doron.shaul.nba.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the ingestion endpoints: a write waits up to {@code maxWait} for a slot of the write lane's
+ * {@link AdaptiveConcurrencyLimit} and gets {@code 503} if none frees up. Reads are admitted around their database
+ * loads instead (see {@link ReadAdmissionAspect}), where they yield to waiting writes.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private record Route(String method, String pattern) {
+    }
+
+    private static final List<Route> WRITES = List.of(
+            new Route("POST", "/api/v1/games/*/stats"));
+    // Bulk uploads stream for as long as the client sends, so their duration says nothing about database latency
+    private static final List<Route> UNTIMED_WRITES = List.of(
+            new Route("POST", "/api/v1/stats/bulk"));
+
+    private final AdaptiveConcurrencyLimit writes;
+    private final Duration maxWait;
+    private final String retryAfterSeconds;
+
+    private final Counter writesAdmitted;
+    private final Counter writesRejected;
+    private final Timer writeWait;
+
+    public AdmissionControlFilter(AdaptiveConcurrencyLimit writes,
+                                  Duration maxWait,
+                                  Duration retryAfter,
+                                  MeterRegistry meterRegistry) {
+        this.writes = writes;
+        this.maxWait = maxWait;
+        this.retryAfterSeconds = Long.toString(Math.max(1, retryAfter.toSeconds()));
+
+        this.writesAdmitted = meterRegistry.counter("nba.admission.requests", "lane", "write", "result", "admitted");
+        this.writesRejected = meterRegistry.counter("nba.admission.requests", "lane", "write", "result", "rejected");
+        this.writeWait = meterRegistry.timer("nba.admission.wait", "lane", "write");
+        registerGauges(meterRegistry, writes);
+    }
+
+    static void registerGauges(MeterRegistry meterRegistry, AdaptiveConcurrencyLimit lane) {
+        meterRegistry.gauge("nba.admission.limit", Tags.of("lane", lane.getName()),
+                lane, AdaptiveConcurrencyLimit::getLimit);
+        meterRegistry.gauge("nba.admission.inflight", Tags.of("lane", lane.getName()),
+                lane, AdaptiveConcurrencyLimit::getInFlight);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+
+        boolean timed = matches(WRITES, method, path);
+        if (!timed && !matches(UNTIMED_WRITES, method, path)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long waitStart = System.nanoTime();
+        boolean admitted = writes.acquire(maxWait);
+        writeWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        if (!admitted) {
+            writesRejected.increment();
+            reject(response, "Ingestion is saturated, retry later");
+            return;
+        }
+        writesAdmitted.increment();
+        run(writes, timed, request, response, chain);
+    }
+
+    private static void run(AdaptiveConcurrencyLimit lane, boolean timed, HttpServletRequest request,
+                            HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            lane.release(timed ? System.nanoTime() - start : 0, failed);
+        }
+    }
+
+    private void reject(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"" + message + "\"}");
+    }
+
+    private static boolean matches(List<Route> routes, String method, String path) {
+        for (Route route : routes) {
+            if (route.method().equals(method) && MATCHER.match(route.pattern(), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+package com.doron.shaul.nba.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Puts the JDBC and Redis connection factories behind {@link ConcurrencyBulkhead}s. A permit is taken in
+ * {@code getConnection()} and returned when the connection is closed. The factories are proxied through all of
+ * their interfaces so lifecycle and {@code close()} callbacks still reach the pool.
+ * <p>
+ * Lettuce hands out views of one shared connection, so the Redis permits bound commands in flight rather than pooled
+ * connections. A connection that subscribes to pub/sub is held for the lifetime of the subscription and gives its
+ * permit back when it subscribes.
+ */
+@Slf4j
+public class BulkheadBeanPostProcessor implements BeanPostProcessor {
+
+    private static final Set<String> SUBSCRIBE_METHODS = Set.of("subscribe", "pSubscribe");
+
+    private final ConcurrencyBulkhead jdbcBulkhead;
+    private final ConcurrencyBulkhead redisBulkhead;
+
+    public BulkheadBeanPostProcessor(ConcurrencyBulkhead jdbcBulkhead, ConcurrencyBulkhead redisBulkhead) {
+        this.jdbcBulkhead = jdbcBulkhead;
+        this.redisBulkhead = redisBulkhead;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !Proxy.isProxyClass(bean.getClass())) {
+            log.info("Limiting {} to {} concurrent JDBC connections", beanName, jdbcBulkhead.getPermits());
+            return proxy(bean, "getConnection", jdbcBulkhead, Connection.class);
+        }
+        if (bean instanceof RedisConnectionFactory && !Proxy.isProxyClass(bean.getClass())) {
+            log.info("Limiting {} to {} concurrent Redis connections", beanName, redisBulkhead.getPermits());
+            return proxy(bean, "getConnection", redisBulkhead, RedisConnection.class);
+        }
+        return bean;
+    }
+
+    private Object proxy(Object target, String guardedMethod, ConcurrencyBulkhead bulkhead, Class<?> connectionType) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().equals(guardedMethod) || !connectionType.isAssignableFrom(method.getReturnType())) {
+                return invoke(target, method, args);
+            }
+
+            if (!bulkhead.tryAcquire()) {
+                String message = "No " + bulkhead.getName() + " connection permit available within "
+                        + bulkhead.getAcquireTimeout();
+                if (connectionType == Connection.class) {
+                    throw new SQLTransientConnectionException(message);
+                }
+                throw new DataAccessResourceFailureException(message);
+            }
+
+            try {
+                return releasingOnClose(invoke(target, method, args), bulkhead);
+            } catch (Throwable ex) {
+                bulkhead.release();
+                throw ex;
+            }
+        };
+
+        return Proxy.newProxyInstance(target.getClass().getClassLoader(),
+                ClassUtils.getAllInterfaces(target), handler);
+    }
+
+    private Object releasingOnClose(Object connection, ConcurrencyBulkhead bulkhead) {
+        AtomicBoolean released = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (SUBSCRIBE_METHODS.contains(method.getName()) && released.compareAndSet(false, true)) {
+                bulkhead.release();
+            }
+            if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                try {
+                    return invoke(connection, method, args);
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        bulkhead.release();
+                    }
+                }
+            }
+            return invoke(connection, method, args);
+        };
+
+        return Proxy.newProxyInstance(connection.getClass().getClassLoader(),
+                ClassUtils.getAllInterfaces(connection), handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
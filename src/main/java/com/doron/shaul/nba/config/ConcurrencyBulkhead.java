@@ -0,0 +1,57 @@
+package com.doron.shaul.nba.config;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how many callers may hold a pooled resource at once. Virtual threads are unbounded, so without this every
+ * request would queue inside the pool itself and time out together once it is exhausted.
+ */
+public class ConcurrencyBulkhead {
+
+    private final String name;
+    private final int permits;
+    private final Duration acquireTimeout;
+    private final Semaphore semaphore;
+
+    public ConcurrencyBulkhead(String name, int permits, Duration acquireTimeout) {
+        this.name = name;
+        this.permits = permits;
+        this.acquireTimeout = acquireTimeout;
+        this.semaphore = new Semaphore(permits, true);
+    }
+
+    public boolean tryAcquire() {
+        try {
+            return semaphore.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    public int getAvailablePermits() {
+        return semaphore.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return semaphore.getQueueLength();
+    }
+
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+}
@@ -0,0 +1,47 @@
+package com.doron.shaul.nba.config;
+
+/**
+ * Thread-bound routing state read by {@link ReadWriteRoutingDataSource}. Connections come from the primary unless
+ * the caller is inside a {@link #replicaReads()} scope and not inside a {@link #primaryOnly()} scope, so code that
+ * never opts in (writes, background tasks, other threads) always sees the primary.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA_READS = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    /**
+     * Restores the routing state that was in effect when the scope was opened.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private DataSourceRouting() {
+    }
+
+    public static Scope replicaReads() {
+        return enter(REPLICA_READS);
+    }
+
+    public static Scope primaryOnly() {
+        return enter(PRIMARY_ONLY);
+    }
+
+    public static boolean isReplicaReadAllowed() {
+        return Boolean.TRUE.equals(REPLICA_READS.get()) && !Boolean.TRUE.equals(PRIMARY_ONLY.get());
+    }
+
+    private static Scope enter(ThreadLocal<Boolean> flag) {
+        Boolean previous = flag.get();
+        flag.set(Boolean.TRUE);
+        return () -> {
+            if (previous == null) {
+                flag.remove();
+            } else {
+                flag.set(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.doron.shaul.nba.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source with a {@link ReadWriteRoutingDataSource} over the primary
+ * ({@code spring.datasource.*}) and one Hikari pool per {@code nba.datasource.replicas.urls} entry. Both kinds of
+ * pool take their settings from {@code spring.datasource.hikari.*} and report as {@code hikaricp.*} tagged with
+ * their pool name.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "nba.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource dataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${nba.datasource.replicas.urls:}") List<String> replicaUrls,
+            @Value("${nba.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${nba.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${nba.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${nba.datasource.replicas.connection-timeout:1s}") Duration connectionTimeout) {
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        configure(primary, "primary", environment, meterRegistry);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = new HikariDataSource();
+            configure(replica, "replica-" + replicas.size(), environment, meterRegistry);
+            replica.setJdbcUrl(url);
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setMinimumIdle(Math.min(replica.getMinimumIdle(), maximumPoolSize));
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            // Start even if a replica is down; its reads fall back to the primary until it is reachable
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+
+        log.info("Routing lag-tolerant reads to {} replica(s)", replicas.size());
+        return new ReadWriteRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${nba.datasource.routing.read-your-writes-window:5s}") Duration window) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(window));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    private static void configure(HikariDataSource pool, String name, Environment environment,
+                                  MeterRegistry meterRegistry) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+    }
+}
@@ -0,0 +1,19 @@
+package com.doron.shaul.nba.config;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+public class InstanceIdentity {
+
+    private final String id = UUID.randomUUID().toString();
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isSelf(String instanceId) {
+        return id.equals(instanceId);
+    }
+}
@@ -0,0 +1,117 @@
+package com.doron.shaul.nba.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the controller, service and repository layers and Redis connection acquisition. Every timer is tagged with
+ * {@code operation} ({@code Class.method}) and publishes a percentile histogram; repository calls slower than
+ * {@code nba.metrics.slow-query-threshold} are logged, except the streaming export.
+ */
+@Slf4j
+@Aspect
+@Component
+public class PerformanceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final long slowQueryThresholdNanos;
+
+    private final ConcurrentMap<Method, Timer> endpointTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, Timer> serviceTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, Timer> queryTimers = new ConcurrentHashMap<>();
+    private final Timer redisAcquireTimer;
+
+    public PerformanceMetricsAspect(MeterRegistry meterRegistry,
+                                    @Value("${nba.metrics.slow-query-threshold:250ms}") Duration slowQueryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+        this.redisAcquireTimer = Timer.builder("nba.pool.acquire")
+                .tag("pool", "redis")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Around("within(com.doron.shaul.nba.controller..*) " +
+            "&& @within(org.springframework.web.bind.annotation.RestController)")
+    public Object timeEndpoint(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, endpointTimers, "nba.http.endpoint", false);
+    }
+
+    @Around("within(com.doron.shaul.nba.service.StatsService) " +
+            "|| within(com.doron.shaul.nba.service.LeaderboardService) " +
+            "|| within(com.doron.shaul.nba.service.BulkIngestionService)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, serviceTimers, "nba.service.calls", false);
+    }
+
+    @Around("within(com.doron.shaul.nba.repository..*) " +
+            "&& @within(org.springframework.stereotype.Repository) " +
+            "&& !within(com.doron.shaul.nba.repository.SeasonExportRepository)")
+    public Object timeQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, queryTimers, "nba.db.queries", true);
+    }
+
+    // Export rows are written to the client as they are fetched, so these calls last as long as the download
+    @Around("within(com.doron.shaul.nba.repository.SeasonExportRepository)")
+    public Object timeExport(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, queryTimers, "nba.db.queries", false);
+    }
+
+    @Around("execution(* org.springframework.data.redis.connection.RedisConnectionFactory.getConnection())")
+    public Object timeRedisAcquire(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            redisAcquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, ConcurrentMap<Method, Timer> timers, String name,
+                        boolean logSlow) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timers.computeIfAbsent(method, key -> Timer.builder(name)
+                            .tag("operation", key.getDeclaringClass().getSimpleName() + "." + key.getName())
+                            .publishPercentileHistogram()
+                            .register(meterRegistry))
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+
+            if (logSlow && elapsed >= slowQueryThresholdNanos) {
+                log.warn("Slow query {}.{} took {} ms ({})", method.getDeclaringClass().getSimpleName(),
+                        method.getName(), TimeUnit.NANOSECONDS.toMillis(elapsed), describe(joinPoint.getArgs()));
+            }
+        }
+    }
+
+    private static String describe(Object[] args) {
+        StringBuilder description = new StringBuilder();
+        for (Object arg : args) {
+            if (!description.isEmpty()) {
+                description.append(", ");
+            }
+            description.append(arg instanceof Collection<?> collection
+                    ? collection.size() + " items"
+                    : String.valueOf(arg));
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.doron.shaul.nba.config;
+
+import com.doron.shaul.nba.exception.ReadCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Read admission control around the database loads behind the averages and splits caches, so cache hits are never
+ * limited. Loads that read the primary are capped below its pool size and shed as soon as their lane is full or any
+ * write is waiting; loads routed to a replica have their own lane sized to the replica pools. Both limits follow the
+ * latency of the database calls. Loads outside a request (warm-up, snapshots, background refreshes) are not limited.
+ */
+@Aspect
+@Order(ReplicaReadAspect.ORDER + 1)
+public class ReadAdmissionAspect {
+
+    private final AdaptiveConcurrencyLimit primaryReads;
+    private final AdaptiveConcurrencyLimit replicaReads;
+    private final AdaptiveConcurrencyLimit writes;
+
+    private final Counter primaryAdmitted;
+    private final Counter primaryShed;
+    private final Counter replicaAdmitted;
+    private final Counter replicaShed;
+
+    /**
+     * @param replicaReads the replica lane, or {@code null} if reads are not routed to replicas
+     */
+    public ReadAdmissionAspect(AdaptiveConcurrencyLimit primaryReads,
+                               AdaptiveConcurrencyLimit replicaReads,
+                               AdaptiveConcurrencyLimit writes,
+                               MeterRegistry meterRegistry) {
+        this.primaryReads = primaryReads;
+        this.replicaReads = replicaReads;
+        this.writes = writes;
+
+        this.primaryAdmitted = meterRegistry.counter("nba.admission.requests", "lane", "read", "result", "admitted");
+        this.primaryShed = meterRegistry.counter("nba.admission.requests", "lane", "read", "result", "shed");
+        this.replicaAdmitted = meterRegistry.counter("nba.admission.requests",
+                "lane", "replica-read", "result", "admitted");
+        this.replicaShed = meterRegistry.counter("nba.admission.requests", "lane", "replica-read", "result", "shed");
+        AdmissionControlFilter.registerGauges(meterRegistry, primaryReads);
+        if (replicaReads != null) {
+            AdmissionControlFilter.registerGauges(meterRegistry, replicaReads);
+        }
+    }
+
+    @Around("within(com.doron.shaul.nba.repository.StatsAggregationRepository) " +
+            "|| execution(* com.doron.shaul.nba.repository.SplitRollupRepository.find*Splits(..))")
+    public Object admit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return joinPoint.proceed();
+        }
+
+        // Runs inside ReplicaReadAspect, so the routing of this call is already decided
+        boolean replica = replicaReads != null && DataSourceRouting.isReplicaReadAllowed();
+        AdaptiveConcurrencyLimit lane = replica ? replicaReads : primaryReads;
+        if ((!replica && writes.getWaiting() > 0) || !lane.tryAcquire()) {
+            (replica ? replicaShed : primaryShed).increment();
+            throw new ReadCapacityExceededException("Too many concurrent reads, retry later");
+        }
+        (replica ? replicaAdmitted : primaryAdmitted).increment();
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } catch (EmptyResultDataAccessException ex) {
+            failed = false;
+            throw ex;
+        } finally {
+            lane.release(System.nanoTime() - start, failed);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.doron.shaul.nba.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out primary connections, or replica connections (round-robin) when {@link DataSourceRouting} allows it and
+ * no transaction is active. A replica that cannot supply a connection is skipped in favour of the primary.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty()
+                || !DataSourceRouting.isReplicaReadAllowed()
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return primary.getConnection();
+        }
+
+        int replica = Math.floorMod(next.getAndIncrement(), replicas.size());
+        try {
+            return replicas.get(replica).getConnection();
+        } catch (SQLException ex) {
+            log.warn("Replica {} unavailable, reading from the primary: {}", replica, ex.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    @Override
+    public void close() {
+        for (DataSource dataSource : replicas) {
+            closeQuietly(dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ex) {
+                log.warn("Failed to close data source: {}", ex.getMessage());
+            }
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package com.doron.shaul.nba.config;
 
+import com.doron.shaul.nba.cache.CacheInvalidationPublisher;
+import com.doron.shaul.nba.cache.CacheKeys;
+import com.doron.shaul.nba.cache.CacheLoadCoordinator;
+import com.doron.shaul.nba.cache.CompactStatsSerializer;
+import com.doron.shaul.nba.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
@@ -16,21 +27,80 @@ import java.time.Duration;
 public class RedisConfig {
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                               @Value("${nba.cache.codec.player-season-stats:json}") String playerCodec,
+                                               @Value("${nba.cache.codec.team-season-stats:json}") String teamCodec,
+                                               @Value("${nba.cache.codec.compress-threshold:512}") int compressThreshold,
+                                               @Value("${nba.cache.averages.ttl:24h}") Duration averagesTtl) {
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .disableCachingNullValues()
                 .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(
-                                new GenericJackson2JsonRedisSerializer()
-                        )
+                        RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer)
                 );
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
-                .withCacheConfiguration("playerSeasonStats",
-                        config.entryTtl(Duration.ZERO))
-                .withCacheConfiguration("teamSeasonStats",
-                        config.entryTtl(Duration.ZERO))
+                // Generation-keyed: entries superseded by a season bump are never read again and only leave by expiry
+                .withCacheConfiguration(CacheKeys.PLAYER_SEASON_STATS,
+                        withCodec(config, playerCodec, jsonSerializer, compressThreshold).entryTtl(averagesTtl))
+                .withCacheConfiguration(CacheKeys.TEAM_SEASON_STATS,
+                        withCodec(config, teamCodec, jsonSerializer, compressThreshold).entryTtl(averagesTtl))
+                .withCacheConfiguration(CacheKeys.PLAYER_SPLIT_STATS, config.entryTtl(averagesTtl))
+                .withCacheConfiguration(CacheKeys.TEAM_SPLIT_STATS, config.entryTtl(averagesTtl))
                 .build();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate,
+                                                                 InstanceIdentity instanceIdentity) {
+        return new CacheInvalidationPublisher(stringRedisTemplate, instanceIdentity.getId());
+    }
+
+    @Bean
+    public CacheLoadCoordinator cacheLoadCoordinator(StringRedisTemplate stringRedisTemplate,
+                                                     @Value("${nba.cache.stampede.lease.enabled:false}") boolean leaseEnabled,
+                                                     @Value("${nba.cache.stampede.lease.ttl:10s}") Duration leaseTtl,
+                                                     @Value("${nba.cache.stampede.lease.wait:2s}") Duration leaseWait,
+                                                     @Value("${nba.cache.stampede.lease.poll-interval:25ms}") Duration pollInterval,
+                                                     @Value("${nba.cache.stampede.stale-ttl:0s}") Duration staleTtl,
+                                                     @Value("${nba.cache.stampede.refresh-threads:2}") int refreshThreads,
+                                                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return new CacheLoadCoordinator(stringRedisTemplate, leaseEnabled, leaseTtl, leaseWait, pollInterval,
+                staleTtl, refreshThreads, virtualThreads);
+    }
+
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                             CacheInvalidationPublisher cacheInvalidationPublisher,
+                                             CacheLoadCoordinator cacheLoadCoordinator,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${nba.cache.local.maximum-size:10000}") long localMaximumSize,
+                                             @Value("${nba.cache.local.expire-after-write:60s}") Duration localExpireAfterWrite) {
+        return new TwoLevelCacheManager(redisCacheManager, cacheInvalidationPublisher, cacheLoadCoordinator,
+                meterRegistry, localMaximumSize, localExpireAfterWrite);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(CacheInvalidationPublisher.CHANNEL));
+        return container;
+    }
+
+    private RedisCacheConfiguration withCodec(RedisCacheConfiguration config,
+                                              String codec,
+                                              GenericJackson2JsonRedisSerializer jsonSerializer,
+                                              int compressThreshold) {
+        return switch (codec.toLowerCase()) {
+            case "json" -> config;
+            case "binary" -> config.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                    new CompactStatsSerializer(jsonSerializer, compressThreshold)));
+            default -> throw new IllegalArgumentException("Unknown cache codec: " + codec);
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.doron.shaul.nba.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks repository reads that tolerate replication lag. Outside a transaction, and unless the request is pinned to
+ * the primary, their connections come from a read replica when replicas are configured. Reads whose results are
+ * cached must not be marked unless their loads of fresh writes are kept on the primary: a cached replica read
+ * outlives the lag it was taken under.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface ReplicaRead {
+}
@@ -0,0 +1,22 @@
+package com.doron.shaul.nba.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+@Order(ReplicaReadAspect.ORDER)
+public class ReplicaReadAspect {
+
+    public static final int ORDER = 0;
+
+    @Around("@within(com.doron.shaul.nba.config.ReplicaRead) || @annotation(com.doron.shaul.nba.config.ReplicaRead)")
+    public Object routeToReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.replicaReads()) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.doron.shaul.nba.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BulkheadBeanPostProcessor bulkheadBeanPostProcessor(
+            @Value("${nba.threads.virtual.jdbc-permits:${spring.datasource.hikari.maximum-pool-size:10}}") int jdbcPermits,
+            @Value("${nba.threads.virtual.redis-permits:64}") int redisPermits,
+            @Value("${nba.threads.virtual.acquire-timeout:5s}") Duration acquireTimeout) {
+        return new BulkheadBeanPostProcessor(
+                new ConcurrencyBulkhead("jdbc", jdbcPermits, acquireTimeout),
+                new ConcurrencyBulkhead("redis", redisPermits, acquireTimeout));
+    }
+}
@@ -0,0 +1,34 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.model.AnalyticsQuery;
+import com.doron.shaul.nba.model.AnalyticsRow;
+import com.doron.shaul.nba.service.ColumnarAnalyticsService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "nba.analytics.columnar.enabled", havingValue = "true")
+public class AnalyticsController {
+
+    private final ColumnarAnalyticsService columnarAnalyticsService;
+
+    @GetMapping("/seasons/{seasonId}/analytics")
+    public ResponseEntity<List<AnalyticsRow>> aggregate(
+            @PathVariable long seasonId,
+            @Valid @ModelAttribute AnalyticsQuery query) {
+
+        List<AnalyticsRow> rows = columnarAnalyticsService.query(seasonId, query);
+        return ResponseEntity.ok(rows);
+    }
+}
@@ -0,0 +1,28 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.model.CacheWarmupStatus;
+import com.doron.shaul.nba.service.CacheWarmupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "cachewarmup")
+@RequiredArgsConstructor
+public class CacheWarmupEndpoint {
+
+    private final CacheWarmupService cacheWarmupService;
+
+    @ReadOperation
+    public CacheWarmupStatus status() {
+        return cacheWarmupService.getStatus();
+    }
+
+    @WriteOperation
+    public CacheWarmupStatus warmUp(@Nullable Long seasonId) {
+        return cacheWarmupService.trigger(seasonId);
+    }
+}
@@ -0,0 +1,54 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+import com.doron.shaul.nba.model.StatCategory;
+import com.doron.shaul.nba.model.StatDistribution;
+import com.doron.shaul.nba.service.DistributionService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class DistributionController {
+
+    private final DistributionService distributionService;
+
+    @GetMapping("/seasons/{seasonId}/distributions/{stat}")
+    public ResponseEntity<StatDistribution> getPercentile(
+            @PathVariable long seasonId,
+            @PathVariable String stat,
+            @RequestParam(required = false) String position,
+            @RequestParam(required = false) Double value,
+            @RequestParam(required = false) Double percentile) {
+
+        StatCategory category = StatCategory.fromKey(stat);
+        if ((value == null) == (percentile == null)) {
+            throw new InvalidPayloadException("Either value or percentile is required, not both");
+        }
+        if (value != null) {
+            return ResponseEntity.ok(distributionService.percentileOf(seasonId, category, position, value));
+        }
+        if (percentile < 0 || percentile > 100) {
+            throw new InvalidPayloadException("Percentile must be between 0 and 100");
+        }
+        return ResponseEntity.ok(distributionService.valueAt(seasonId, category, position, percentile));
+    }
+
+    @GetMapping("/seasons/{seasonId}/distributions/{stat}/histogram")
+    public ResponseEntity<StatDistribution> getHistogram(
+            @PathVariable long seasonId,
+            @PathVariable String stat,
+            @RequestParam(required = false) String position,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int bins) {
+
+        return ResponseEntity.ok(distributionService.histogram(seasonId, StatCategory.fromKey(stat), position, bins));
+    }
+}
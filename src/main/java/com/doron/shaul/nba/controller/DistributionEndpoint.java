@@ -0,0 +1,28 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.service.DistributionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+@Endpoint(id = "distributions")
+@RequiredArgsConstructor
+public class DistributionEndpoint {
+
+    private final DistributionService distributionService;
+
+    @WriteOperation
+    public Map<String, Object> rebuild(@Nullable Long seasonId) {
+        if (seasonId != null) {
+            int players = distributionService.rebuild(seasonId);
+            return Map.of("seasons", List.of(seasonId), "players", players);
+        }
+        return Map.of("seasons", distributionService.rebuildAll());
+    }
+}
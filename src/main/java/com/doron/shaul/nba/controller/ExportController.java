@@ -0,0 +1,58 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.model.ExportFilter;
+import com.doron.shaul.nba.service.SeasonExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+
+    private final SeasonExportService seasonExportService;
+
+    @GetMapping("/seasons/{seasonId}/export/{dataset}")
+    public void export(
+            @PathVariable long seasonId,
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @ModelAttribute ExportFilter filter,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+
+        SeasonExportService.Dataset exported = SeasonExportService.Dataset.fromKey(dataset);
+        SeasonExportService.Format exportFormat = SeasonExportService.Format.fromKey(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        seasonExportService.export(exported, seasonId, filter, exportFormat, () -> {
+            response.setContentType(exportFormat.getContentType());
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename("season-" + seasonId + "-" + exported.getKey() + "." + exportFormat.getExtension())
+                    .build()
+                    .toString());
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (!gzip) {
+                return response.getOutputStream();
+            }
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_BYTES);
+        });
+    }
+}
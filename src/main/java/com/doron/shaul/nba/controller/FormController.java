@@ -0,0 +1,73 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+import com.doron.shaul.nba.model.FormAverages;
+import com.doron.shaul.nba.service.FormService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class FormController {
+
+    private static final int MAX_GAMES = 200;
+
+    private final FormService formService;
+
+    @GetMapping("/players/{playerId}/stats/form")
+    public ResponseEntity<FormAverages> getPlayerForm(
+            @PathVariable long playerId,
+            @RequestParam long seasonId,
+            @RequestParam(required = false) Integer games,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        FormAverages averages = games != null
+                ? formService.playerLastGames(playerId, seasonId, validGames(games, from, to))
+                : formService.playerBetween(playerId, seasonId, validFrom(from, to), to);
+        return ResponseEntity.ok(averages);
+    }
+
+    @GetMapping("/teams/{teamId}/stats/form")
+    public ResponseEntity<FormAverages> getTeamForm(
+            @PathVariable long teamId,
+            @RequestParam long seasonId,
+            @RequestParam(required = false) Integer games,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        FormAverages averages = games != null
+                ? formService.teamLastGames(teamId, seasonId, validGames(games, from, to))
+                : formService.teamBetween(teamId, seasonId, validFrom(from, to), to);
+        return ResponseEntity.ok(averages);
+    }
+
+    private static int validGames(int games, LocalDate from, LocalDate to) {
+        if (from != null || to != null) {
+            throw new InvalidPayloadException("Use either games or from/to, not both");
+        }
+        if (games < 1 || games > MAX_GAMES) {
+            throw new InvalidPayloadException("Games must be between 1 and " + MAX_GAMES);
+        }
+        return games;
+    }
+
+    private static LocalDate validFrom(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new InvalidPayloadException("Either games or both from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new InvalidPayloadException("From must not be after to");
+        }
+        return from;
+    }
+}
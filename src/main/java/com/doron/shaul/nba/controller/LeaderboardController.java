@@ -0,0 +1,48 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.model.LeaderboardEntry;
+import com.doron.shaul.nba.model.StatCategory;
+import com.doron.shaul.nba.service.LeaderboardService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+
+    @GetMapping("/seasons/{seasonId}/leaders/{stat}")
+    public ResponseEntity<List<LeaderboardEntry>> getLeaders(
+            @PathVariable long seasonId,
+            @PathVariable String stat,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit,
+            @RequestParam(defaultValue = "0") @Min(0) int minGames) {
+
+        List<LeaderboardEntry> leaders = leaderboardService.getLeaders(seasonId, StatCategory.fromKey(stat),
+                limit, minGames);
+        return ResponseEntity.ok(leaders);
+    }
+
+    @GetMapping("/seasons/{seasonId}/leaders/{stat}/players/{playerId}")
+    public ResponseEntity<LeaderboardEntry> getPlayerRank(
+            @PathVariable long seasonId,
+            @PathVariable String stat,
+            @PathVariable long playerId,
+            @RequestParam(defaultValue = "0") @Min(0) int minGames) {
+
+        LeaderboardEntry entry = leaderboardService.getPlayerRank(seasonId, StatCategory.fromKey(stat),
+                playerId, minGames);
+        return ResponseEntity.ok(entry);
+    }
+}
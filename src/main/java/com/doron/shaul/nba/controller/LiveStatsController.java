@@ -0,0 +1,30 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.service.LiveStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class LiveStatsController {
+
+    private final LiveStatsService liveStatsService;
+
+    @GetMapping(value = "/seasons/{seasonId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @PathVariable long seasonId,
+            @RequestParam(defaultValue = "") List<Long> playerIds,
+            @RequestParam(defaultValue = "") List<Long> teamIds) {
+
+        return liveStatsService.subscribe(seasonId, playerIds, teamIds);
+    }
+}
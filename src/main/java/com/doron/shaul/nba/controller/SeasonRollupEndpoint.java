@@ -0,0 +1,33 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.cache.CacheGenerations;
+import com.doron.shaul.nba.model.RollupVerificationReport;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import com.doron.shaul.nba.service.SeasonRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "rollups")
+@RequiredArgsConstructor
+public class SeasonRollupEndpoint {
+
+    private final SeasonRollupService seasonRollupService;
+    private final SeasonRepository seasonRepository;
+    private final CacheGenerations cacheGenerations;
+
+    @ReadOperation
+    public RollupVerificationReport verify() {
+        return seasonRollupService.verify();
+    }
+
+    @WriteOperation
+    public RollupVerificationReport rebuild() {
+        seasonRollupService.rebuild();
+        cacheGenerations.invalidateSeasons(seasonRepository.findSeasonIds());
+        return seasonRollupService.verify();
+    }
+}
@@ -0,0 +1,30 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.cache.SeasonSnapshot;
+import com.doron.shaul.nba.service.SeasonSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "seasonsnapshots")
+@RequiredArgsConstructor
+public class SeasonSnapshotEndpoint {
+
+    private final SeasonSnapshotService seasonSnapshotService;
+
+    @ReadOperation
+    public Map<Long, Map<String, Object>> frozenSeasons() {
+        return seasonSnapshotService.getFrozenSeasons();
+    }
+
+    @WriteOperation
+    public Map<String, Object> freeze(long seasonId) {
+        SeasonSnapshot snapshot = seasonSnapshotService.freeze(seasonId);
+        return Map.of("season", seasonId, "players", snapshot.getPlayerCount(), "teams", snapshot.getTeamCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.doron.shaul.nba.controller;
+
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+import com.doron.shaul.nba.model.SplitStats;
+import com.doron.shaul.nba.model.SplitType;
+import com.doron.shaul.nba.service.SplitRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Objects;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class SplitController {
+
+    private final SplitRollupService splitRollupService;
+
+    @GetMapping("/players/{playerId}/stats/splits")
+    public ResponseEntity<List<SplitStats>> getPlayerSplits(
+            @PathVariable long playerId,
+            @RequestParam long seasonId,
+            @RequestParam(required = false) String split,
+            @RequestParam(required = false) Long opponentTeamId) {
+
+        return ResponseEntity.ok(filter(splitRollupService.getPlayerSplits(playerId, seasonId), split, opponentTeamId));
+    }
+
+    @GetMapping("/teams/{teamId}/stats/splits")
+    public ResponseEntity<List<SplitStats>> getTeamSplits(
+            @PathVariable long teamId,
+            @RequestParam long seasonId,
+            @RequestParam(required = false) String split,
+            @RequestParam(required = false) Long opponentTeamId) {
+
+        return ResponseEntity.ok(filter(splitRollupService.getTeamSplits(teamId, seasonId), split, opponentTeamId));
+    }
+
+    private static List<SplitStats> filter(List<SplitStats> splits, String split, Long opponentTeamId) {
+        SplitType type = split != null ? SplitType.fromKey(split) : null;
+        if (opponentTeamId != null && type != null && type != SplitType.OPPONENT) {
+            throw new InvalidPayloadException("opponentTeamId only applies to the OPPONENT split");
+        }
+        if (type == null && opponentTeamId == null) {
+            return splits;
+        }
+
+        List<SplitStats> matching = splits.stream()
+                .filter(row -> row.getSplit() == (type != null ? type : SplitType.OPPONENT))
+                .filter(row -> opponentTeamId == null || Objects.equals(row.getOpponentTeamId(), opponentTeamId))
+                .toList();
+        if (matching.isEmpty()) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        return matching;
+    }
+}
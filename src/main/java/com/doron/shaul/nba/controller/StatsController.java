@@ -1,15 +1,26 @@
 package com.doron.shaul.nba.controller;
 
+import com.doron.shaul.nba.cache.StaleReads;
+import com.doron.shaul.nba.cache.StatsVersions;
 import com.doron.shaul.nba.model.PlayerGameStats;
 import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.SeasonStatsBatchRequest;
 import com.doron.shaul.nba.model.TeamSeasonStats;
+import com.doron.shaul.nba.model.BulkIngestionResult;
+import com.doron.shaul.nba.service.BulkIngestionService;
 import com.doron.shaul.nba.service.StatsService;
+import com.doron.shaul.nba.service.WriteBehindIngestionQueue;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -18,6 +29,9 @@ import java.util.List;
 public class StatsController {
 
     private final StatsService statsService;
+    private final BulkIngestionService bulkIngestionService;
+    private final WriteBehindIngestionQueue writeBehindIngestionQueue;
+    private final StatsVersions statsVersions;
 
     @PostMapping("/games/{gameId}/stats")
     public ResponseEntity<List<Long>> recordPlayerStats(
@@ -26,26 +40,107 @@ public class StatsController {
 
         statsList.forEach(stats -> stats.setGameId(gameId));
 
+        if (writeBehindIngestionQueue.isEnabled()) {
+            writeBehindIngestionQueue.enqueue(statsList);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        }
+
         List<Long> statIds = statsService.recordPlayerStats(statsList);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(statIds);
     }
 
+    @PostMapping(value = "/stats/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<BulkIngestionResult> recordBulkPlayerStats(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+
+        boolean csv = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"));
+
+        BulkIngestionResult result = bulkIngestionService.ingest(body,
+                csv ? BulkIngestionService.Format.CSV : BulkIngestionService.Format.NDJSON);
+        if (result.getRowsRejected() == 0) {
+            return ResponseEntity.ok(result);
+        }
+        // 207 when only some rows were recorded, 422 when none were; the body lists the rejected lines either way
+        return ResponseEntity.status(result.getRowsRecorded() > 0 ? HttpStatus.MULTI_STATUS
+                : HttpStatus.UNPROCESSABLE_ENTITY).body(result);
+    }
+
     @GetMapping("/players/{playerId}/stats/averages")
     public ResponseEntity<PlayerSeasonStats> getPlayerSeasonStats(
             @PathVariable long playerId,
-            @RequestParam long seasonId) {
+            @RequestParam long seasonId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        // The version is read before the stats: a write in between pairs new stats with the old tag, never the reverse
+        String eTag = statsVersions.playerETag(playerId, seasonId);
+        if (matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
 
+        StaleReads.clear();
         PlayerSeasonStats stats = statsService.getPlayerSeasonStats(playerId, seasonId);
-        return ResponseEntity.ok(stats);
+        return withETag(statsVersions.servedETag(eTag)).body(stats);
     }
 
     @GetMapping("/teams/{teamId}/stats/averages")
     public ResponseEntity<List<TeamSeasonStats>> getTeamSeasonStats(
             @PathVariable long teamId,
-            @RequestParam long seasonId) {
+            @RequestParam long seasonId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        String eTag = statsVersions.teamETag(teamId, seasonId);
+        if (matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
 
+        StaleReads.clear();
         List<TeamSeasonStats> stats = statsService.getTeamSeasonStats(teamId, seasonId);
+        return withETag(statsVersions.servedETag(eTag)).body(stats);
+    }
+
+    @PostMapping("/players/stats/averages:batch")
+    public ResponseEntity<List<PlayerSeasonStats>> getPlayerSeasonStatsBatch(
+            @Valid @RequestBody SeasonStatsBatchRequest request) {
+
+        List<PlayerSeasonStats> stats = statsService.getPlayerSeasonStats(request.getIds(), request.getSeasonId());
         return ResponseEntity.ok(stats);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/teams/stats/averages:batch")
+    public ResponseEntity<List<TeamSeasonStats>> getTeamSeasonStatsBatch(
+            @Valid @RequestBody SeasonStatsBatchRequest request) {
+
+        List<TeamSeasonStats> stats = statsService.getTeamSeasonStats(request.getIds(), request.getSeasonId());
+        return ResponseEntity.ok(stats);
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(String eTag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        return eTag != null ? builder.eTag(eTag) : builder;
+    }
+}
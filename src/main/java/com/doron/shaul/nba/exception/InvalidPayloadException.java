@@ -0,0 +1,8 @@
+package com.doron.shaul.nba.exception;
+
+public class InvalidPayloadException extends RuntimeException {
+
+    public InvalidPayloadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.doron.shaul.nba.exception;
+
+public class ReadCapacityExceededException extends RuntimeException {
+
+    public ReadCapacityExceededException(String message) {
+        super(message);
+    }
+}
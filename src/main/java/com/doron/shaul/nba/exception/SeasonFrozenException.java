@@ -0,0 +1,14 @@
+package com.doron.shaul.nba.exception;
+
+import org.springframework.dao.NonTransientDataAccessException;
+
+/**
+ * Stat lines were submitted for a frozen season. Extends {@link NonTransientDataAccessException} so bulk and
+ * write-behind ingestion reject the affected rows the same way as any other constraint violation.
+ */
+public class SeasonFrozenException extends NonTransientDataAccessException {
+
+    public SeasonFrozenException(long seasonId) {
+        super("Season " + seasonId + " is frozen and no longer accepts stats");
+    }
+}
@@ -0,0 +1,34 @@
+package com.doron.shaul.nba.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class AnalyticsQuery {
+
+    public enum GroupBy { NONE, PLAYER, TEAM, GAME }
+
+    private GroupBy groupBy = GroupBy.NONE;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private Boolean playoff;
+    private Boolean home;
+    private List<Long> playerIds;
+    private List<Long> teamIds;
+    private boolean per36;
+    private String orderBy;
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 1000, message = "Limit cannot exceed 1000")
+    private Integer limit;
+}
@@ -0,0 +1,15 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class AnalyticsRow {
+    private Long groupId;
+    private long gamesPlayed;
+    private Map<String, Double> totals = new LinkedHashMap<>();
+    private Map<String, Double> averages = new LinkedHashMap<>();
+    private Map<String, Double> per36;
+}
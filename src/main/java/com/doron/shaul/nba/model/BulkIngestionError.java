@@ -0,0 +1,13 @@
+package com.doron.shaul.nba.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkIngestionError {
+    private long line;
+    private String message;
+}
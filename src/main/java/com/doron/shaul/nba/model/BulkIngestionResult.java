@@ -0,0 +1,16 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkIngestionResult {
+    private long rowsRead;
+    private long rowsRecorded;
+    private long rowsRejected;
+    private int chunksCommitted;
+    private long elapsedMillis;
+    private List<BulkIngestionError> errors = new ArrayList<>();
+}
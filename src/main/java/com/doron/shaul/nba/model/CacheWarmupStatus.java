@@ -0,0 +1,21 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class CacheWarmupStatus {
+
+    public enum State { IDLE, RUNNING, COMPLETED, FAILED }
+
+    private State state = State.IDLE;
+    private Long seasonId;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long teamsWarmed;
+    private long playersWarmed;
+    private long refreshesPending;
+    private long keysRefreshed;
+    private String lastError;
+}
@@ -0,0 +1,24 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+public class ExportFilter {
+
+    private Long teamId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private Boolean playoff;
+
+    public boolean filtersGames() {
+        return teamId != null || from != null || to != null || playoff != null;
+    }
+}
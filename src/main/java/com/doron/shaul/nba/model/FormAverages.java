@@ -0,0 +1,23 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class FormAverages {
+    private Long playerId;
+    private Long teamId;
+    private Long seasonId;
+    private LocalDate from;
+    private LocalDate to;
+    private Integer gamesPlayed;
+    private Double avgPoints;
+    private Double avgRebounds;
+    private Double avgAssists;
+    private Double avgSteals;
+    private Double avgBlocks;
+    private Double avgFouls;
+    private Double avgTurnovers;
+    private Double avgMinutesPlayed;
+}
@@ -0,0 +1,25 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class GameLine {
+    private Long statId;
+    private Long gameId;
+    private Long playerId;
+    private Long seasonId;
+    private Long teamId;
+    private LocalDate gameDate;
+    private boolean home;
+    private boolean playoff;
+    private int points;
+    private int rebounds;
+    private int assists;
+    private int steals;
+    private int blocks;
+    private int fouls;
+    private int turnovers;
+    private double minutesPlayed;
+}
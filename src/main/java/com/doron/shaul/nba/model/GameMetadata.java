@@ -0,0 +1,19 @@
+package com.doron.shaul.nba.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameMetadata {
+    private long gameId;
+    private long seasonId;
+    private long homeTeamId;
+    private long awayTeamId;
+    private LocalDate gameDate;
+    private boolean playoff;
+}
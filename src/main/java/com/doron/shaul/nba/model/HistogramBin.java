@@ -0,0 +1,14 @@
+package com.doron.shaul.nba.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistogramBin {
+    private double from;
+    private double to;
+    private long games;
+}
@@ -0,0 +1,15 @@
+package com.doron.shaul.nba.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+    private long rank;
+    private Long playerId;
+    private Double average;
+    private Integer gamesPlayed;
+}
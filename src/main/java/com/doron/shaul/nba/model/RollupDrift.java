@@ -0,0 +1,16 @@
+package com.doron.shaul.nba.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupDrift {
+    private String scope;
+    private Long entityId;
+    private Long seasonId;
+    private SeasonTotals expected;
+    private SeasonTotals actual;
+}
@@ -0,0 +1,17 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RollupVerificationReport {
+    private int playerRowsChecked;
+    private int teamRowsChecked;
+    private List<RollupDrift> drifts = new ArrayList<>();
+
+    public boolean isConsistent() {
+        return drifts.isEmpty();
+    }
+}
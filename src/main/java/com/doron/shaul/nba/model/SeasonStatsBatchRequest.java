@@ -0,0 +1,19 @@
+package com.doron.shaul.nba.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SeasonStatsBatchRequest {
+
+    @NotNull(message = "Season ID is required")
+    private Long seasonId;
+
+    @NotEmpty(message = "At least one ID is required")
+    @Size(max = 500, message = "At most 500 IDs can be requested at once")
+    private List<@NotNull(message = "IDs cannot be null") Long> ids;
+}
@@ -0,0 +1,22 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class SeasonTotals {
+    private Long entityId;
+    private Long seasonId;
+    private Long points;
+    private Long rebounds;
+    private Long assists;
+    private Long steals;
+    private Long blocks;
+    private Long fouls;
+    private Long turnovers;
+    private BigDecimal minutesPlayed;
+    private Integer statLines;
+    private Integer gamesPlayed;
+    private Integer playersCount;
+}
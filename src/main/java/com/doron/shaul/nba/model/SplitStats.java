@@ -0,0 +1,21 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+@Data
+public class SplitStats {
+    private Long playerId;
+    private Long teamId;
+    private Long seasonId;
+    private SplitType split;
+    private Long opponentTeamId;
+    private Double avgPoints;
+    private Double avgRebounds;
+    private Double avgAssists;
+    private Double avgSteals;
+    private Double avgBlocks;
+    private Double avgFouls;
+    private Double avgTurnovers;
+    private Double avgMinutesPlayed;
+    private Integer gamesPlayed;
+}
@@ -0,0 +1,22 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class SplitTotals {
+    private long entityId;
+    private long seasonId;
+    private SplitType split;
+    private long opponentTeamId;
+    private long points;
+    private long rebounds;
+    private long assists;
+    private long steals;
+    private long blocks;
+    private long fouls;
+    private long turnovers;
+    private BigDecimal minutesPlayed = BigDecimal.ZERO;
+    private int statLines;
+}
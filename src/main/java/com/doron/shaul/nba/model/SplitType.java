@@ -0,0 +1,20 @@
+package com.doron.shaul.nba.model;
+
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+
+import java.util.Arrays;
+
+public enum SplitType {
+    HOME,
+    AWAY,
+    PLAYOFF,
+    REGULAR,
+    OPPONENT;
+
+    public static SplitType fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(split -> split.name().equalsIgnoreCase(key))
+                .findFirst()
+                .orElseThrow(() -> new InvalidPayloadException("Unknown split: " + key));
+    }
+}
@@ -0,0 +1,60 @@
+package com.doron.shaul.nba.model;
+
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+public enum StatCategory {
+    POINTS("points", "points", PlayerGameStats::getPoints, SeasonTotals::getPoints),
+    REBOUNDS("rebounds", "rebounds", PlayerGameStats::getRebounds, SeasonTotals::getRebounds),
+    ASSISTS("assists", "assists", PlayerGameStats::getAssists, SeasonTotals::getAssists),
+    STEALS("steals", "steals", PlayerGameStats::getSteals, SeasonTotals::getSteals),
+    BLOCKS("blocks", "blocks", PlayerGameStats::getBlocks, SeasonTotals::getBlocks),
+    FOULS("fouls", "fouls", PlayerGameStats::getFouls, SeasonTotals::getFouls),
+    TURNOVERS("turnovers", "turnovers", PlayerGameStats::getTurnovers, SeasonTotals::getTurnovers),
+    MINUTES_PLAYED("minutesPlayed", "minutes_played", PlayerGameStats::getMinutesPlayed, SeasonTotals::getMinutesPlayed);
+
+    private final String key;
+    private final String columnSuffix;
+    private final Function<PlayerGameStats, Number> gameValue;
+    private final Function<SeasonTotals, Number> seasonTotal;
+
+    StatCategory(String key,
+                 String columnSuffix,
+                 Function<PlayerGameStats, Number> gameValue,
+                 Function<SeasonTotals, Number> seasonTotal) {
+        this.key = key;
+        this.columnSuffix = columnSuffix;
+        this.gameValue = gameValue;
+        this.seasonTotal = seasonTotal;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String statColumn() {
+        return "stat_" + columnSuffix;
+    }
+
+    public String totalColumn() {
+        return "total_" + columnSuffix;
+    }
+
+    public double valueOf(PlayerGameStats stats) {
+        return gameValue.apply(stats).doubleValue();
+    }
+
+    public double totalOf(SeasonTotals totals) {
+        Number total = seasonTotal.apply(totals);
+        return total != null ? total.doubleValue() : 0;
+    }
+
+    public static StatCategory fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(category -> category.key.equalsIgnoreCase(key) || category.name().equalsIgnoreCase(key))
+                .findFirst()
+                .orElseThrow(() -> new InvalidPayloadException("Unknown stat category: " + key));
+    }
+}
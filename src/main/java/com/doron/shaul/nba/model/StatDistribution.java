@@ -0,0 +1,18 @@
+package com.doron.shaul.nba.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class StatDistribution {
+    private long seasonId;
+    private String stat;
+    private String position;
+    private long players;
+    private double min;
+    private double max;
+    private Double value;
+    private Double percentile;
+    private List<HistogramBin> histogram;
+}
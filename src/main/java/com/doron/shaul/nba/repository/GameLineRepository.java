@@ -0,0 +1,84 @@
+package com.doron.shaul.nba.repository;
+
+import com.doron.shaul.nba.model.GameLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class GameLineRepository {
+
+    private static final String SELECT_LINES =
+            "SELECT pgs.stat_id, pgs.game_id, pgs.player_id, g.season_id, pt.team_id, g.game_date, " +
+            "COALESCE(pt.team_id = g.home_team_id, FALSE) AS home, g.game_is_playoff AS playoff, " +
+            "pgs.stat_points AS points, pgs.stat_rebounds AS rebounds, pgs.stat_assists AS assists, " +
+            "pgs.stat_steals AS steals, pgs.stat_blocks AS blocks, pgs.stat_fouls AS fouls, " +
+            "pgs.stat_turnovers AS turnovers, pgs.stat_minutes_played AS minutes_played " +
+            "FROM player_game_stats pgs " +
+            "JOIN games g ON g.game_id = pgs.game_id " +
+            "LEFT JOIN player_teams pt ON pt.player_id = pgs.player_id AND pt.season_id = g.season_id " +
+            "AND pt.team_id IN (g.home_team_id, g.away_team_id) ";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<GameLine> findBySeasonId(long seasonId) {
+        String sql = SELECT_LINES + "WHERE g.season_id = :seasonId ORDER BY pgs.stat_id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId);
+
+        return jdbcTemplate.query(sql, params, new BeanPropertyRowMapper<>(GameLine.class));
+    }
+
+    public int countBySeasonId(long seasonId) {
+        String sql = "SELECT COUNT(*) FROM player_game_stats pgs JOIN games g ON g.game_id = pgs.game_id " +
+                "WHERE g.season_id = :seasonId";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId);
+
+        Integer count = jdbcTemplate.queryForObject(sql, params, Integer.class);
+        return count != null ? count : 0;
+    }
+
+    public List<GameLine> findByPlayerAndSeason(long playerId, long seasonId) {
+        String sql = SELECT_LINES + "WHERE pgs.player_id = :playerId AND g.season_id = :seasonId " +
+                "ORDER BY g.game_date, pgs.game_id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("playerId", playerId)
+                .addValue("seasonId", seasonId);
+
+        return jdbcTemplate.query(sql, params, new BeanPropertyRowMapper<>(GameLine.class));
+    }
+
+    public List<GameLine> findByTeamAndSeason(long teamId, long seasonId) {
+        String sql = SELECT_LINES + "WHERE pt.team_id = :teamId AND g.season_id = :seasonId " +
+                "ORDER BY g.game_date, pgs.game_id, pgs.stat_id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("teamId", teamId)
+                .addValue("seasonId", seasonId);
+
+        return jdbcTemplate.query(sql, params, new BeanPropertyRowMapper<>(GameLine.class));
+    }
+
+    public List<GameLine> findByStatIds(Collection<Long> statIds) {
+        if (statIds == null || statIds.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = SELECT_LINES + "WHERE pgs.stat_id IN (:statIds) ORDER BY pgs.stat_id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("statIds", statIds);
+
+        return jdbcTemplate.query(sql, params, new BeanPropertyRowMapper<>(GameLine.class));
+    }
+}
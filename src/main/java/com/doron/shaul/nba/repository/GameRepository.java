@@ -1,42 +1,53 @@
 package com.doron.shaul.nba.repository;
 
+import com.doron.shaul.nba.model.GameMetadata;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collection;
+import java.util.List;
 
+// Not a replica read: GameMetadataIndex keeps these rows for the life of the process, so a game missing on a
+// lagging replica would be rejected by ingestion until restart
 @Repository
 @RequiredArgsConstructor
 public class GameRepository {
 
-    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private static final String SELECT_METADATA =
+            "SELECT game_id, season_id, home_team_id, away_team_id, game_date, game_is_playoff FROM games ";
+
+    private static final RowMapper<GameMetadata> METADATA_MAPPER = (rs, rowNum) -> new GameMetadata(
+            rs.getLong("game_id"),
+            rs.getLong("season_id"),
+            rs.getLong("home_team_id"),
+            rs.getLong("away_team_id"),
+            rs.getDate("game_date").toLocalDate(),
+            rs.getBoolean("game_is_playoff"));
 
+    private final NamedParameterJdbcTemplate jdbcTemplate;
 
-    public Long findSeasonIdByGameId(Long gameId) {
-        String sql = "SELECT season_id FROM games WHERE game_id = :gameId";
+    public List<GameMetadata> findMetadataBySeasonId(long seasonId) {
+        String sql = SELECT_METADATA + "WHERE season_id = :seasonId";
 
         MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("gameId", gameId);
+                .addValue("seasonId", seasonId);
 
-        return jdbcTemplate.queryForObject(sql, params, Long.class);
+        return jdbcTemplate.query(sql, params, METADATA_MAPPER);
     }
 
-    public Set<Long> findTeamIdsByGameId(Long gameId) {
-        String sql = "SELECT home_team_id, away_team_id FROM games WHERE game_id = :gameId";
+    /**
+     * Loads the full schedules of the seasons the given games belong to.
+     */
+    public List<GameMetadata> findSeasonMetadataByGameIds(Collection<Long> gameIds) {
+        String sql = SELECT_METADATA +
+                "WHERE season_id IN (SELECT season_id FROM games WHERE game_id IN (:gameIds))";
 
         MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("gameId", gameId);
-
-        return jdbcTemplate.query(sql, params, rs -> {
-            Set<Long> teamIds = new HashSet<>();
-            if (rs.next()) {
-                teamIds.add(rs.getLong("home_team_id"));
-                teamIds.add(rs.getLong("away_team_id"));
-            }
-            return teamIds;
-        });
+                .addValue("gameIds", gameIds);
+
+        return jdbcTemplate.query(sql, params, METADATA_MAPPER);
     }
 }
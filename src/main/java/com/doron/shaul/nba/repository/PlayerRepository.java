@@ -0,0 +1,40 @@
+package com.doron.shaul.nba.repository;
+
+import com.doron.shaul.nba.config.ReplicaRead;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+@ReplicaRead
+@RequiredArgsConstructor
+public class PlayerRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Positions of the given players; players without a position are left out.
+     */
+    public Map<Long, String> findPositions(Collection<Long> playerIds) {
+        if (playerIds == null || playerIds.isEmpty()) {
+            return Map.of();
+        }
+
+        String sql = "SELECT player_id, player_position FROM players " +
+                "WHERE player_id IN (:playerIds) AND player_position IS NOT NULL";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("playerIds", playerIds);
+
+        Map<Long, String> positions = new HashMap<>();
+        jdbcTemplate.query(sql, params, rs -> {
+            positions.put(rs.getLong("player_id"), rs.getString("player_position"));
+        });
+        return positions;
+    }
+}
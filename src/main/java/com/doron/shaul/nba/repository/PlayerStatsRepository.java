@@ -24,7 +24,19 @@ public class PlayerStatsRepository {
                 "VALUES (:gameId, :playerId, :points, :rebounds, :assists, :steals, :blocks, :fouls, " +
                 ":turnovers, :minutesPlayed)";
 
-        SqlParameterSource[] batchParams = statsList.stream()
+        SqlParameterSource[] batchParams = toBatchParams(statsList);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(sql, batchParams, keyHolder);
+
+        // Extract and return generated keys
+        return keyHolder.getKeyList().stream()
+                .map(keyMap -> ((Number) keyMap.get("GENERATED_KEY")).longValue())
+                .collect(Collectors.toList());
+    }
+
+    static SqlParameterSource[] toBatchParams(List<PlayerGameStats> statsList) {
+        return statsList.stream()
                 .map(stats -> new MapSqlParameterSource()
                         .addValue("gameId", stats.getGameId())
                         .addValue("playerId", stats.getPlayerId())
@@ -37,13 +49,5 @@ public class PlayerStatsRepository {
                         .addValue("turnovers", stats.getTurnovers())
                         .addValue("minutesPlayed", stats.getMinutesPlayed()))
                 .toArray(SqlParameterSource[]::new);
-
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbcTemplate.batchUpdate(sql, batchParams, keyHolder);
-
-        // Extract and return generated keys
-        return keyHolder.getKeyList().stream()
-                .map(keyMap -> ((Number) keyMap.get("GENERATED_KEY")).longValue())
-                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.doron.shaul.nba.repository;
+
+import com.doron.shaul.nba.config.ReplicaRead;
+import com.doron.shaul.nba.model.ExportFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+
+/**
+ * Whole-season reads for exports. Rows are handed to the extractor straight off a forward-only cursor instead of
+ * being collected into a list, so memory stays constant whatever the season size.
+ */
+@Repository
+@ReplicaRead
+public class SeasonExportRepository {
+
+    // player_teams has a row per stint; without DISTINCT a player who rejoined a team would repeat every row
+    private static final String PLAYER_TEAMS = "(SELECT DISTINCT player_id, team_id, season_id FROM player_teams) pt ";
+
+    private static final String SELECT_LINES =
+            "SELECT pgs.stat_id, pgs.game_id, g.game_date, g.game_is_playoff AS playoff, pgs.player_id, pt.team_id, " +
+            "CASE pt.team_id WHEN g.home_team_id THEN 'home' WHEN g.away_team_id THEN 'away' END AS venue, " +
+            "pgs.stat_points AS points, pgs.stat_rebounds AS rebounds, pgs.stat_assists AS assists, " +
+            "pgs.stat_steals AS steals, pgs.stat_blocks AS blocks, pgs.stat_fouls AS fouls, " +
+            "pgs.stat_turnovers AS turnovers, pgs.stat_minutes_played AS minutes_played " +
+            "FROM player_game_stats pgs " +
+            "JOIN games g ON g.game_id = pgs.game_id " +
+            "LEFT JOIN " + PLAYER_TEAMS + "ON pt.player_id = pgs.player_id AND pt.season_id = g.season_id " +
+            "AND pt.team_id IN (g.home_team_id, g.away_team_id) ";
+
+    private static final String SELECT_ROLLUP_AVERAGES =
+            "SELECT pst.player_id, p.player_first_name, p.player_last_name, pt.team_id, t.team_name, " +
+            "pst.games_played, " +
+            "pst.total_points / pst.games_played AS avg_points, " +
+            "pst.total_rebounds / pst.games_played AS avg_rebounds, " +
+            "pst.total_assists / pst.games_played AS avg_assists, " +
+            "pst.total_steals / pst.games_played AS avg_steals, " +
+            "pst.total_blocks / pst.games_played AS avg_blocks, " +
+            "pst.total_fouls / pst.games_played AS avg_fouls, " +
+            "pst.total_turnovers / pst.games_played AS avg_turnovers, " +
+            "pst.total_minutes_played / pst.games_played AS avg_minutes_played " +
+            "FROM player_season_totals pst " +
+            "JOIN players p ON p.player_id = pst.player_id " +
+            "LEFT JOIN " + PLAYER_TEAMS + "ON pt.player_id = pst.player_id AND pt.season_id = pst.season_id " +
+            "LEFT JOIN teams t ON t.team_id = pt.team_id " +
+            "WHERE pst.season_id = :seasonId AND pst.games_played > 0 ";
+
+    private static final String SELECT_LINE_AVERAGES =
+            "SELECT pgs.player_id, p.player_first_name, p.player_last_name, pt.team_id, t.team_name, " +
+            "COUNT(*) AS games_played, " +
+            "AVG(pgs.stat_points) AS avg_points, " +
+            "AVG(pgs.stat_rebounds) AS avg_rebounds, " +
+            "AVG(pgs.stat_assists) AS avg_assists, " +
+            "AVG(pgs.stat_steals) AS avg_steals, " +
+            "AVG(pgs.stat_blocks) AS avg_blocks, " +
+            "AVG(pgs.stat_fouls) AS avg_fouls, " +
+            "AVG(pgs.stat_turnovers) AS avg_turnovers, " +
+            "AVG(pgs.stat_minutes_played) AS avg_minutes_played " +
+            "FROM player_game_stats pgs " +
+            "JOIN games g ON g.game_id = pgs.game_id " +
+            "JOIN players p ON p.player_id = pgs.player_id " +
+            "LEFT JOIN " + PLAYER_TEAMS + "ON pt.player_id = pgs.player_id AND pt.season_id = g.season_id " +
+            "AND pt.team_id IN (g.home_team_id, g.away_team_id) " +
+            "LEFT JOIN teams t ON t.team_id = pt.team_id ";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public SeasonExportRepository(DataSource dataSource, @Value("${nba.export.fetch-size:0}") int fetchSize) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        // Connector/J buffers the whole result for any positive fetch size unless the URL sets useCursorFetch=true;
+        // Integer.MIN_VALUE makes it stream rows off the socket instead
+        template.setFetchSize(fetchSize > 0 ? fetchSize : Integer.MIN_VALUE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    public <T> T streamGameLines(long seasonId, ExportFilter filter, ResultSetExtractor<T> extractor) {
+        MapSqlParameterSource params = new MapSqlParameterSource("seasonId", seasonId);
+        String sql = SELECT_LINES + "WHERE g.season_id = :seasonId " + gameConditions(filter, params) +
+                "ORDER BY pgs.stat_id";
+
+        return jdbcTemplate.query(sql, params, extractor);
+    }
+
+    /**
+     * Streams player averages. Without filters they come from the season rollups; otherwise they are aggregated from
+     * the matching game lines, so a team filter only counts the games a player played for that team.
+     */
+    public <T> T streamPlayerAverages(long seasonId, ExportFilter filter, ResultSetExtractor<T> extractor) {
+        MapSqlParameterSource params = new MapSqlParameterSource("seasonId", seasonId);
+
+        String sql;
+        if (filter.filtersGames()) {
+            sql = SELECT_LINE_AVERAGES + "WHERE g.season_id = :seasonId " + gameConditions(filter, params) +
+                    "GROUP BY pgs.player_id, p.player_first_name, p.player_last_name, pt.team_id, t.team_name " +
+                    "ORDER BY pgs.player_id";
+        } else {
+            sql = SELECT_ROLLUP_AVERAGES + "ORDER BY pst.player_id";
+        }
+
+        return jdbcTemplate.query(sql, params, extractor);
+    }
+
+    private static String gameConditions(ExportFilter filter, MapSqlParameterSource params) {
+        StringBuilder conditions = new StringBuilder(teamCondition(filter, params));
+        if (filter.getFrom() != null) {
+            conditions.append("AND g.game_date >= :from ");
+            params.addValue("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            conditions.append("AND g.game_date <= :to ");
+            params.addValue("to", filter.getTo());
+        }
+        if (filter.getPlayoff() != null) {
+            conditions.append("AND g.game_is_playoff = :playoff ");
+            params.addValue("playoff", filter.getPlayoff());
+        }
+        return conditions.toString();
+    }
+
+    private static String teamCondition(ExportFilter filter, MapSqlParameterSource params) {
+        if (filter.getTeamId() == null) {
+            return "";
+        }
+        params.addValue("teamId", filter.getTeamId());
+        return "AND pt.team_id = :teamId ";
+    }
+}
@@ -0,0 +1,128 @@
+package com.doron.shaul.nba.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class SeasonRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Optional<Long> findCurrentSeasonId() {
+        String sql = "SELECT season_id FROM seasons WHERE start_date <= CURRENT_DATE " +
+                "ORDER BY start_date DESC LIMIT 1";
+
+        return jdbcTemplate.queryForList(sql, EmptySqlParameterSource.INSTANCE, Long.class).stream().findFirst();
+    }
+
+    public boolean exists(long seasonId) {
+        String sql = "SELECT COUNT(*) FROM seasons WHERE season_id = :seasonId";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId);
+
+        Integer count = jdbcTemplate.queryForObject(sql, params, Integer.class);
+        return count != null && count > 0;
+    }
+
+    public boolean isClosed(long seasonId) {
+        String sql = "SELECT COUNT(*) FROM seasons WHERE season_id = :seasonId AND end_date IS NOT NULL " +
+                "AND end_date < CURRENT_DATE";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId);
+
+        Integer count = jdbcTemplate.queryForObject(sql, params, Integer.class);
+        return count != null && count > 0;
+    }
+
+    public List<Long> findSeasonIds() {
+        String sql = "SELECT season_id FROM seasons ORDER BY season_id";
+
+        return jdbcTemplate.queryForList(sql, EmptySqlParameterSource.INSTANCE, Long.class);
+    }
+
+    /**
+     * Reads the leaderboard epochs of the seasons under a shared lock held until the transaction ends, so a rebuild
+     * bumping one of them waits until the stat lines recorded under the old epoch have committed.
+     */
+    public Map<Long, Long> lockLeaderboardEpochs(Collection<Long> seasonIds) {
+        if (seasonIds.isEmpty()) {
+            return Map.of();
+        }
+
+        String sql = "SELECT season_id, leaderboard_epoch FROM seasons WHERE season_id IN (:seasonIds) FOR SHARE";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonIds", seasonIds);
+
+        Map<Long, Long> epochs = new HashMap<>();
+        jdbcTemplate.query(sql, params, rs -> {
+            epochs.put(rs.getLong("season_id"), rs.getLong("leaderboard_epoch"));
+        });
+        return epochs;
+    }
+
+    public long bumpLeaderboardEpoch(long seasonId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId);
+
+        jdbcTemplate.update("UPDATE seasons SET leaderboard_epoch = leaderboard_epoch + 1 WHERE season_id = :seasonId",
+                params);
+        Long epoch = jdbcTemplate.queryForObject("SELECT leaderboard_epoch FROM seasons WHERE season_id = :seasonId",
+                params, Long.class);
+        return epoch != null ? epoch : 0;
+    }
+
+    public List<Long> findClosedSeasonIds() {
+        String sql = "SELECT season_id FROM seasons WHERE end_date IS NOT NULL AND end_date < CURRENT_DATE " +
+                "ORDER BY season_id";
+
+        return jdbcTemplate.queryForList(sql, EmptySqlParameterSource.INSTANCE, Long.class);
+    }
+
+    public List<Long> findPlayerIds(long seasonId) {
+        String sql = "SELECT player_id FROM player_season_totals WHERE season_id = :seasonId AND games_played > 0 " +
+                "ORDER BY player_id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId);
+
+        return jdbcTemplate.queryForList(sql, params, Long.class);
+    }
+
+    public List<Long> findTeamIds(long seasonId) {
+        String sql = "SELECT team_id FROM team_season_totals WHERE season_id = :seasonId AND stat_lines > 0 " +
+                "ORDER BY team_id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId);
+
+        return jdbcTemplate.queryForList(sql, params, Long.class);
+    }
+
+    public List<Long> findRecentlyActivePlayerIds(long seasonId, int days, int limit) {
+        String sql = "SELECT pgs.player_id FROM player_game_stats pgs " +
+                "JOIN games g ON g.game_id = pgs.game_id " +
+                "WHERE g.season_id = :seasonId AND g.game_date >= " +
+                "(SELECT DATE_SUB(MAX(game_date), INTERVAL :days DAY) FROM games WHERE season_id = :seasonId) " +
+                "GROUP BY pgs.player_id ORDER BY MAX(g.game_date) DESC, pgs.player_id LIMIT :limit";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId)
+                .addValue("days", days)
+                .addValue("limit", limit);
+
+        return jdbcTemplate.queryForList(sql, params, Long.class);
+    }
+}
@@ -0,0 +1,161 @@
+package com.doron.shaul.nba.repository;
+
+import com.doron.shaul.nba.model.SeasonTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class SeasonRollupRepository {
+
+    private static final String STAT_ID_FILTER = "WHERE pgs.stat_id IN (:statIds)";
+
+    private static final String PLAYER_LINES =
+            "FROM player_game_stats pgs " +
+            "JOIN games g ON g.game_id = pgs.game_id ";
+
+    private static final String TEAM_LINES =
+            "FROM player_game_stats pgs " +
+            "JOIN games g ON g.game_id = pgs.game_id " +
+            "JOIN player_teams pt ON pt.player_id = pgs.player_id AND pt.season_id = g.season_id ";
+
+    private static final String SUMS =
+            "SUM(pgs.stat_points) AS d_points, SUM(pgs.stat_rebounds) AS d_rebounds, " +
+            "SUM(pgs.stat_assists) AS d_assists, SUM(pgs.stat_steals) AS d_steals, " +
+            "SUM(pgs.stat_blocks) AS d_blocks, SUM(pgs.stat_fouls) AS d_fouls, " +
+            "SUM(pgs.stat_turnovers) AS d_turnovers, SUM(pgs.stat_minutes_played) AS d_minutes_played, ";
+
+    private static final String ADD_SUMS =
+            "total_points = total_points + d_points, total_rebounds = total_rebounds + d_rebounds, " +
+            "total_assists = total_assists + d_assists, total_steals = total_steals + d_steals, " +
+            "total_blocks = total_blocks + d_blocks, total_fouls = total_fouls + d_fouls, " +
+            "total_turnovers = total_turnovers + d_turnovers, " +
+            "total_minutes_played = total_minutes_played + d_minutes_played";
+
+    private static final String TOTALS_COLUMNS =
+            "total_points, total_rebounds, total_assists, total_steals, total_blocks, total_fouls, " +
+            "total_turnovers, total_minutes_played";
+
+    private static final String TOTALS_AS_FIELDS =
+            "total_points AS points, total_rebounds AS rebounds, total_assists AS assists, " +
+            "total_steals AS steals, total_blocks AS blocks, total_fouls AS fouls, " +
+            "total_turnovers AS turnovers, total_minutes_played AS minutes_played, ";
+
+    private static final String RAW_SUMS_AS_FIELDS =
+            "SUM(pgs.stat_points) AS points, SUM(pgs.stat_rebounds) AS rebounds, " +
+            "SUM(pgs.stat_assists) AS assists, SUM(pgs.stat_steals) AS steals, " +
+            "SUM(pgs.stat_blocks) AS blocks, SUM(pgs.stat_fouls) AS fouls, " +
+            "SUM(pgs.stat_turnovers) AS turnovers, SUM(pgs.stat_minutes_played) AS minutes_played, ";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void applyStatLines(Collection<Long> statIds) {
+        if (statIds == null || statIds.isEmpty()) {
+            return;
+        }
+
+        apply(STAT_ID_FILTER, new MapSqlParameterSource().addValue("statIds", statIds));
+    }
+
+    public void rebuildFromRawRows() {
+        jdbcTemplate.update("DELETE FROM team_season_players", EmptySqlParameterSource.INSTANCE);
+        jdbcTemplate.update("DELETE FROM team_season_games", EmptySqlParameterSource.INSTANCE);
+        jdbcTemplate.update("DELETE FROM team_season_totals", EmptySqlParameterSource.INSTANCE);
+        jdbcTemplate.update("DELETE FROM player_season_totals", EmptySqlParameterSource.INSTANCE);
+
+        apply("", EmptySqlParameterSource.INSTANCE);
+    }
+
+    public List<SeasonTotals> findPlayerTotals() {
+        String sql = "SELECT player_id AS entity_id, season_id, " + TOTALS_AS_FIELDS +
+                "games_played FROM player_season_totals";
+
+        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(SeasonTotals.class));
+    }
+
+    public List<SeasonTotals> findPlayerTotals(long seasonId) {
+        String sql = "SELECT player_id AS entity_id, season_id, " + TOTALS_AS_FIELDS +
+                "games_played FROM player_season_totals WHERE season_id = :seasonId AND games_played > 0";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId);
+
+        return jdbcTemplate.query(sql, params, new BeanPropertyRowMapper<>(SeasonTotals.class));
+    }
+
+    public List<Long> findSeasonIds() {
+        String sql = "SELECT DISTINCT season_id FROM player_season_totals ORDER BY season_id";
+
+        return jdbcTemplate.queryForList(sql, EmptySqlParameterSource.INSTANCE, Long.class);
+    }
+
+    public List<SeasonTotals> findRawPlayerTotals() {
+        String sql = "SELECT pgs.player_id AS entity_id, g.season_id, " + RAW_SUMS_AS_FIELDS +
+                "COUNT(*) AS games_played " + PLAYER_LINES +
+                "GROUP BY pgs.player_id, g.season_id";
+
+        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(SeasonTotals.class));
+    }
+
+    public List<SeasonTotals> findTeamTotals() {
+        String sql = "SELECT team_id AS entity_id, season_id, " + TOTALS_AS_FIELDS +
+                "stat_lines, games_played, players_count FROM team_season_totals";
+
+        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(SeasonTotals.class));
+    }
+
+    public List<SeasonTotals> findRawTeamTotals() {
+        String sql = "SELECT pt.team_id AS entity_id, g.season_id, " + RAW_SUMS_AS_FIELDS +
+                "COUNT(*) AS stat_lines, COUNT(DISTINCT g.game_id) AS games_played, " +
+                "COUNT(DISTINCT pgs.player_id) AS players_count " + TEAM_LINES +
+                "GROUP BY pt.team_id, g.season_id";
+
+        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(SeasonTotals.class));
+    }
+
+    private void apply(String filter, SqlParameterSource params) {
+        String playerTotals = "INSERT INTO player_season_totals (player_id, season_id, " + TOTALS_COLUMNS +
+                ", games_played) " +
+                "SELECT * FROM (SELECT pgs.player_id AS d_player_id, g.season_id AS d_season_id, " + SUMS +
+                "COUNT(*) AS d_lines " + PLAYER_LINES + filter +
+                " GROUP BY pgs.player_id, g.season_id) AS delta " +
+                "ON DUPLICATE KEY UPDATE " + ADD_SUMS + ", games_played = games_played + d_lines";
+
+        String teamTotals = "INSERT INTO team_season_totals (team_id, season_id, " + TOTALS_COLUMNS +
+                ", stat_lines) " +
+                "SELECT * FROM (SELECT pt.team_id AS d_team_id, g.season_id AS d_season_id, " + SUMS +
+                "COUNT(*) AS d_lines " + TEAM_LINES + filter +
+                " GROUP BY pt.team_id, g.season_id) AS delta " +
+                "ON DUPLICATE KEY UPDATE " + ADD_SUMS + ", stat_lines = stat_lines + d_lines";
+
+        String teamGames = "INSERT INTO team_season_games (team_id, season_id, game_id) " +
+                "SELECT DISTINCT pt.team_id, g.season_id, g.game_id " + TEAM_LINES + filter +
+                " ON DUPLICATE KEY UPDATE team_season_games.game_id = team_season_games.game_id";
+
+        String teamPlayers = "INSERT INTO team_season_players (team_id, season_id, player_id) " +
+                "SELECT DISTINCT pt.team_id, g.season_id, pgs.player_id " + TEAM_LINES + filter +
+                " ON DUPLICATE KEY UPDATE team_season_players.player_id = team_season_players.player_id";
+
+        String teamCounts = "UPDATE team_season_totals tst " +
+                "JOIN (SELECT DISTINCT pt.team_id, g.season_id " + TEAM_LINES + filter + ") affected " +
+                "ON affected.team_id = tst.team_id AND affected.season_id = tst.season_id " +
+                "SET tst.games_played = (SELECT COUNT(*) FROM team_season_games tsg " +
+                "WHERE tsg.team_id = tst.team_id AND tsg.season_id = tst.season_id), " +
+                "tst.players_count = (SELECT COUNT(*) FROM team_season_players tsp " +
+                "WHERE tsp.team_id = tst.team_id AND tsp.season_id = tst.season_id)";
+
+        jdbcTemplate.update(playerTotals, params);
+        jdbcTemplate.update(teamTotals, params);
+        jdbcTemplate.update(teamGames, params);
+        jdbcTemplate.update(teamPlayers, params);
+        jdbcTemplate.update(teamCounts, params);
+    }
+}
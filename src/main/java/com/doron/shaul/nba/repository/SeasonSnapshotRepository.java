@@ -0,0 +1,52 @@
+package com.doron.shaul.nba.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class SeasonSnapshotRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void save(long seasonId, int formatVersion, int playersCount, int teamsCount, byte[] snapshot) {
+        String sql = "INSERT INTO season_snapshots (season_id, format_version, players_count, teams_count, snapshot) " +
+                "VALUES (:seasonId, :formatVersion, :playersCount, :teamsCount, :snapshot) " +
+                "ON DUPLICATE KEY UPDATE season_snapshots.format_version = :formatVersion, " +
+                "season_snapshots.players_count = :playersCount, season_snapshots.teams_count = :teamsCount, " +
+                "season_snapshots.snapshot = :snapshot, season_snapshots.created_at = CURRENT_TIMESTAMP";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId)
+                .addValue("formatVersion", formatVersion)
+                .addValue("playersCount", playersCount)
+                .addValue("teamsCount", teamsCount)
+                .addValue("snapshot", snapshot);
+
+        jdbcTemplate.update(sql, params);
+    }
+
+    public List<Long> findSeasonIds(int formatVersion) {
+        String sql = "SELECT season_id FROM season_snapshots WHERE format_version = :formatVersion " +
+                "ORDER BY season_id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("formatVersion", formatVersion);
+
+        return jdbcTemplate.queryForList(sql, params, Long.class);
+    }
+
+    public Optional<byte[]> findSnapshot(long seasonId) {
+        String sql = "SELECT snapshot FROM season_snapshots WHERE season_id = :seasonId";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seasonId", seasonId);
+
+        return jdbcTemplate.queryForList(sql, params, byte[].class).stream().findFirst();
+    }
+}
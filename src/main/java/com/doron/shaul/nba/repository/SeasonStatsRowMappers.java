@@ -0,0 +1,69 @@
+package com.doron.shaul.nba.repository;
+
+import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.TeamSeasonStats;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+final class SeasonStatsRowMappers {
+
+    static final RowMapper<PlayerSeasonStats> PLAYER = (rs, rowNum) -> {
+        PlayerSeasonStats stats = new PlayerSeasonStats();
+        stats.setPlayerId(getLong(rs, "player_id"));
+        stats.setFirstName(rs.getString("player_first_name"));
+        stats.setLastName(rs.getString("player_last_name"));
+        stats.setSeasonId(getLong(rs, "season_id"));
+        stats.setSeasonName(rs.getString("season_name"));
+        stats.setTeamId(getLong(rs, "team_id"));
+        stats.setTeamName(rs.getString("team_name"));
+        stats.setAvgPoints(getDouble(rs, "avg_points"));
+        stats.setAvgRebounds(getDouble(rs, "avg_rebounds"));
+        stats.setAvgAssists(getDouble(rs, "avg_assists"));
+        stats.setAvgSteals(getDouble(rs, "avg_steals"));
+        stats.setAvgBlocks(getDouble(rs, "avg_blocks"));
+        stats.setAvgFouls(getDouble(rs, "avg_fouls"));
+        stats.setAvgTurnovers(getDouble(rs, "avg_turnovers"));
+        stats.setAvgMinutesPlayed(getDouble(rs, "avg_minutes_played"));
+        stats.setGamesPlayed(getInt(rs, "games_played"));
+        return stats;
+    };
+
+    static final RowMapper<TeamSeasonStats> TEAM = (rs, rowNum) -> {
+        TeamSeasonStats stats = new TeamSeasonStats();
+        stats.setTeamId(getLong(rs, "team_id"));
+        stats.setTeamName(rs.getString("team_name"));
+        stats.setSeasonId(getLong(rs, "season_id"));
+        stats.setSeasonName(rs.getString("season_name"));
+        stats.setAvgPoints(getDouble(rs, "avg_points"));
+        stats.setAvgRebounds(getDouble(rs, "avg_rebounds"));
+        stats.setAvgAssists(getDouble(rs, "avg_assists"));
+        stats.setAvgSteals(getDouble(rs, "avg_steals"));
+        stats.setAvgBlocks(getDouble(rs, "avg_blocks"));
+        stats.setAvgFouls(getDouble(rs, "avg_fouls"));
+        stats.setAvgTurnovers(getDouble(rs, "avg_turnovers"));
+        stats.setAvgMinutesPlayed(getDouble(rs, "avg_minutes_played"));
+        stats.setGamesPlayed(getInt(rs, "games_played"));
+        stats.setPlayersCount(getInt(rs, "players_count"));
+        return stats;
+    };
+
+    private SeasonStatsRowMappers() {
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer getInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Double getDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,213 @@
+package com.doron.shaul.nba.repository;
+
+import com.doron.shaul.nba.model.SplitStats;
+import com.doron.shaul.nba.model.SplitTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class SplitRollupRepository {
+
+    private static final String PLAYER_LINES =
+            "FROM player_game_stats pgs " +
+            "JOIN games g ON g.game_id = pgs.game_id ";
+
+    // Only the teams that actually played the game: a player traded mid-season has a row per team
+    private static final String PLAYING_TEAM_LINES =
+            "FROM player_game_stats pgs " +
+            "JOIN games g ON g.game_id = pgs.game_id " +
+            "JOIN (SELECT DISTINCT player_id, team_id, season_id FROM player_teams) pt " +
+            "ON pt.player_id = pgs.player_id AND pt.season_id = g.season_id " +
+            "AND pt.team_id IN (g.home_team_id, g.away_team_id) ";
+
+    private static final String PHASE =
+            "CASE WHEN COALESCE(g.game_is_playoff, FALSE) THEN 'PLAYOFF' ELSE 'REGULAR' END";
+    private static final String VENUE = "CASE WHEN pt.team_id = g.home_team_id THEN 'HOME' ELSE 'AWAY' END";
+    private static final String OPPONENT =
+            "CASE WHEN pt.team_id = g.home_team_id THEN g.away_team_id ELSE g.home_team_id END";
+
+    private static final String RAW_SUMS =
+            "SUM(pgs.stat_points), SUM(pgs.stat_rebounds), SUM(pgs.stat_assists), SUM(pgs.stat_steals), " +
+            "SUM(pgs.stat_blocks), SUM(pgs.stat_fouls), SUM(pgs.stat_turnovers), SUM(pgs.stat_minutes_played), ";
+
+    private static final String DELTA =
+            "SELECT * FROM (SELECT :entityId AS d_entity_id, :seasonId AS d_season_id, :split AS d_split, " +
+            ":opponentTeamId AS d_opponent_team_id, :points AS d_points, :rebounds AS d_rebounds, " +
+            ":assists AS d_assists, :steals AS d_steals, :blocks AS d_blocks, :fouls AS d_fouls, " +
+            ":turnovers AS d_turnovers, :minutesPlayed AS d_minutes_played, :statLines AS d_lines) AS delta ";
+
+    private static final String ADD_SUMS =
+            "total_points = total_points + d_points, total_rebounds = total_rebounds + d_rebounds, " +
+            "total_assists = total_assists + d_assists, total_steals = total_steals + d_steals, " +
+            "total_blocks = total_blocks + d_blocks, total_fouls = total_fouls + d_fouls, " +
+            "total_turnovers = total_turnovers + d_turnovers, " +
+            "total_minutes_played = total_minutes_played + d_minutes_played";
+
+    private static final String TOTALS_COLUMNS =
+            "season_id, split, opponent_team_id, total_points, total_rebounds, total_assists, total_steals, " +
+            "total_blocks, total_fouls, total_turnovers, total_minutes_played";
+
+    private static final String PLAYER_TOTALS =
+            "player_split_totals (player_id, " + TOTALS_COLUMNS + ", games_played) ";
+    private static final String TEAM_TOTALS = "team_split_totals (team_id, " + TOTALS_COLUMNS + ", stat_lines) ";
+
+    // Games in team_season_games that belong to the split of the row being counted
+    private static final String TEAM_GAME_IN_SPLIT =
+            "CASE tst.split " +
+            "WHEN 'HOME' THEN g.home_team_id = tst.team_id " +
+            "WHEN 'AWAY' THEN g.away_team_id = tst.team_id " +
+            "WHEN 'PLAYOFF' THEN COALESCE(g.game_is_playoff, FALSE) " +
+            "AND tst.team_id IN (g.home_team_id, g.away_team_id) " +
+            "WHEN 'REGULAR' THEN NOT COALESCE(g.game_is_playoff, FALSE) " +
+            "AND tst.team_id IN (g.home_team_id, g.away_team_id) " +
+            "ELSE (g.home_team_id = tst.team_id AND g.away_team_id = tst.opponent_team_id) " +
+            "OR (g.away_team_id = tst.team_id AND g.home_team_id = tst.opponent_team_id) END";
+
+    private static final String TEAM_GAMES =
+            "UPDATE team_split_totals tst SET tst.games_played = (SELECT COUNT(*) FROM team_season_games tsg " +
+            "JOIN games g ON g.game_id = tsg.game_id " +
+            "WHERE tsg.team_id = tst.team_id AND tsg.season_id = tst.season_id AND " + TEAM_GAME_IN_SPLIT + ") ";
+
+    private static final String AVERAGES =
+            "total_points / %1$s AS avg_points, total_rebounds / %1$s AS avg_rebounds, " +
+            "total_assists / %1$s AS avg_assists, total_steals / %1$s AS avg_steals, " +
+            "total_blocks / %1$s AS avg_blocks, total_fouls / %1$s AS avg_fouls, " +
+            "total_turnovers / %1$s AS avg_turnovers, total_minutes_played / %1$s AS avg_minutes_played, ";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Teams each player is listed on, by season and player.
+     */
+    public Map<Long, Map<Long, Set<Long>>> findPlayerTeams(Collection<Long> playerIds, Collection<Long> seasonIds) {
+        if (playerIds.isEmpty() || seasonIds.isEmpty()) {
+            return Map.of();
+        }
+
+        String sql = "SELECT DISTINCT player_id, team_id, season_id FROM player_teams " +
+                "WHERE player_id IN (:playerIds) AND season_id IN (:seasonIds)";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("playerIds", playerIds)
+                .addValue("seasonIds", seasonIds);
+
+        Map<Long, Map<Long, Set<Long>>> teams = new HashMap<>();
+        jdbcTemplate.query(sql, params, rs -> {
+            teams.computeIfAbsent(rs.getLong("season_id"), id -> new HashMap<>())
+                    .computeIfAbsent(rs.getLong("player_id"), id -> new HashSet<>())
+                    .add(rs.getLong("team_id"));
+        });
+        return teams;
+    }
+
+    public void addPlayerTotals(Collection<SplitTotals> totals) {
+        if (totals.isEmpty()) {
+            return;
+        }
+
+        String sql = "INSERT INTO " + PLAYER_TOTALS + DELTA +
+                "ON DUPLICATE KEY UPDATE " + ADD_SUMS + ", games_played = games_played + d_lines";
+
+        jdbcTemplate.batchUpdate(sql, toBatchParams(totals));
+    }
+
+    /**
+     * Adds the team totals and recounts the games behind every split of the affected teams, which must already be
+     * recorded in {@code team_season_games}.
+     */
+    public void addTeamTotals(Collection<SplitTotals> totals) {
+        if (totals.isEmpty()) {
+            return;
+        }
+
+        String sql = "INSERT INTO " + TEAM_TOTALS + DELTA +
+                "ON DUPLICATE KEY UPDATE " + ADD_SUMS + ", stat_lines = stat_lines + d_lines";
+
+        jdbcTemplate.batchUpdate(sql, toBatchParams(totals));
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("teamIds", totals.stream().map(SplitTotals::getEntityId).distinct().toList())
+                .addValue("seasonIds", totals.stream().map(SplitTotals::getSeasonId).distinct().toList());
+
+        jdbcTemplate.update(TEAM_GAMES + "WHERE tst.team_id IN (:teamIds) AND tst.season_id IN (:seasonIds)", params);
+    }
+
+    public void rebuildFromRawRows() {
+        jdbcTemplate.update("DELETE FROM player_split_totals", EmptySqlParameterSource.INSTANCE);
+        jdbcTemplate.update("DELETE FROM team_split_totals", EmptySqlParameterSource.INSTANCE);
+
+        rebuild(PLAYER_TOTALS, "pgs.player_id", PHASE, "0", PLAYER_LINES);
+        rebuild(PLAYER_TOTALS, "pgs.player_id", VENUE, "0", PLAYING_TEAM_LINES);
+        rebuild(PLAYER_TOTALS, "pgs.player_id", "'OPPONENT'", OPPONENT, PLAYING_TEAM_LINES);
+
+        rebuild(TEAM_TOTALS, "pt.team_id", PHASE, "0", PLAYING_TEAM_LINES);
+        rebuild(TEAM_TOTALS, "pt.team_id", VENUE, "0", PLAYING_TEAM_LINES);
+        rebuild(TEAM_TOTALS, "pt.team_id", "'OPPONENT'", OPPONENT, PLAYING_TEAM_LINES);
+
+        jdbcTemplate.update(TEAM_GAMES, EmptySqlParameterSource.INSTANCE);
+    }
+
+    public List<SplitStats> findPlayerSplits(long playerId, long seasonId) {
+        String sql = "SELECT player_id, season_id, split, NULLIF(opponent_team_id, 0) AS opponent_team_id, " +
+                AVERAGES.formatted("games_played") + "games_played FROM player_split_totals " +
+                "WHERE player_id = :entityId AND season_id = :seasonId AND games_played > 0 " +
+                "ORDER BY split, opponent_team_id";
+
+        return jdbcTemplate.query(sql, entitySeason(playerId, seasonId), new BeanPropertyRowMapper<>(SplitStats.class));
+    }
+
+    public List<SplitStats> findTeamSplits(long teamId, long seasonId) {
+        String sql = "SELECT team_id, season_id, split, NULLIF(opponent_team_id, 0) AS opponent_team_id, " +
+                AVERAGES.formatted("stat_lines") + "games_played FROM team_split_totals " +
+                "WHERE team_id = :entityId AND season_id = :seasonId AND stat_lines > 0 " +
+                "ORDER BY split, opponent_team_id";
+
+        return jdbcTemplate.query(sql, entitySeason(teamId, seasonId), new BeanPropertyRowMapper<>(SplitStats.class));
+    }
+
+    private void rebuild(String target, String entity, String split, String opponent, String lines) {
+        String sql = "INSERT INTO " + target +
+                "SELECT " + entity + ", g.season_id, " + split + ", " + opponent + ", " + RAW_SUMS + "COUNT(*) " +
+                lines + "GROUP BY 1, 2, 3, 4";
+
+        jdbcTemplate.update(sql, EmptySqlParameterSource.INSTANCE);
+    }
+
+    private static MapSqlParameterSource entitySeason(long entityId, long seasonId) {
+        return new MapSqlParameterSource()
+                .addValue("entityId", entityId)
+                .addValue("seasonId", seasonId);
+    }
+
+    private static SqlParameterSource[] toBatchParams(Collection<SplitTotals> totals) {
+        return totals.stream()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("entityId", row.getEntityId())
+                        .addValue("seasonId", row.getSeasonId())
+                        .addValue("split", row.getSplit().name())
+                        .addValue("opponentTeamId", row.getOpponentTeamId())
+                        .addValue("points", row.getPoints())
+                        .addValue("rebounds", row.getRebounds())
+                        .addValue("assists", row.getAssists())
+                        .addValue("steals", row.getSteals())
+                        .addValue("blocks", row.getBlocks())
+                        .addValue("fouls", row.getFouls())
+                        .addValue("turnovers", row.getTurnovers())
+                        .addValue("minutesPlayed", row.getMinutesPlayed())
+                        .addValue("statLines", row.getStatLines()))
+                .toArray(SqlParameterSource[]::new);
+    }
+}
@@ -1,40 +1,104 @@
 package com.doron.shaul.nba.repository;
 
+import com.doron.shaul.nba.config.ReplicaRead;
 import com.doron.shaul.nba.model.PlayerSeasonStats;
 import com.doron.shaul.nba.model.TeamSeasonStats;
 import lombok.RequiredArgsConstructor;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
+// Fills the generation-keyed averages caches; StatsService keeps loads of recently bumped keys on the primary
 @Repository
+@ReplicaRead
 @RequiredArgsConstructor
 public class StatsAggregationRepository {
 
+    private static final String PLAYER_AVERAGES =
+            "pst.total_points / pst.games_played AS avg_points, " +
+            "pst.total_rebounds / pst.games_played AS avg_rebounds, " +
+            "pst.total_assists / pst.games_played AS avg_assists, " +
+            "pst.total_steals / pst.games_played AS avg_steals, " +
+            "pst.total_blocks / pst.games_played AS avg_blocks, " +
+            "pst.total_fouls / pst.games_played AS avg_fouls, " +
+            "pst.total_turnovers / pst.games_played AS avg_turnovers, " +
+            "pst.total_minutes_played / pst.games_played AS avg_minutes_played, " +
+            "pst.games_played ";
+
+    private static final String TEAM_AVERAGES =
+            "tst.total_points / tst.stat_lines AS avg_points, " +
+            "tst.total_rebounds / tst.stat_lines AS avg_rebounds, " +
+            "tst.total_assists / tst.stat_lines AS avg_assists, " +
+            "tst.total_steals / tst.stat_lines AS avg_steals, " +
+            "tst.total_blocks / tst.stat_lines AS avg_blocks, " +
+            "tst.total_fouls / tst.stat_lines AS avg_fouls, " +
+            "tst.total_turnovers / tst.stat_lines AS avg_turnovers, " +
+            "tst.total_minutes_played / tst.stat_lines AS avg_minutes_played, " +
+            "tst.games_played, tst.players_count ";
+
+    private static final String PLAYER_SELECT =
+            "SELECT p.player_id, p.player_first_name, p.player_last_name, s.season_id, s.season_name, " +
+            "t.team_id, t.team_name, " + PLAYER_AVERAGES +
+            "FROM player_season_totals pst " +
+            "JOIN players p ON p.player_id = pst.player_id " +
+            "JOIN seasons s ON s.season_id = pst.season_id " +
+            "JOIN player_teams pt ON pt.player_id = pst.player_id AND pt.season_id = pst.season_id " +
+            "JOIN teams t ON t.team_id = pt.team_id ";
+
+    private static final String TEAM_SELECT =
+            "SELECT t.team_id, t.team_name, s.season_id, s.season_name, " + TEAM_AVERAGES +
+            "FROM team_season_totals tst " +
+            "JOIN teams t ON t.team_id = tst.team_id " +
+            "JOIN seasons s ON s.season_id = tst.season_id ";
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
 
     public PlayerSeasonStats getPlayerSeasonStats(long playerId, long seasonId) {
-        String sql = "SELECT * FROM player_season_averages WHERE player_id = :playerId AND season_id = :seasonId";
+        String sql = PLAYER_SELECT +
+                "WHERE pst.player_id = :playerId AND pst.season_id = :seasonId AND pst.games_played > 0";
 
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("playerId", playerId)
                 .addValue("seasonId", seasonId);
 
-        return jdbcTemplate.queryForObject(sql, params,
-                new BeanPropertyRowMapper<>(PlayerSeasonStats.class));
+        return jdbcTemplate.queryForObject(sql, params, SeasonStatsRowMappers.PLAYER);
     }
 
     public List<TeamSeasonStats> getTeamSeasonStats(long teamId, long seasonId) {
-        String sql = "SELECT * FROM team_season_averages WHERE team_id = :teamId AND season_id = :seasonId";
+        String sql = TEAM_SELECT +
+                "WHERE tst.team_id = :teamId AND tst.season_id = :seasonId AND tst.stat_lines > 0";
 
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("teamId", teamId)
                 .addValue("seasonId", seasonId);
 
-        return jdbcTemplate.query(sql, params,
-                new BeanPropertyRowMapper<>(TeamSeasonStats.class));
+        return jdbcTemplate.query(sql, params, SeasonStatsRowMappers.TEAM);
+    }
+
+    public List<PlayerSeasonStats> getPlayerSeasonStats(Collection<Long> playerIds, long seasonId) {
+        String sql = PLAYER_SELECT +
+                "WHERE pst.player_id IN (:playerIds) AND pst.season_id = :seasonId AND pst.games_played > 0 " +
+                "ORDER BY pst.player_id, t.team_id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("playerIds", playerIds)
+                .addValue("seasonId", seasonId);
+
+        return jdbcTemplate.query(sql, params, SeasonStatsRowMappers.PLAYER);
+    }
+
+    public List<TeamSeasonStats> getTeamSeasonStats(Collection<Long> teamIds, long seasonId) {
+        String sql = TEAM_SELECT +
+                "WHERE tst.team_id IN (:teamIds) AND tst.season_id = :seasonId AND tst.stat_lines > 0 " +
+                "ORDER BY tst.team_id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("teamIds", teamIds)
+                .addValue("seasonId", seasonId);
+
+        return jdbcTemplate.query(sql, params, SeasonStatsRowMappers.TEAM);
     }
 }
\ No newline at end of file
@@ -0,0 +1,268 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+import com.doron.shaul.nba.exception.SeasonFrozenException;
+import com.doron.shaul.nba.model.BulkIngestionError;
+import com.doron.shaul.nba.model.BulkIngestionResult;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class BulkIngestionService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final String[] CSV_COLUMNS = {"gameId", "playerId", "points", "rebounds", "assists",
+            "steals", "blocks", "fouls", "turnovers", "minutesPlayed"};
+
+    private final StatsService statsService;
+    private final Validator validator;
+    private final ObjectReader statsReader;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+
+    public BulkIngestionService(StatsService statsService,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                @Value("${nba.ingest.bulk.chunk-size:5000}") int chunkSize,
+                                @Value("${nba.ingest.bulk.max-reported-errors:1000}") int maxReportedErrors,
+                                @Value("${nba.ingest.bulk.max-retries:3}") int maxRetries,
+                                @Value("${nba.ingest.bulk.retry-backoff:200ms}") Duration retryBackoff) {
+        this.statsService = statsService;
+        this.validator = validator;
+        this.statsReader = objectMapper.readerFor(PlayerGameStats.class);
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+    }
+
+    public BulkIngestionResult ingest(InputStream body, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        BulkIngestionResult result = new BulkIngestionResult();
+
+        List<PlayerGameStats> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Map<String, Integer> csvHeader = format == Format.CSV ? readCsvHeader(reader.readLine()) : null;
+            long lineNumber = format == Format.CSV ? 1 : 0;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.setRowsRead(result.getRowsRead() + 1);
+
+                PlayerGameStats stats;
+                try {
+                    stats = format == Format.CSV ? parseCsv(line, csvHeader) : statsReader.readValue(line);
+                } catch (IOException | IllegalArgumentException ex) {
+                    reject(result, lineNumber, "Malformed row: " + ex.getMessage());
+                    continue;
+                }
+
+                Set<ConstraintViolation<PlayerGameStats>> violations = validator.validate(stats);
+                if (!violations.isEmpty()) {
+                    reject(result, lineNumber, violations.stream()
+                            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining(", ")));
+                    continue;
+                }
+
+                chunk.add(stats);
+                chunkLines.add(lineNumber);
+
+                if (chunk.size() >= chunkSize) {
+                    commitChunk(chunk, chunkLines, result);
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            commitChunk(chunk, chunkLines, result);
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info("Bulk ingestion finished: {} rows read, {} recorded, {} rejected in {} chunks ({} ms)",
+                result.getRowsRead(), result.getRowsRecorded(), result.getRowsRejected(),
+                result.getChunksCommitted(), result.getElapsedMillis());
+
+        return result;
+    }
+
+    private void commitChunk(List<PlayerGameStats> chunk, List<Long> chunkLines, BulkIngestionResult result) {
+        try {
+            record(chunk, chunkLines.get(0));
+            result.setRowsRecorded(result.getRowsRecorded() + chunk.size());
+            result.setChunksCommitted(result.getChunksCommitted() + 1);
+        } catch (DataAccessException ex) {
+            if (!isRowError(ex)) {
+                throw abort(ex, chunkLines.get(0), result);
+            }
+            log.warn("Bulk chunk of {} rows failed ({}), retrying row by row", chunk.size(), ex.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    record(List.of(chunk.get(i)), chunkLines.get(i));
+                    result.setRowsRecorded(result.getRowsRecorded() + 1);
+                } catch (DataAccessException rowEx) {
+                    if (!isRowError(rowEx)) {
+                        throw abort(rowEx, chunkLines.get(i), result);
+                    }
+                    reject(result, chunkLines.get(i), rowEx.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    /**
+     * Records the stat lines in one transaction, retrying deadlocks, lock and query timeouts and other transient
+     * failures with exponential backoff before giving up.
+     */
+    private void record(List<PlayerGameStats> stats, long firstLine) {
+        Duration backoff = retryBackoff;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                statsService.recordPlayerStats(stats);
+                return;
+            } catch (TransientDataAccessException | RecoverableDataAccessException ex) {
+                if (attempt > maxRetries) {
+                    throw ex;
+                }
+                log.warn("Bulk rows from line {} failed transiently ({}), retry {} of {} in {} ms", firstLine,
+                        ex.getMessage(), attempt, maxRetries, backoff.toMillis());
+                if (!sleep(backoff)) {
+                    throw ex;
+                }
+                backoff = backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    private static DataAccessException abort(DataAccessException ex, long line, BulkIngestionResult result) {
+        // Earlier chunks stay committed; the stream can be resubmitted from this line
+        log.error("Bulk ingestion aborted at line {} after {} rows recorded: {}", line, result.getRowsRecorded(),
+                ex.getMessage());
+        return ex;
+    }
+
+    /**
+     * Failures caused by the rows themselves, which a row-by-row retry can narrow down; anything else would fail
+     * every row the same way.
+     */
+    private static boolean isRowError(DataAccessException ex) {
+        return ex instanceof DataIntegrityViolationException
+                || ex instanceof BadSqlGrammarException
+                || ex instanceof SeasonFrozenException
+                || ex instanceof EmptyResultDataAccessException;
+    }
+
+    private static boolean sleep(Duration backoff) {
+        try {
+            Thread.sleep(backoff.toMillis());
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(BulkIngestionResult result, long lineNumber, String message) {
+        result.setRowsRejected(result.getRowsRejected() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new BulkIngestionError(lineNumber, message));
+        }
+    }
+
+    private Map<String, Integer> readCsvHeader(String headerLine) {
+        if (headerLine == null) {
+            return Map.of();
+        }
+
+        Map<String, Integer> header = new HashMap<>();
+        String[] names = headerLine.split(",");
+        for (int i = 0; i < names.length; i++) {
+            header.put(names[i].trim(), i);
+        }
+
+        for (String column : CSV_COLUMNS) {
+            if (!header.containsKey(column)) {
+                throw new InvalidPayloadException("CSV header is missing column " + column);
+            }
+        }
+
+        return header;
+    }
+
+    private PlayerGameStats parseCsv(String line, Map<String, Integer> header) {
+        String[] values = line.split(",", -1);
+
+        PlayerGameStats stats = new PlayerGameStats();
+        stats.setGameId(parseLong(values, header.get("gameId")));
+        stats.setPlayerId(parseLong(values, header.get("playerId")));
+        stats.setPoints(parseInt(values, header.get("points")));
+        stats.setRebounds(parseInt(values, header.get("rebounds")));
+        stats.setAssists(parseInt(values, header.get("assists")));
+        stats.setSteals(parseInt(values, header.get("steals")));
+        stats.setBlocks(parseInt(values, header.get("blocks")));
+        stats.setFouls(parseInt(values, header.get("fouls")));
+        stats.setTurnovers(parseInt(values, header.get("turnovers")));
+
+        String minutes = value(values, header.get("minutesPlayed"));
+        stats.setMinutesPlayed(minutes != null ? Double.valueOf(minutes) : null);
+
+        return stats;
+    }
+
+    private Long parseLong(String[] values, int index) {
+        String value = value(values, index);
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    private Integer parseInt(String[] values, int index) {
+        String value = value(values, index);
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    private String value(String[] values, int index) {
+        if (index >= values.length) {
+            return null;
+        }
+        String value = values[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,263 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.model.CacheWarmupStatus;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class CacheWarmupService implements ApplicationRunner {
+
+    private final StatsService statsService;
+    private final SeasonRepository seasonRepository;
+    private final boolean enabled;
+    private final Duration readinessBudget;
+    private final int recentDays;
+    private final int maxPlayers;
+    private final int batchSize;
+    private final long minBatchIntervalNanos;
+    private final boolean refreshAfterIngest;
+    private final Duration refreshDelay;
+
+    private final ScheduledExecutorService executor;
+    private final Map<Long, Set<Long>> pendingPlayers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> pendingTeams = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final CacheWarmupStatus status = new CacheWarmupStatus();
+
+    private final Counter startupKeys;
+    private final Counter refreshedKeys;
+
+    private long lastBatchAt;
+
+    public CacheWarmupService(StatsService statsService,
+                              SeasonRepository seasonRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${nba.cache.warmup.enabled:true}") boolean enabled,
+                              @Value("${nba.cache.warmup.readiness-budget:10s}") Duration readinessBudget,
+                              @Value("${nba.cache.warmup.recent-days:14}") int recentDays,
+                              @Value("${nba.cache.warmup.max-players:2000}") int maxPlayers,
+                              @Value("${nba.cache.warmup.batch-size:200}") int batchSize,
+                              @Value("${nba.cache.warmup.max-batches-per-second:10}") int maxBatchesPerSecond,
+                              @Value("${nba.cache.warmup.refresh-after-ingest:true}") boolean refreshAfterIngest,
+                              @Value("${nba.cache.warmup.refresh-delay:250ms}") Duration refreshDelay) {
+        this.statsService = statsService;
+        this.seasonRepository = seasonRepository;
+        this.enabled = enabled;
+        this.readinessBudget = readinessBudget;
+        this.recentDays = recentDays;
+        this.maxPlayers = maxPlayers;
+        this.batchSize = batchSize;
+        this.minBatchIntervalNanos = maxBatchesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxBatchesPerSecond : 0;
+        this.refreshAfterIngest = refreshAfterIngest;
+        this.refreshDelay = refreshDelay;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.startupKeys = meterRegistry.counter("nba.cache.warmup.keys", "phase", "startup");
+        this.refreshedKeys = meterRegistry.counter("nba.cache.warmup.keys", "phase", "refresh");
+        meterRegistry.gauge("nba.cache.warmup.pending", this, service -> service.pendingRefreshes());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        Future<?> warmup = executor.submit(() -> warmUp(null));
+        try {
+            warmup.get(readinessBudget.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            log.info("Cache warm-up exceeded the {} readiness budget, continuing in the background", readinessBudget);
+        } catch (ExecutionException ex) {
+            log.warn("Cache warm-up failed: {}", ex.getCause().getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public CacheWarmupStatus trigger(Long seasonId) {
+        executor.submit(() -> warmUp(seasonId));
+        return getStatus();
+    }
+
+    public CacheWarmupStatus getStatus() {
+        synchronized (status) {
+            CacheWarmupStatus copy = new CacheWarmupStatus();
+            copy.setState(status.getState());
+            copy.setSeasonId(status.getSeasonId());
+            copy.setStartedAt(status.getStartedAt());
+            copy.setFinishedAt(status.getFinishedAt());
+            copy.setTeamsWarmed(status.getTeamsWarmed());
+            copy.setPlayersWarmed(status.getPlayersWarmed());
+            copy.setKeysRefreshed(status.getKeysRefreshed());
+            copy.setLastError(status.getLastError());
+            copy.setRefreshesPending(pendingRefreshes());
+            return copy;
+        }
+    }
+
+    @TransactionalEventListener
+    public void onStatsRecorded(StatsRecordedEvent event) {
+        if (!refreshAfterIngest) {
+            return;
+        }
+
+        event.statsBySeasonId().forEach((seasonId, lines) -> enqueue(pendingPlayers, seasonId,
+                lines.stream().map(PlayerGameStats::getPlayerId).collect(Collectors.toSet())));
+        event.getTeamIdsBySeasonId().forEach((seasonId, teamIds) -> enqueue(pendingTeams, seasonId, teamIds));
+
+        if (refreshScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::drainRefreshes, refreshDelay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void warmUp(Long requestedSeasonId) {
+        Long seasonId = requestedSeasonId != null
+                ? requestedSeasonId
+                : seasonRepository.findCurrentSeasonId().orElse(null);
+        if (seasonId == null) {
+            log.info("No current season found, skipping cache warm-up");
+            return;
+        }
+
+        updateStatus(current -> {
+            current.setState(CacheWarmupStatus.State.RUNNING);
+            current.setSeasonId(seasonId);
+            current.setStartedAt(Instant.now());
+            current.setFinishedAt(null);
+            current.setTeamsWarmed(0);
+            current.setPlayersWarmed(0);
+            current.setLastError(null);
+        });
+
+        try {
+            List<Long> teamIds = seasonRepository.findTeamIds(seasonId);
+            inBatches(teamIds, seasonId, (batch, season) -> {
+                statsService.getTeamSeasonStats(batch, season);
+                startupKeys.increment(batch.size());
+                updateStatus(current -> current.setTeamsWarmed(current.getTeamsWarmed() + batch.size()));
+            });
+
+            List<Long> playerIds = seasonRepository.findRecentlyActivePlayerIds(seasonId, recentDays, maxPlayers);
+            inBatches(playerIds, seasonId, (batch, season) -> {
+                statsService.getPlayerSeasonStats(batch, season);
+                startupKeys.increment(batch.size());
+                updateStatus(current -> current.setPlayersWarmed(current.getPlayersWarmed() + batch.size()));
+            });
+
+            updateStatus(current -> {
+                current.setState(CacheWarmupStatus.State.COMPLETED);
+                current.setFinishedAt(Instant.now());
+            });
+            log.info("Warmed season {} caches: {} teams, {} players", seasonId, teamIds.size(), playerIds.size());
+        } catch (RuntimeException ex) {
+            updateStatus(current -> {
+                current.setState(CacheWarmupStatus.State.FAILED);
+                current.setFinishedAt(Instant.now());
+                current.setLastError(ex.getMessage());
+            });
+            throw ex;
+        }
+    }
+
+    private void drainRefreshes() {
+        refreshScheduled.set(false);
+        try {
+            drain(pendingTeams, statsService::getTeamSeasonStats);
+            drain(pendingPlayers, statsService::getPlayerSeasonStats);
+        } catch (RuntimeException ex) {
+            log.warn("Cache refresh after ingestion failed: {}", ex.getMessage());
+            updateStatus(current -> current.setLastError(ex.getMessage()));
+        }
+    }
+
+    private void drain(Map<Long, Set<Long>> pending, BiConsumer<List<Long>, Long> loader) {
+        for (Long seasonId : new ArrayList<>(pending.keySet())) {
+            Set<Long> ids = pending.remove(seasonId);
+            if (ids == null) {
+                continue;
+            }
+            inBatches(new ArrayList<>(ids), seasonId, (batch, season) -> {
+                loader.accept(batch, season);
+                refreshedKeys.increment(batch.size());
+                updateStatus(current -> current.setKeysRefreshed(current.getKeysRefreshed() + batch.size()));
+            });
+        }
+    }
+
+    private void inBatches(List<Long> ids, long seasonId, BiConsumer<List<Long>, Long> batchLoader) {
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            pace();
+            batchLoader.accept(ids.subList(from, Math.min(from + batchSize, ids.size())), seasonId);
+        }
+    }
+
+    private void pace() {
+        long wait = lastBatchAt + minBatchIntervalNanos - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Cache warm-up interrupted", ex);
+            }
+        }
+        lastBatchAt = System.nanoTime();
+    }
+
+    private void enqueue(Map<Long, Set<Long>> pending, Long seasonId, Set<Long> ids) {
+        pending.merge(seasonId, new HashSet<>(ids), (queued, added) -> {
+            queued.addAll(added);
+            return queued;
+        });
+    }
+
+    private long pendingRefreshes() {
+        return pendingPlayers.values().stream().mapToLong(Set::size).sum()
+                + pendingTeams.values().stream().mapToLong(Set::size).sum();
+    }
+
+    private void updateStatus(Consumer<CacheWarmupStatus> update) {
+        synchronized (status) {
+            update.accept(status);
+        }
+    }
+}
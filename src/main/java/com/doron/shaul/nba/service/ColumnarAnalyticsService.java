@@ -0,0 +1,195 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.analytics.ColumnarQueryEngine;
+import com.doron.shaul.nba.analytics.SeasonColumnStore;
+import com.doron.shaul.nba.config.InstanceIdentity;
+import com.doron.shaul.nba.model.AnalyticsQuery;
+import com.doron.shaul.nba.model.AnalyticsRow;
+import com.doron.shaul.nba.model.GameLine;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.repository.GameLineRepository;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "nba.analytics.columnar.enabled", havingValue = "true")
+public class ColumnarAnalyticsService implements MessageListener {
+
+    public static final String CHANNEL = "nba:stats-recorded";
+
+    private static final String SEPARATOR = "\n";
+
+    private final GameLineRepository gameLineRepository;
+    private final SeasonRepository seasonRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final InstanceIdentity instanceIdentity;
+    private final List<Long> preloadSeasons;
+    private final ForkJoinPool pool;
+    private final ColumnarQueryEngine engine;
+    private final Timer queryTimer;
+
+    private final Cache<Long, SeasonColumnStore> stores;
+    private final Map<Long, SeasonColumnStore> loading = new ConcurrentHashMap<>();
+    private final Map<Long, Object> loadLocks = new ConcurrentHashMap<>();
+
+    public ColumnarAnalyticsService(GameLineRepository gameLineRepository,
+                                    SeasonRepository seasonRepository,
+                                    StringRedisTemplate redisTemplate,
+                                    InstanceIdentity instanceIdentity,
+                                    RedisMessageListenerContainer listenerContainer,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${nba.analytics.columnar.preload-seasons:}") List<Long> preloadSeasons,
+                                    @Value("${nba.analytics.columnar.parallelism:0}") int parallelism,
+                                    @Value("${nba.analytics.columnar.leaf-rows:16384}") int leafRows,
+                                    @Value("${nba.analytics.columnar.max-seasons:4}") long maxSeasons) {
+        this.gameLineRepository = gameLineRepository;
+        this.seasonRepository = seasonRepository;
+        this.redisTemplate = redisTemplate;
+        this.instanceIdentity = instanceIdentity;
+        this.preloadSeasons = preloadSeasons;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.engine = new ColumnarQueryEngine(pool, leafRows);
+        this.queryTimer = Timer.builder("nba.analytics.columnar.query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.stores = Caffeine.newBuilder()
+                .maximumSize(maxSeasons)
+                .removalListener((Long seasonId, SeasonColumnStore store, RemovalCause cause) -> {
+                    if (cause.wasEvicted() && store != null) {
+                        log.info("Dropped season {} ({} game lines) from the columnar store", seasonId, store.size());
+                    }
+                })
+                .build();
+
+        meterRegistry.gaugeMapSize("nba.analytics.columnar.seasons", List.of(), stores.asMap());
+        meterRegistry.gauge("nba.analytics.columnar.rows", stores.asMap(),
+                loaded -> loaded.values().stream().mapToInt(SeasonColumnStore::size).sum());
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        preloadSeasons.forEach(this::season);
+    }
+
+    public List<AnalyticsRow> query(long seasonId, AnalyticsQuery query) {
+        SeasonColumnStore.Snapshot snapshot = season(seasonId).snapshot();
+        return queryTimer.record(() -> engine.execute(snapshot, query));
+    }
+
+    @TransactionalEventListener
+    public void onStatsRecorded(StatsRecordedEvent event) {
+        List<Long> statIds = event.getStats().stream()
+                .map(PlayerGameStats::getStatId)
+                .toList();
+
+        try {
+            if (event.getSeasonIdsByGameId().values().stream().anyMatch(this::isTracked)) {
+                append(gameLineRepository.findByStatIds(statIds));
+            }
+            redisTemplate.convertAndSend(CHANNEL, instanceIdentity.getId() + SEPARATOR +
+                    statIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to feed {} stat lines to the columnar store: {}", statIds.size(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 2);
+        if (parts.length < 2 || instanceIdentity.isSelf(parts[0])
+                || (stores.asMap().isEmpty() && loading.isEmpty())) {
+            return;
+        }
+
+        List<Long> statIds = Arrays.stream(parts[1].split(","))
+                .filter(id -> !id.isBlank())
+                .map(Long::valueOf)
+                .toList();
+        try {
+            append(gameLineRepository.findByStatIds(statIds));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to apply {} remote stat lines to the columnar store: {}", statIds.size(), ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private SeasonColumnStore season(long seasonId) {
+        SeasonColumnStore store = stores.getIfPresent(seasonId);
+        if (store != null) {
+            return store;
+        }
+        if (!seasonRepository.exists(seasonId)) {
+            throw new EmptyResultDataAccessException(1);
+        }
+
+        // Only loads of the same season wait for each other
+        synchronized (loadLocks.computeIfAbsent(seasonId, id -> new Object())) {
+            store = stores.getIfPresent(seasonId);
+            if (store != null) {
+                return store;
+            }
+
+            // Lines committed while the season loads are appended to the loading store; the
+            // store drops stat ids it already holds, so overlap with the full load is harmless.
+            long start = System.currentTimeMillis();
+            store = new SeasonColumnStore(seasonId, gameLineRepository.countBySeasonId(seasonId));
+            loading.put(seasonId, store);
+            try {
+                store.append(gameLineRepository.findBySeasonId(seasonId));
+                stores.put(seasonId, store);
+            } finally {
+                loading.remove(seasonId);
+            }
+            log.info("Loaded {} game lines for season {} into the columnar store ({} ms)",
+                    store.size(), seasonId, System.currentTimeMillis() - start);
+            return store;
+        }
+    }
+
+    private boolean isTracked(long seasonId) {
+        return stores.asMap().containsKey(seasonId) || loading.containsKey(seasonId);
+    }
+
+    private void append(List<GameLine> lines) {
+        lines.stream()
+                .collect(Collectors.groupingBy(GameLine::getSeasonId))
+                .forEach((seasonId, seasonLines) -> {
+                    SeasonColumnStore store = stores.asMap().getOrDefault(seasonId, loading.get(seasonId));
+                    if (store != null) {
+                        store.append(seasonLines);
+                    }
+                });
+    }
+}
@@ -0,0 +1,320 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.analytics.KllSketch;
+import com.doron.shaul.nba.model.HistogramBin;
+import com.doron.shaul.nba.model.SeasonTotals;
+import com.doron.shaul.nba.model.StatCategory;
+import com.doron.shaul.nba.model.StatDistribution;
+import com.doron.shaul.nba.repository.PlayerRepository;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import com.doron.shaul.nba.repository.SeasonRollupRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-season distributions of player per-game averages, overall and per player position, kept as {@link KllSketch}es
+ * in one Redis hash per season ({@code distribution:{seasonId}}, field {@code {stat}:{position}}).
+ * <p>
+ * An average moves with every game and a sketch cannot retract a player's previous one, so a season's sketches are
+ * built from its player rollups (one row per player) rather than updated line by line. Seasons that recorded lines
+ * are rebuilt every {@code nba.distributions.flush-interval}, by every instance that recorded them. Each build is
+ * stamped with the number of stat lines its rollup snapshot covers, and Redis only takes a build covering more lines
+ * than the published one, so a slower instance never replaces a newer build with an older one. Reads deserialize a
+ * sketch once and keep it for {@code nba.distributions.read-ttl}, so they lag recorded stats by at most the flush
+ * interval plus that TTL.
+ */
+@Slf4j
+@Service
+public class DistributionService {
+
+    static final String ALL_POSITIONS = "ALL";
+
+    private static final String KEY_PREFIX = "distribution:";
+    private static final String NO_POSITION = "";
+    private static final RedisScript<Long> PUBLISH_SCRIPT = RedisScript.of(
+            new ClassPathResource("scripts/distribution-publish.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final SeasonRollupRepository seasonRollupRepository;
+    private final PlayerRepository playerRepository;
+    private final SeasonRepository seasonRepository;
+    private final int k;
+
+    private final ScheduledExecutorService flusher;
+    private final Set<Long> pendingSeasons = ConcurrentHashMap.newKeySet();
+    private final Cache<String, KllSketch> sketches;
+    private final Cache<Long, String> positions;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter published;
+    private final Counter stale;
+    private final Counter failed;
+
+    public DistributionService(StringRedisTemplate redisTemplate,
+                               SeasonRollupRepository seasonRollupRepository,
+                               PlayerRepository playerRepository,
+                               SeasonRepository seasonRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${nba.distributions.k:200}") int k,
+                               @Value("${nba.distributions.flush-interval:5s}") Duration flushInterval,
+                               @Value("${nba.distributions.read-ttl:5s}") Duration readTtl) {
+        this.redisTemplate = redisTemplate;
+        this.seasonRollupRepository = seasonRollupRepository;
+        this.playerRepository = playerRepository;
+        this.seasonRepository = seasonRepository;
+        this.k = k;
+        this.sketches = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(readTtl)
+                .build();
+        this.positions = Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(Duration.ofHours(1))
+                .build();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "distribution-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+
+        this.hits = meterRegistry.counter("nba.distributions.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("nba.distributions.lookups", "result", "miss");
+        this.published = meterRegistry.counter("nba.distributions.flushes", "result", "published");
+        this.stale = meterRegistry.counter("nba.distributions.flushes", "result", "stale");
+        this.failed = meterRegistry.counter("nba.distributions.flushes", "result", "failed");
+        meterRegistry.gauge("nba.distributions.pending", pendingSeasons, Set::size);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            if (flusher.awaitTermination(5, TimeUnit.SECONDS)) {
+                flush();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Percentile of a per-game average among the season's players, e.g. where 7.2 assists per game ranks.
+     */
+    public StatDistribution percentileOf(long seasonId, StatCategory category, String position, double value) {
+        KllSketch sketch = sketch(seasonId, category, position);
+        StatDistribution distribution = describe(seasonId, category, position, sketch);
+        distribution.setValue(value);
+        distribution.setPercentile(sketch.rank(value) * 100);
+        return distribution;
+    }
+
+    public StatDistribution valueAt(long seasonId, StatCategory category, String position, double percentile) {
+        KllSketch sketch = sketch(seasonId, category, position);
+        StatDistribution distribution = describe(seasonId, category, position, sketch);
+        distribution.setPercentile(percentile);
+        distribution.setValue(sketch.quantile(percentile / 100));
+        return distribution;
+    }
+
+    /**
+     * Estimated number of players whose average falls in each of {@code bins} equal-width ranges between the lowest
+     * and highest average.
+     */
+    public StatDistribution histogram(long seasonId, StatCategory category, String position, int bins) {
+        KllSketch sketch = sketch(seasonId, category, position);
+        StatDistribution distribution = describe(seasonId, category, position, sketch);
+
+        int binCount = sketch.max() > sketch.min() ? bins : 1;
+        double width = (sketch.max() - sketch.min()) / binCount;
+        List<HistogramBin> histogram = new ArrayList<>(binCount);
+        double previousRank = 0;
+        for (int bin = 0; bin < binCount; bin++) {
+            double from = sketch.min() + bin * width;
+            double to = bin == binCount - 1 ? sketch.max() : from + width;
+            double rank = sketch.rank(to);
+            histogram.add(new HistogramBin(from, to, Math.round((rank - previousRank) * sketch.count())));
+            previousRank = rank;
+        }
+        distribution.setHistogram(histogram);
+        return distribution;
+    }
+
+    @TransactionalEventListener
+    public void onStatsRecorded(StatsRecordedEvent event) {
+        pendingSeasons.addAll(event.statsBySeasonId().keySet());
+    }
+
+    /**
+     * Replaces a season's distributions with ones built from its current rollups, even if Redis holds a build that
+     * covers as many lines (e.g. after the rollups were rebuilt), and returns the number of players sketched.
+     */
+    public int rebuild(long seasonId) {
+        try {
+            // On the flush thread, so a flush of the season cannot publish in between
+            return flusher.submit(() -> {
+                List<SeasonTotals> totals = seasonRollupRepository.findPlayerTotals(seasonId);
+                publish(seasonId, totals, true);
+                log.info("Rebuilt distributions of season {} from {} players", seasonId, totals.size());
+                return totals.size();
+            }).get();
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding distributions", ex);
+        }
+    }
+
+    public List<Long> rebuildAll() {
+        List<Long> seasonIds = seasonRepository.findSeasonIds();
+        seasonIds.forEach(this::rebuild);
+        return seasonIds;
+    }
+
+    void flush() {
+        for (Long seasonId : List.copyOf(pendingSeasons)) {
+            if (!pendingSeasons.remove(seasonId)) {
+                continue;
+            }
+            try {
+                if (publish(seasonId, seasonRollupRepository.findPlayerTotals(seasonId), false)) {
+                    published.increment();
+                } else {
+                    stale.increment();
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Failed to publish distributions of season {}: {}", seasonId, ex.getMessage());
+                failed.increment();
+                pendingSeasons.add(seasonId);
+            }
+        }
+    }
+
+    /**
+     * Builds the season's sketches from one rollup snapshot and publishes them unless Redis already holds a build of
+     * at least as many stat lines; {@code replace} publishes regardless.
+     */
+    private boolean publish(long seasonId, List<SeasonTotals> totals, boolean replace) {
+        Map<Long, String> positionsByPlayerId = positions(totals.stream().map(SeasonTotals::getEntityId).toList());
+        Map<String, KllSketch> built = new HashMap<>();
+        long lines = 0;
+        for (SeasonTotals total : totals) {
+            int games = total.getGamesPlayed();
+            lines += games;
+            String position = positionsByPlayerId.getOrDefault(total.getEntityId(), NO_POSITION);
+            for (StatCategory category : StatCategory.values()) {
+                double average = category.totalOf(total) / games;
+                built.computeIfAbsent(field(category, ALL_POSITIONS), field -> new KllSketch(k)).update(average);
+                if (!position.isEmpty()) {
+                    built.computeIfAbsent(field(category, position), field -> new KllSketch(k)).update(average);
+                }
+            }
+        }
+
+        List<String> args = new ArrayList<>(2 + 2 * built.size());
+        args.add(Long.toString(lines));
+        args.add(replace ? "1" : "0");
+        built.forEach((field, sketch) -> {
+            args.add(field);
+            args.add(Base64.getEncoder().encodeToString(sketch.toBytes()));
+        });
+        Long result = redisTemplate.execute(PUBLISH_SCRIPT, List.of(key(seasonId)), args.toArray());
+
+        String seasonPrefix = seasonId + ":";
+        sketches.asMap().keySet().removeIf(cached -> cached.startsWith(seasonPrefix));
+        return result != null && result == 1;
+    }
+
+    private KllSketch sketch(long seasonId, StatCategory category, String position) {
+        String field = field(category, normalize(position));
+        String cacheKey = seasonId + ":" + field;
+        KllSketch sketch = sketches.getIfPresent(cacheKey);
+        if (sketch != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            sketch = sketches.get(cacheKey, missing ->
+                    decode(cacheKey, (String) redisTemplate.opsForHash().get(key(seasonId), field)));
+        }
+
+        if (sketch.isEmpty()) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        return sketch;
+    }
+
+    private Map<Long, String> positions(List<Long> playerIds) {
+        return positions.getAll(new HashSet<>(playerIds), missing -> {
+            Map<Long, String> loaded = new HashMap<>(playerRepository.findPositions(List.copyOf(missing)));
+            loaded.replaceAll((playerId, position) -> normalize(position));
+            missing.forEach(playerId -> loaded.putIfAbsent(playerId, NO_POSITION));
+            return loaded;
+        });
+    }
+
+    private KllSketch decode(String key, String value) {
+        if (value == null) {
+            return new KllSketch(k);
+        }
+        try {
+            return KllSketch.fromBytes(Base64.getDecoder().decode(value));
+        } catch (RuntimeException ex) {
+            log.warn("Discarding unreadable distribution {}: {}", key, ex.getMessage());
+            return new KllSketch(k);
+        }
+    }
+
+    private static StatDistribution describe(long seasonId, StatCategory category, String position,
+                                             KllSketch sketch) {
+        StatDistribution distribution = new StatDistribution();
+        distribution.setSeasonId(seasonId);
+        distribution.setStat(category.getKey());
+        distribution.setPosition(normalize(position));
+        distribution.setPlayers(sketch.count());
+        distribution.setMin(sketch.min());
+        distribution.setMax(sketch.max());
+        return distribution;
+    }
+
+    private static String key(long seasonId) {
+        return KEY_PREFIX + seasonId;
+    }
+
+    private static String field(StatCategory category, String position) {
+        return category.getKey() + ":" + position;
+    }
+
+    private static String normalize(String position) {
+        return position == null || position.isBlank() ? ALL_POSITIONS : position.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,193 @@
+package com.doron.shaul.nba.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Writes every row of a result set to an output stream as NDJSON (one object per row, keyed by column label) or CSV
+ * (header row of column labels), returning the number of rows written. Nothing is retained between rows.
+ */
+abstract class ExportWriter implements ResultSetExtractor<Long> {
+
+    private enum Kind { INTEGER, DECIMAL, BOOLEAN, DATE, TEXT }
+
+    private String[] labels;
+    private Kind[] kinds;
+
+    static ExportWriter of(SeasonExportService.Format format, OutputStream out, JsonFactory jsonFactory) {
+        return format == SeasonExportService.Format.CSV ? new Csv(out) : new Ndjson(out, jsonFactory);
+    }
+
+    @Override
+    public Long extractData(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        labels = new String[metaData.getColumnCount()];
+        kinds = new Kind[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            kinds[i] = kindOf(metaData.getColumnType(i + 1));
+        }
+
+        long rows = 0;
+        try {
+            start(labels);
+            while (rs.next()) {
+                writeRow(rs);
+                rows++;
+            }
+            finish();
+        } catch (IOException ex) {
+            // Connector/J reads a streamed result to the end on close; stop the query first when the client is gone
+            rs.getStatement().cancel();
+            throw new UncheckedIOException(ex);
+        }
+        return rows;
+    }
+
+    protected abstract void start(String[] labels) throws IOException;
+
+    protected abstract void writeRow(ResultSet rs) throws IOException, SQLException;
+
+    protected abstract void finish() throws IOException;
+
+    protected String label(int column) {
+        return labels[column];
+    }
+
+    protected int columns() {
+        return labels.length;
+    }
+
+    /**
+     * Returns the column's value as a Long, BigDecimal, Boolean or String (dates in ISO format), or null.
+     */
+    protected Object value(ResultSet rs, int column) throws SQLException {
+        int index = column + 1;
+        Object value = switch (kinds[column]) {
+            case INTEGER -> rs.getLong(index);
+            case DECIMAL -> rs.getBigDecimal(index);
+            case BOOLEAN -> rs.getBoolean(index);
+            case DATE -> {
+                Date date = rs.getDate(index);
+                yield date != null ? date.toLocalDate().toString() : null;
+            }
+            case TEXT -> rs.getString(index);
+        };
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Kind kindOf(int sqlType) {
+        return switch (sqlType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> Kind.INTEGER;
+            case Types.DECIMAL, Types.NUMERIC, Types.DOUBLE, Types.FLOAT, Types.REAL -> Kind.DECIMAL;
+            case Types.BIT, Types.BOOLEAN -> Kind.BOOLEAN;
+            case Types.DATE -> Kind.DATE;
+            default -> Kind.TEXT;
+        };
+    }
+
+    private static final class Ndjson extends ExportWriter {
+
+        private final OutputStream out;
+        private final JsonFactory jsonFactory;
+        private JsonGenerator generator;
+
+        private Ndjson(OutputStream out, JsonFactory jsonFactory) {
+            this.out = out;
+            this.jsonFactory = jsonFactory;
+        }
+
+        @Override
+        protected void start(String[] labels) throws IOException {
+            generator = jsonFactory.createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        protected void writeRow(ResultSet rs) throws IOException, SQLException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns(); i++) {
+                generator.writeFieldName(label(i));
+                Object value = value(rs, i);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Long number) {
+                    generator.writeNumber(number);
+                } else if (value instanceof BigDecimal number) {
+                    generator.writeNumber(number);
+                } else if (value instanceof Boolean flag) {
+                    generator.writeBoolean(flag);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        protected void finish() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class Csv extends ExportWriter {
+
+        private final Writer writer;
+
+        private Csv(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        protected void start(String[] labels) throws IOException {
+            writer.write(String.join(",", labels));
+            writer.write('\n');
+        }
+
+        @Override
+        protected void writeRow(ResultSet rs) throws IOException, SQLException {
+            for (int i = 0; i < columns(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = value(rs, i);
+                if (value instanceof BigDecimal number) {
+                    writer.write(number.toPlainString());
+                } else if (value instanceof String text) {
+                    writer.write(escape(text));
+                } else if (value != null) {
+                    writer.write(value.toString());
+                }
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        protected void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String text) {
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+}
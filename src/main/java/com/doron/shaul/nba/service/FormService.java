@@ -0,0 +1,200 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.analytics.FormSeries;
+import com.doron.shaul.nba.config.InstanceIdentity;
+import com.doron.shaul.nba.model.FormAverages;
+import com.doron.shaul.nba.model.GameLine;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.repository.GameLineRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Last-N-games and date-range averages served from per-player and per-team {@link FormSeries}, loaded on first use
+ * and bounded by {@code nba.form.max-weight} (games plus stat lines), with idle series evicted first.
+ * <p>
+ * Committed lines are appended to the series held by this instance; other instances drop their copies of the
+ * touched series and reload them on the next read.
+ */
+@Slf4j
+@Service
+public class FormService implements MessageListener {
+
+    public static final String CHANNEL = "nba:form-invalidation";
+
+    private static final String SEPARATOR = "\n";
+
+    record Key(char kind, long id, long seasonId) {
+
+        static final char PLAYER = 'P';
+        static final char TEAM = 'T';
+
+        @Override
+        public String toString() {
+            return kind + ":" + id + ":" + seasonId;
+        }
+
+        static Key parse(String value) {
+            String[] parts = value.split(":");
+            return new Key(parts[0].charAt(0), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        }
+    }
+
+    private final GameLineRepository gameLineRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final InstanceIdentity instanceIdentity;
+    private final Cache<Key, FormSeries> series;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile boolean used;
+
+    public FormService(GameLineRepository gameLineRepository,
+                       StringRedisTemplate redisTemplate,
+                       InstanceIdentity instanceIdentity,
+                       RedisMessageListenerContainer listenerContainer,
+                       MeterRegistry meterRegistry,
+                       @Value("${nba.form.max-weight:500000}") long maxWeight,
+                       @Value("${nba.form.expire-after-access:30m}") Duration expireAfterAccess) {
+        this.gameLineRepository = gameLineRepository;
+        this.redisTemplate = redisTemplate;
+        this.instanceIdentity = instanceIdentity;
+        this.series = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, FormSeries value) -> value.weight() + 1)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+
+        this.hits = meterRegistry.counter("nba.form.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("nba.form.lookups", "result", "miss");
+        meterRegistry.gauge("nba.form.series", series, Cache::estimatedSize);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public FormAverages playerLastGames(long playerId, long seasonId, int games) {
+        return playerForm(playerId, seasonId, form -> form.lastGames(games));
+    }
+
+    public FormAverages playerBetween(long playerId, long seasonId, LocalDate from, LocalDate to) {
+        return playerForm(playerId, seasonId, form -> form.between(from, to));
+    }
+
+    public FormAverages teamLastGames(long teamId, long seasonId, int games) {
+        return teamForm(teamId, seasonId, form -> form.lastGames(games));
+    }
+
+    public FormAverages teamBetween(long teamId, long seasonId, LocalDate from, LocalDate to) {
+        return teamForm(teamId, seasonId, form -> form.between(from, to));
+    }
+
+    @TransactionalEventListener
+    public void onStatsRecorded(StatsRecordedEvent event) {
+        Set<Key> touched = new LinkedHashSet<>();
+        event.statsBySeasonId().forEach((seasonId, lines) ->
+                lines.forEach(line -> touched.add(new Key(Key.PLAYER, line.getPlayerId(), seasonId))));
+        event.getTeamIdsBySeasonId().forEach((seasonId, teamIds) ->
+                teamIds.forEach(teamId -> touched.add(new Key(Key.TEAM, teamId, seasonId))));
+
+        try {
+            // Until the first read nothing is held (or loading), so there is nothing to extend
+            if (used) {
+                append(event.getStats().stream().map(PlayerGameStats::getStatId).toList());
+            }
+            redisTemplate.convertAndSend(CHANNEL, instanceIdentity.getId() + SEPARATOR +
+                    touched.stream().map(Key::toString).collect(Collectors.joining(",")));
+        } catch (RuntimeException ex) {
+            series.invalidateAll(touched);
+            log.warn("Failed to extend form series with {} stat lines: {}", event.getStats().size(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 2);
+        if (parts.length < 2 || instanceIdentity.isSelf(parts[0]) || parts[1].isEmpty()) {
+            return;
+        }
+
+        List<Key> keys = new ArrayList<>();
+        for (String key : parts[1].split(",")) {
+            keys.add(Key.parse(key));
+        }
+        series.invalidateAll(keys);
+    }
+
+    private FormAverages playerForm(long playerId, long seasonId, Function<FormSeries, FormAverages> window) {
+        FormAverages averages = window.apply(get(new Key(Key.PLAYER, playerId, seasonId)));
+        averages.setPlayerId(playerId);
+        averages.setSeasonId(seasonId);
+        return averages;
+    }
+
+    private FormAverages teamForm(long teamId, long seasonId, Function<FormSeries, FormAverages> window) {
+        FormAverages averages = window.apply(get(new Key(Key.TEAM, teamId, seasonId)));
+        averages.setTeamId(teamId);
+        averages.setSeasonId(seasonId);
+        return averages;
+    }
+
+    private FormSeries get(Key key) {
+        used = true;
+        FormSeries form = series.getIfPresent(key);
+        if (form != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            form = series.get(key, this::load);
+        }
+
+        if (form.games() == 0) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        return form;
+    }
+
+    private FormSeries load(Key key) {
+        List<GameLine> lines = key.kind() == Key.PLAYER
+                ? gameLineRepository.findByPlayerAndSeason(key.id(), key.seasonId())
+                : gameLineRepository.findByTeamAndSeason(key.id(), key.seasonId());
+        return FormSeries.EMPTY.with(lines);
+    }
+
+    private void append(List<Long> statIds) {
+        Map<Key, List<GameLine>> linesByKey = new HashMap<>();
+        for (GameLine line : gameLineRepository.findByStatIds(statIds)) {
+            linesByKey.computeIfAbsent(new Key(Key.PLAYER, line.getPlayerId(), line.getSeasonId()),
+                    key -> new ArrayList<>()).add(line);
+            if (line.getTeamId() != null) {
+                linesByKey.computeIfAbsent(new Key(Key.TEAM, line.getTeamId(), line.getSeasonId()),
+                        key -> new ArrayList<>()).add(line);
+            }
+        }
+
+        // A series still loading is waited for, so lines its query missed are not lost
+        linesByKey.forEach((key, lines) -> series.asMap().computeIfPresent(key, (k, form) -> form.with(lines)));
+    }
+}
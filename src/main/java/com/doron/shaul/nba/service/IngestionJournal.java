@@ -0,0 +1,238 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Append-only journal of write-behind batches, split into segment files named after the first sequence they may hold
+ * ({@code ingest.journal.<sequence>}). A segment is closed once it reaches {@code segmentBytes}, and closed segments
+ * are deleted as soon as the checkpoint covers their last sequence, so the journal only holds about one segment
+ * beyond the uncommitted batches however long the queue stays busy.
+ */
+@Slf4j
+public class IngestionJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "ingest.journal.";
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private long sequence;
+        private List<PlayerGameStats> stats;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DeadLetter {
+        private long sequence;
+        private String reason;
+        private List<PlayerGameStats> stats;
+    }
+
+    private final Path directory;
+    private final Path checkpointFile;
+    private final Path deadLetterFile;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+    private final long segmentBytes;
+
+    // First sequence of every segment; the last one is being appended to
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel channel;
+    private long activeBytes;
+    private long lastSequence;
+    private long committedSequence;
+
+    public IngestionJournal(Path directory, ObjectMapper objectMapper, boolean fsync, long segmentBytes)
+            throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.checkpointFile = directory.resolve("ingest.checkpoint");
+        this.deadLetterFile = directory.resolve("ingest.deadletter");
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+        this.segmentBytes = segmentBytes;
+
+        this.committedSequence = Files.exists(checkpointFile)
+                ? Long.parseLong(Files.readString(checkpointFile).trim())
+                : 0;
+        this.lastSequence = committedSequence;
+
+        // A journal from before segments is a single file; its committed records are skipped on replay like any other
+        Path legacy = directory.resolve("ingest.journal");
+        if (Files.exists(legacy)) {
+            Files.move(legacy, segment(committedSequence + 1), StandardCopyOption.ATOMIC_MOVE);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+            for (Path file : files) {
+                segments.put(Long.parseLong(file.getFileName().toString().substring(SEGMENT_PREFIX.length())), file);
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(committedSequence + 1, segment(committedSequence + 1));
+        }
+        open(segments.lastEntry().getValue());
+    }
+
+    public synchronized List<Entry> readUncommitted() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path segment : segments.values()) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Entry entry;
+                    try {
+                        entry = objectMapper.readValue(line, Entry.class);
+                    } catch (IOException ex) {
+                        log.warn("Skipping torn ingestion journal record in {}: {}", segment.getFileName(),
+                                ex.getMessage());
+                        continue;
+                    }
+                    lastSequence = Math.max(lastSequence, entry.getSequence());
+                    if (entry.getSequence() > committedSequence) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    public synchronized long append(List<PlayerGameStats> stats) {
+        long sequence = lastSequence + 1;
+        try {
+            byte[] record = objectMapper.writeValueAsBytes(new Entry(sequence, stats));
+            ByteBuffer buffer = ByteBuffer.allocate(record.length + 1);
+            buffer.put(record).put((byte) '\n').flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            activeBytes += record.length + 1;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to append to ingestion journal", ex);
+        }
+        lastSequence = sequence;
+
+        if (activeBytes >= segmentBytes) {
+            try {
+                roll();
+            } catch (IOException ex) {
+                // The batch is journaled; keep appending to the current segment and try again on the next append
+                log.warn("Failed to roll ingestion journal segment after {}: {}", sequence, ex.getMessage());
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Keeps a batch that can never be committed in {@code ingest.deadletter}, one JSON record per line, so it can be
+     * inspected and resubmitted once the cause is fixed.
+     */
+    public synchronized void deadLetter(long sequence, List<PlayerGameStats> stats, String reason) {
+        try (FileChannel deadLetters = FileChannel.open(deadLetterFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            byte[] record = objectMapper.writeValueAsBytes(new DeadLetter(sequence, reason, stats));
+            ByteBuffer buffer = ByteBuffer.allocate(record.length + 1);
+            buffer.put(record).put((byte) '\n').flip();
+            while (buffer.hasRemaining()) {
+                deadLetters.write(buffer);
+            }
+            if (fsync) {
+                deadLetters.force(false);
+            }
+        } catch (IOException ex) {
+            log.error("Failed to dead-letter ingestion batch {} ({}): {} {}", sequence, reason, ex.getMessage(), stats);
+        }
+    }
+
+    public synchronized void commit(long sequence) {
+        if (sequence <= committedSequence) {
+            return;
+        }
+        committedSequence = sequence;
+        try {
+            if (committedSequence == lastSequence) {
+                channel.truncate(0);
+                if (fsync) {
+                    channel.force(false);
+                }
+                activeBytes = 0;
+            }
+            Path temp = checkpointFile.resolveSibling("ingest.checkpoint.tmp");
+            Files.writeString(temp, Long.toString(committedSequence));
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Failed to checkpoint ingestion journal at {}: {}", sequence, ex.getMessage());
+            return;
+        }
+
+        // A closed segment ends right before the next one starts
+        while (segments.size() > 1) {
+            Map.Entry<Long, Path> oldest = segments.firstEntry();
+            if (segments.higherKey(oldest.getKey()) - 1 > committedSequence) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(oldest.getValue());
+            } catch (IOException ex) {
+                log.warn("Failed to delete committed ingestion journal segment {}: {}", oldest.getValue(),
+                        ex.getMessage());
+                break;
+            }
+            segments.pollFirstEntry();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void roll() throws IOException {
+        Path next = segment(lastSequence + 1);
+        FileChannel previous = channel;
+        open(next);
+        segments.put(lastSequence + 1, next);
+        previous.close();
+    }
+
+    private void open(Path segment) throws IOException {
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        activeBytes = channel.size();
+    }
+
+    private Path segment(long firstSequence) {
+        // Zero-padded so the segments also sort by sequence in a directory listing
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", firstSequence));
+    }
+}
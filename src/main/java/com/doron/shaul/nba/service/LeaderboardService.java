@@ -0,0 +1,351 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+import com.doron.shaul.nba.model.LeaderboardEntry;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.model.SeasonTotals;
+import com.doron.shaul.nba.model.StatCategory;
+import com.doron.shaul.nba.repository.SeasonRollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-season leaderboards in Redis: a games-played hash, and per stat a sum hash and a zset of per-game averages,
+ * all updated by one script per recorded batch. Each configured {@code nba.leaderboards.min-games-thresholds} value
+ * gets its own zset per stat holding only the players who reached it, so top-N and rank reads are
+ * {@code ZREVRANGE}/{@code ZCOUNT} calls whatever the season size and minimum.
+ * <p>
+ * Rebuilds are ordered against ingestion by the season's leaderboard epoch ({@code seasons.leaderboard_epoch}):
+ * every batch carries the epoch it committed under, and the record script only applies batches of the epoch Redis
+ * was last rebuilt at.
+ */
+@Slf4j
+@Service
+public class LeaderboardService {
+
+    private static final StatCategory[] CATEGORIES = StatCategory.values();
+
+    private static final RedisScript<Long> RECORD_SCRIPT = RedisScript.of(
+            new ClassPathResource("scripts/leaderboard-record.lua"), Long.class);
+
+    private static final RedisScript<Long> SWAP_SCRIPT = RedisScript.of(
+            new ClassPathResource("scripts/leaderboard-swap.lua"), Long.class);
+
+    private static final Duration STAGED_TTL = Duration.ofHours(1);
+
+    /**
+     * Stat lines of one season committed under one leaderboard epoch.
+     */
+    private record Batch(long seasonId, long epoch, List<PlayerGameStats> lines, int attempts) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final SeasonRollupRepository seasonRollupRepository;
+    private final SeasonRollupService seasonRollupService;
+    private final List<Integer> minGamesThresholds;
+    private final int maxRetries;
+
+    private final ScheduledExecutorService retrier;
+    private final Queue<Batch> deferred = new ConcurrentLinkedQueue<>();
+
+    public LeaderboardService(StringRedisTemplate redisTemplate,
+                              SeasonRollupRepository seasonRollupRepository,
+                              SeasonRollupService seasonRollupService,
+                              MeterRegistry meterRegistry,
+                              @Value("${nba.leaderboards.min-games-thresholds:10,20,41,58}")
+                              List<Integer> minGamesThresholds,
+                              @Value("${nba.leaderboards.retry-interval:1s}") Duration retryInterval,
+                              @Value("${nba.leaderboards.max-retries:60}") int maxRetries) {
+        this.redisTemplate = redisTemplate;
+        this.seasonRollupRepository = seasonRollupRepository;
+        this.seasonRollupService = seasonRollupService;
+        this.maxRetries = maxRetries;
+        this.minGamesThresholds = minGamesThresholds.stream()
+                .filter(threshold -> threshold > 1)
+                .distinct()
+                .sorted()
+                .toList();
+
+        this.retrier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retrier.scheduleWithFixedDelay(this::retryDeferred, retryInterval.toMillis(), retryInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        meterRegistry.gauge("nba.leaderboards.deferred", deferred, Queue::size);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retrier.shutdownNow();
+    }
+
+    @TransactionalEventListener
+    public void onStatsRecorded(StatsRecordedEvent event) {
+        event.statsBySeasonId().forEach((seasonId, lines) -> apply(new Batch(seasonId,
+                event.getLeaderboardEpochsBySeasonId().getOrDefault(seasonId, 0L), lines, 0)));
+    }
+
+    /**
+     * Retries the batches recorded under an epoch whose rebuild had not been swapped in yet.
+     */
+    void retryDeferred() {
+        for (int i = deferred.size(); i > 0; i--) {
+            Batch batch = deferred.poll();
+            if (batch == null) {
+                return;
+            }
+            apply(batch);
+        }
+    }
+
+    public List<LeaderboardEntry> getLeaders(long seasonId, StatCategory category, int limit, int minGames) {
+        Set<ZSetOperations.TypedTuple<String>> top = redisTemplate.opsForZSet()
+                .reverseRangeWithScores(rankedKey(seasonId, category, minGames), 0, limit - 1);
+        if (top == null || top.isEmpty()) {
+            return List.of();
+        }
+
+        List<ZSetOperations.TypedTuple<String>> tuples = new ArrayList<>(top);
+        List<Object> games = redisTemplate.opsForHash().multiGet(gamesKey(seasonId),
+                tuples.stream().map(tuple -> (Object) tuple.getValue()).toList());
+
+        List<LeaderboardEntry> leaders = new ArrayList<>(tuples.size());
+        long rank = 0;
+        Double previousAverage = null;
+        for (int i = 0; i < tuples.size(); i++) {
+            ZSetOperations.TypedTuple<String> tuple = tuples.get(i);
+            if (!tuple.getScore().equals(previousAverage)) {
+                rank = i + 1;
+                previousAverage = tuple.getScore();
+            }
+            leaders.add(new LeaderboardEntry(rank, Long.valueOf(tuple.getValue()), tuple.getScore(),
+                    games.get(i) != null ? Integer.parseInt((String) games.get(i)) : 0));
+        }
+        return leaders;
+    }
+
+    public LeaderboardEntry getPlayerRank(long seasonId, StatCategory category, long playerId, int minGames) {
+        String rankedKey = rankedKey(seasonId, category, minGames);
+        String member = Long.toString(playerId);
+
+        Double average = redisTemplate.opsForZSet().score(rankedKey, member);
+        if (average == null) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        Long ahead = redisTemplate.opsForZSet().count(rankedKey, Math.nextUp(average), Double.POSITIVE_INFINITY);
+        Object gamesValue = redisTemplate.opsForHash().get(gamesKey(seasonId), member);
+
+        return new LeaderboardEntry((ahead != null ? ahead : 0) + 1, playerId, average,
+                gamesValue != null ? Integer.parseInt((String) gamesValue) : 0);
+    }
+
+    /**
+     * Replaces a season's leaderboards with ones built from a snapshot of its rollups, staged under the snapshot's
+     * epoch and swapped in by one script. Lines recorded under an older epoch are in the snapshot and no longer
+     * applied; lines recorded under the new one are deferred until the swap and then applied on top of it.
+     */
+    public int rebuild(long seasonId) {
+        SeasonRollupService.LeaderboardSnapshot snapshot = seasonRollupService.leaderboardSnapshot(seasonId);
+        List<SeasonTotals> totals = snapshot.totals();
+        String suffix = ":rebuild:" + snapshot.epoch();
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            Map<byte[], byte[]> games = new HashMap<>();
+            totals.forEach(row -> games.put(bytes(row.getEntityId().toString()),
+                    bytes(row.getGamesPlayed().toString())));
+            stageHash(connection, gamesKey(seasonId) + suffix, games);
+
+            for (StatCategory category : CATEGORIES) {
+                Map<byte[], byte[]> sums = new HashMap<>();
+                Set<Tuple> averages = new HashSet<>();
+                List<Set<Tuple>> qualified = new ArrayList<>();
+                minGamesThresholds.forEach(threshold -> qualified.add(new HashSet<>()));
+                for (SeasonTotals row : totals) {
+                    double total = category.totalOf(row);
+                    sums.put(bytes(row.getEntityId().toString()), bytes(Double.toString(total)));
+                    Tuple average = new DefaultTuple(bytes(row.getEntityId().toString()), total / row.getGamesPlayed());
+                    averages.add(average);
+                    for (int t = 0; t < minGamesThresholds.size(); t++) {
+                        if (row.getGamesPlayed() >= minGamesThresholds.get(t)) {
+                            qualified.get(t).add(average);
+                        }
+                    }
+                }
+                stageHash(connection, sumsKey(seasonId, category) + suffix, sums);
+                stageZSet(connection, averagesKey(seasonId, category) + suffix, averages);
+                for (int t = 0; t < minGamesThresholds.size(); t++) {
+                    stageZSet(connection, qualifiedKey(seasonId, category, minGamesThresholds.get(t)) + suffix,
+                            qualified.get(t));
+                }
+            }
+            return null;
+        });
+
+        List<String> liveKeys = new ArrayList<>();
+        liveKeys.add(gamesKey(seasonId));
+        liveKeys.addAll(categoryKeys(seasonId));
+
+        List<String> keys = new ArrayList<>(1 + liveKeys.size() * 2);
+        keys.add(epochKey(seasonId));
+        keys.addAll(liveKeys);
+        liveKeys.forEach(key -> keys.add(key + suffix));
+
+        Long swapped = redisTemplate.execute(SWAP_SCRIPT, keys, Long.toString(snapshot.epoch()));
+        if (swapped == null || swapped == 0) {
+            log.info("Dropped leaderboards of season {} at epoch {}, a newer rebuild was already swapped in",
+                    seasonId, snapshot.epoch());
+        } else {
+            log.info("Rebuilt leaderboards for season {} at epoch {} from {} player rollups",
+                    seasonId, snapshot.epoch(), totals.size());
+        }
+        return totals.size();
+    }
+
+    public List<Long> rebuildAll() {
+        List<Long> seasonIds = seasonRollupRepository.findSeasonIds();
+        seasonIds.forEach(this::rebuild);
+        return seasonIds;
+    }
+
+    private void apply(Batch batch) {
+        Long applied;
+        try {
+            applied = record(batch);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to update leaderboards for season {}, rebuild required: {}",
+                    batch.seasonId(), ex.getMessage());
+            return;
+        }
+
+        if (applied != null && applied < 0) {
+            if (batch.attempts() < maxRetries) {
+                deferred.add(new Batch(batch.seasonId(), batch.epoch(), batch.lines(), batch.attempts() + 1));
+            } else {
+                log.warn("Dropped {} leaderboard lines of season {} at epoch {} after {} retries, rebuild required",
+                        batch.lines().size(), batch.seasonId(), batch.epoch(), batch.attempts());
+            }
+        }
+    }
+
+    private Long record(Batch batch) {
+        long seasonId = batch.seasonId();
+        List<PlayerGameStats> lines = batch.lines();
+
+        List<String> keys = new ArrayList<>();
+        keys.add(epochKey(seasonId));
+        keys.add(gamesKey(seasonId));
+        keys.addAll(categoryKeys(seasonId));
+
+        List<String> args = new ArrayList<>(3 + minGamesThresholds.size() + lines.size() * (CATEGORIES.length + 1));
+        args.add(Long.toString(batch.epoch()));
+        args.add(Integer.toString(CATEGORIES.length));
+        args.add(Integer.toString(minGamesThresholds.size()));
+        minGamesThresholds.forEach(threshold -> args.add(threshold.toString()));
+        for (PlayerGameStats line : lines) {
+            args.add(line.getPlayerId().toString());
+            for (StatCategory category : CATEGORIES) {
+                args.add(Double.toString(category.valueOf(line)));
+            }
+        }
+
+        return redisTemplate.execute(RECORD_SCRIPT, keys, args.toArray());
+    }
+
+    /**
+     * Per stat category, in the order the record script expects them: the sum hash, the average zset and the zset of
+     * every games threshold.
+     */
+    private List<String> categoryKeys(long seasonId) {
+        List<String> keys = new ArrayList<>(CATEGORIES.length * (2 + minGamesThresholds.size()));
+        for (StatCategory category : CATEGORIES) {
+            keys.add(sumsKey(seasonId, category));
+            keys.add(averagesKey(seasonId, category));
+            minGamesThresholds.forEach(threshold -> keys.add(qualifiedKey(seasonId, category, threshold)));
+        }
+        return keys;
+    }
+
+    /**
+     * The zset ranking the players with at least {@code minGames} games: every player for 0 and 1, otherwise the
+     * set of a configured threshold, so a ranked read never has to filter players by games.
+     */
+    private String rankedKey(long seasonId, StatCategory category, int minGames) {
+        if (minGames <= 1) {
+            return averagesKey(seasonId, category);
+        }
+        if (!minGamesThresholds.contains(minGames)) {
+            throw new InvalidPayloadException("minGames must be 0, 1 or one of " + minGamesThresholds);
+        }
+        return qualifiedKey(seasonId, category, minGames);
+    }
+
+    // Staged keys expire unless the swap script renames them over the live keys (and persists them)
+    private void stageHash(RedisConnection connection, String key, Map<byte[], byte[]> values) {
+        connection.keyCommands().del(bytes(key));
+        if (!values.isEmpty()) {
+            connection.hashCommands().hMSet(bytes(key), values);
+            connection.keyCommands().expire(bytes(key), STAGED_TTL.toSeconds());
+        }
+    }
+
+    private void stageZSet(RedisConnection connection, String key, Set<Tuple> values) {
+        connection.keyCommands().del(bytes(key));
+        if (!values.isEmpty()) {
+            connection.zSetCommands().zAdd(bytes(key), values);
+            connection.keyCommands().expire(bytes(key), STAGED_TTL.toSeconds());
+        }
+    }
+
+    private static String gamesKey(long seasonId) {
+        return "leaderboard:" + seasonId + ":games";
+    }
+
+    private static String sumsKey(long seasonId, StatCategory category) {
+        return "leaderboard:" + seasonId + ":sum:" + category.getKey();
+    }
+
+    private static String averagesKey(long seasonId, StatCategory category) {
+        return "leaderboard:" + seasonId + ":avg:" + category.getKey();
+    }
+
+    private static String epochKey(long seasonId) {
+        return "leaderboard:" + seasonId + ":epoch";
+    }
+
+    private static String qualifiedKey(long seasonId, StatCategory category, int minGames) {
+        return averagesKey(seasonId, category) + ":min:" + minGames;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
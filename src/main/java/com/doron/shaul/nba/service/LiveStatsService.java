@@ -0,0 +1,300 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.cache.CacheKeys;
+import com.doron.shaul.nba.config.DataSourceRouting;
+import com.doron.shaul.nba.config.InstanceIdentity;
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.TeamSeasonStats;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes season averages to SSE subscribers as stats are recorded. Keys touched by ingestion are coalesced for
+ * {@code nba.live.coalesce-window}, their aggregates computed and serialized once by the instance that recorded
+ * them, and the batch is published on {@code nba:live-stats} so every instance fans it out to its own subscribers.
+ */
+@Slf4j
+@Service
+public class LiveStatsService implements MessageListener {
+
+    public static final String CHANNEL = "nba:live-stats";
+
+    private static final String SEPARATOR = "\n";
+
+    private final StatsService statsService;
+    private final StringRedisTemplate redisTemplate;
+    private final InstanceIdentity instanceIdentity;
+    private final ObjectMapper objectMapper;
+    private final Duration coalesceWindow;
+    private final Duration emitterTimeout;
+    private final int maxKeys;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService senders;
+    private final Map<Long, Set<Long>> pendingPlayers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> pendingTeams = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Map<String, Set<LiveStatsSubscriber>> subscribersByKey = new ConcurrentHashMap<>();
+    private final Set<LiveStatsSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Counter published;
+    private final Counter delivered;
+    private final Counter superseded;
+
+    public LiveStatsService(StatsService statsService,
+                            StringRedisTemplate redisTemplate,
+                            InstanceIdentity instanceIdentity,
+                            ObjectMapper objectMapper,
+                            RedisMessageListenerContainer listenerContainer,
+                            MeterRegistry meterRegistry,
+                            @Value("${nba.live.coalesce-window:500ms}") Duration coalesceWindow,
+                            @Value("${nba.live.heartbeat-interval:15s}") Duration heartbeatInterval,
+                            @Value("${nba.live.emitter-timeout:30m}") Duration emitterTimeout,
+                            @Value("${nba.live.max-keys:100}") int maxKeys) {
+        this.statsService = statsService;
+        this.redisTemplate = redisTemplate;
+        this.instanceIdentity = instanceIdentity;
+        this.objectMapper = objectMapper;
+        this.coalesceWindow = coalesceWindow;
+        this.emitterTimeout = emitterTimeout;
+        this.maxKeys = maxKeys;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // A send blocks until the client reads it, so each draining subscriber gets its own thread
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("live-stats-sender-", 1).factory());
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+
+        this.published = meterRegistry.counter("nba.live.updates", "result", "published");
+        this.delivered = meterRegistry.counter("nba.live.updates", "result", "delivered");
+        this.superseded = meterRegistry.counter("nba.live.updates", "result", "superseded");
+        meterRegistry.gaugeCollectionSize("nba.live.subscribers", List.of(), subscribers);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Opens a stream of {@code player} and {@code team} events for the given season, starting with the current
+     * averages of every subscribed key.
+     */
+    public SseEmitter subscribe(long seasonId, Collection<Long> playerIds, Collection<Long> teamIds) {
+        Set<String> keys = new LinkedHashSet<>();
+        playerIds.forEach(playerId -> keys.add(CacheKeys.playerSeason(playerId, seasonId)));
+        teamIds.forEach(teamId -> keys.add(CacheKeys.teamSeason(teamId, seasonId)));
+        if (keys.isEmpty()) {
+            throw new InvalidPayloadException("Subscribe to at least one player or team");
+        }
+        if (keys.size() > maxKeys) {
+            throw new InvalidPayloadException("Cannot subscribe to more than " + maxKeys + " players and teams");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        LiveStatsSubscriber subscriber = new LiveStatsSubscriber(emitter, keys, superseded);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(ex -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        keys.forEach(key -> subscribersByKey.compute(key, (k, listening) -> {
+            Set<LiveStatsSubscriber> updated = listening != null ? listening : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        }));
+
+        try {
+            updates(seasonId, new HashSet<>(playerIds), new HashSet<>(teamIds))
+                    .forEach(update -> schedule(subscriber, subscriber.offerSnapshot(update)));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to load initial averages for a live subscription: {}", ex.getMessage());
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onStatsRecorded(StatsRecordedEvent event) {
+        event.statsBySeasonId().forEach((seasonId, lines) -> enqueue(pendingPlayers, seasonId,
+                lines.stream().map(PlayerGameStats::getPlayerId).collect(Collectors.toSet())));
+        event.getTeamIdsBySeasonId().forEach((seasonId, teamIds) -> enqueue(pendingTeams, seasonId, teamIds));
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::flush, coalesceWindow.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 2);
+        if (parts.length < 2 || instanceIdentity.isSelf(parts[0])) {
+            return;
+        }
+
+        try {
+            for (JsonNode node : objectMapper.readTree(parts[1])) {
+                deliver(new LiveStatsSubscriber.Update(node.get("key").asText(), node.get("event").asText(),
+                        node.get("data").toString()));
+            }
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring malformed live stats message: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.getEmitter().complete());
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        Set<Long> seasonIds = new HashSet<>(pendingPlayers.keySet());
+        seasonIds.addAll(pendingTeams.keySet());
+
+        // The pushed values must include the write that triggered them, so skip replicas that may still be behind
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.primaryOnly()) {
+            seasonIds.forEach(this::publish);
+        }
+    }
+
+    private void publish(long seasonId) {
+        Set<Long> playerIds = pendingPlayers.remove(seasonId);
+        Set<Long> teamIds = pendingTeams.remove(seasonId);
+        try {
+            List<LiveStatsSubscriber.Update> updates = updates(seasonId,
+                    playerIds != null ? playerIds : Set.of(), teamIds != null ? teamIds : Set.of());
+            if (updates.isEmpty()) {
+                return;
+            }
+            updates.forEach(this::deliver);
+            redisTemplate.convertAndSend(CHANNEL, instanceIdentity.getId() + SEPARATOR + encode(updates));
+            published.increment(updates.size());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to publish live averages for season {}: {}", seasonId, ex.getMessage());
+        }
+    }
+
+    private List<LiveStatsSubscriber.Update> updates(long seasonId, Set<Long> playerIds, Set<Long> teamIds) {
+        List<LiveStatsSubscriber.Update> updates = new ArrayList<>();
+        if (!playerIds.isEmpty()) {
+            for (PlayerSeasonStats stats : statsService.getPlayerSeasonStats(playerIds, seasonId)) {
+                updates.add(update(CacheKeys.playerSeason(stats.getPlayerId(), seasonId), "player", stats));
+            }
+        }
+        if (!teamIds.isEmpty()) {
+            Map<Long, List<TeamSeasonStats>> byTeam = new LinkedHashMap<>();
+            teamIds.forEach(teamId -> byTeam.put(teamId, new ArrayList<>()));
+            statsService.getTeamSeasonStats(teamIds, seasonId)
+                    .forEach(row -> byTeam.computeIfAbsent(row.getTeamId(), id -> new ArrayList<>()).add(row));
+            byTeam.forEach((teamId, rows) -> updates.add(update(CacheKeys.teamSeason(teamId, seasonId), "team", rows)));
+        }
+        return updates;
+    }
+
+    private LiveStatsSubscriber.Update update(String key, String event, Object stats) {
+        try {
+            return new LiveStatsSubscriber.Update(key, event, objectMapper.writeValueAsString(stats));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize live averages for " + key, ex);
+        }
+    }
+
+    private String encode(List<LiveStatsSubscriber.Update> updates) {
+        try {
+            ArrayNode array = objectMapper.createArrayNode();
+            for (LiveStatsSubscriber.Update update : updates) {
+                ObjectNode node = array.addObject();
+                node.put("key", update.key());
+                node.put("event", update.event());
+                node.putRawValue("data", new RawValue(update.data()));
+            }
+            return objectMapper.writeValueAsString(array);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to encode live averages", ex);
+        }
+    }
+
+    private void deliver(LiveStatsSubscriber.Update update) {
+        Set<LiveStatsSubscriber> listening = subscribersByKey.get(update.key());
+        if (listening != null) {
+            listening.forEach(subscriber -> offer(subscriber, update));
+        }
+    }
+
+    private void heartbeat() {
+        LiveStatsSubscriber.Update heartbeat = new LiveStatsSubscriber.Update(LiveStatsSubscriber.HEARTBEAT, null, null);
+        subscribers.forEach(subscriber -> offer(subscriber, heartbeat));
+    }
+
+    private void offer(LiveStatsSubscriber subscriber, LiveStatsSubscriber.Update update) {
+        schedule(subscriber, subscriber.offer(update));
+    }
+
+    private void schedule(LiveStatsSubscriber subscriber, boolean drain) {
+        if (drain) {
+            senders.execute(() -> {
+                delivered.increment(subscriber.drain());
+                if (subscriber.isClosed()) {
+                    unsubscribe(subscriber);
+                }
+            });
+        }
+    }
+
+    private void unsubscribe(LiveStatsSubscriber subscriber) {
+        subscriber.close();
+        if (subscribers.remove(subscriber)) {
+            subscriber.getKeys().forEach(key -> subscribersByKey.computeIfPresent(key, (k, listening) -> {
+                listening.remove(subscriber);
+                return listening.isEmpty() ? null : listening;
+            }));
+        }
+    }
+
+    private void enqueue(Map<Long, Set<Long>> pending, Long seasonId, Set<Long> ids) {
+        pending.merge(seasonId, new HashSet<>(ids), (queued, added) -> {
+            queued.addAll(added);
+            return queued;
+        });
+    }
+}
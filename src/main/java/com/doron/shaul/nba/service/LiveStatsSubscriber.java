@@ -0,0 +1,121 @@
+package com.doron.shaul.nba.service;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One SSE connection. Its buffer holds at most the latest undelivered update per subscribed key (plus a heartbeat),
+ * so a slow consumer skips intermediate values instead of growing a backlog. Updates are written by at most one
+ * sender thread at a time. A snapshot of a key is dropped once a live update of that key has been offered, since it
+ * may have been read before the write that update carries.
+ */
+final class LiveStatsSubscriber {
+
+    static final String HEARTBEAT = "";
+
+    record Update(String key, String event, String data) {
+    }
+
+    private final SseEmitter emitter;
+    private final Set<String> keys;
+    private final Counter superseded;
+    private final Map<String, Update> pending = new LinkedHashMap<>();
+    private final Set<String> pushed = new HashSet<>();
+    private boolean draining;
+    private volatile boolean closed;
+
+    LiveStatsSubscriber(SseEmitter emitter, Set<String> keys, Counter superseded) {
+        this.emitter = emitter;
+        this.keys = keys;
+        this.superseded = superseded;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    Set<String> getKeys() {
+        return keys;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * Buffers the update, replacing an undelivered one of the same key, and returns whether the caller must schedule
+     * {@link #drain()}.
+     */
+    synchronized boolean offer(Update update) {
+        pushed.add(update.key());
+        return buffer(update);
+    }
+
+    /**
+     * Like {@link #offer(Update)} for the value a key had when the subscription opened; ignored if a live update of
+     * the key has already been offered.
+     */
+    synchronized boolean offerSnapshot(Update update) {
+        return !pushed.contains(update.key()) && buffer(update);
+    }
+
+    private boolean buffer(Update update) {
+        if (closed) {
+            return false;
+        }
+        if (pending.put(update.key(), update) != null && !HEARTBEAT.equals(update.key())) {
+            superseded.increment();
+        }
+        if (draining) {
+            return false;
+        }
+        draining = true;
+        return true;
+    }
+
+    /**
+     * Sends buffered updates until the buffer is empty; returns the number sent.
+     */
+    int drain() {
+        int sent = 0;
+        while (true) {
+            List<Update> batch;
+            synchronized (this) {
+                if (pending.isEmpty() || closed) {
+                    pending.clear();
+                    draining = false;
+                    return sent;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+
+            try {
+                for (Update update : batch) {
+                    if (HEARTBEAT.equals(update.key())) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(update.event()).data(update.data(), MediaType.APPLICATION_JSON));
+                        sent++;
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                closed = true;
+                emitter.completeWithError(ex);
+            }
+        }
+    }
+}
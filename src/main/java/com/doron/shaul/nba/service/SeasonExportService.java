@@ -0,0 +1,127 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.config.ConcurrencyBulkhead;
+import com.doron.shaul.nba.exception.ExportCapacityExceededException;
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+import com.doron.shaul.nba.model.ExportFilter;
+import com.doron.shaul.nba.repository.SeasonExportRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Streams whole seasons of game lines or player averages. Each export holds a JDBC connection for as long as the
+ * client takes to read it, so at most {@code nba.export.max-concurrent} run at once per instance.
+ */
+@Slf4j
+@Service
+public class SeasonExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromKey(String key) {
+            return Arrays.stream(values())
+                    .filter(format -> format.extension.equalsIgnoreCase(key))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidPayloadException("Unknown export format: " + key));
+        }
+    }
+
+    public enum Dataset {
+        GAME_LINES("game-lines"),
+        PLAYER_AVERAGES("player-averages");
+
+        private final String key;
+
+        Dataset(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public static Dataset fromKey(String key) {
+            return Arrays.stream(values())
+                    .filter(dataset -> dataset.key.equalsIgnoreCase(key))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidPayloadException("Unknown export: " + key));
+        }
+    }
+
+    /**
+     * Opens the stream the export is written to; called only once the export has been admitted.
+     */
+    @FunctionalInterface
+    public interface Target {
+        OutputStream open() throws IOException;
+    }
+
+    private final SeasonExportRepository seasonExportRepository;
+    private final JsonFactory jsonFactory;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrencyBulkhead bulkhead;
+
+    public SeasonExportService(SeasonExportRepository seasonExportRepository,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${nba.export.max-concurrent:2}") int maxConcurrent) {
+        this.seasonExportRepository = seasonExportRepository;
+        this.jsonFactory = objectMapper.getFactory();
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new ConcurrencyBulkhead("export", maxConcurrent, Duration.ZERO);
+    }
+
+    public long export(Dataset dataset, long seasonId, ExportFilter filter, Format format, Target target)
+            throws IOException {
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            throw new InvalidPayloadException("from must not be after to");
+        }
+        if (!bulkhead.tryAcquire()) {
+            throw new ExportCapacityExceededException("Too many exports in progress, retry later");
+        }
+
+        try (OutputStream out = target.open()) {
+            ExportWriter writer = ExportWriter.of(format, out, jsonFactory);
+            long rows = switch (dataset) {
+                case GAME_LINES -> seasonExportRepository.streamGameLines(seasonId, filter, writer);
+                case PLAYER_AVERAGES -> seasonExportRepository.streamPlayerAverages(seasonId, filter, writer);
+            };
+
+            meterRegistry.counter("nba.export.rows", "dataset", dataset.getKey()).increment(rows);
+            log.info("Exported {} {} rows of season {} as {}", rows, dataset.getKey(), seasonId, format);
+            return rows;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
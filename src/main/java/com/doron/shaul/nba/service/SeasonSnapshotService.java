@@ -0,0 +1,183 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.cache.CompactStatsSerializer;
+import com.doron.shaul.nba.cache.SeasonSnapshot;
+import com.doron.shaul.nba.config.InstanceIdentity;
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.TeamSeasonStats;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import com.doron.shaul.nba.repository.SeasonSnapshotRepository;
+import com.doron.shaul.nba.repository.StatsAggregationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Freezes closed seasons into {@link SeasonSnapshot}s. The encoded snapshot is stored in {@code season_snapshots}
+ * so every instance can fetch it, then written to a local file and memory-mapped; reads for a frozen season are
+ * served from the mapping without touching MySQL or Redis.
+ */
+@Slf4j
+@Service
+public class SeasonSnapshotService implements MessageListener {
+
+    public static final String CHANNEL = "nba:season-frozen";
+
+    private static final String SEPARATOR = "\n";
+    private static final int BATCH_SIZE = 500;
+
+    private final SeasonRepository seasonRepository;
+    private final SeasonSnapshotRepository snapshotRepository;
+    private final StatsAggregationRepository statsAggregationRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final InstanceIdentity instanceIdentity;
+    private final Path directory;
+    private final boolean autoFreeze;
+    private final CompactStatsSerializer codec =
+            new CompactStatsSerializer(new GenericJackson2JsonRedisSerializer(), Integer.MAX_VALUE);
+
+    private final Map<Long, SeasonSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public SeasonSnapshotService(SeasonRepository seasonRepository,
+                                 SeasonSnapshotRepository snapshotRepository,
+                                 StatsAggregationRepository statsAggregationRepository,
+                                 StringRedisTemplate redisTemplate,
+                                 InstanceIdentity instanceIdentity,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${nba.seasons.snapshots.dir:data/season-snapshots}") Path directory,
+                                 @Value("${nba.seasons.snapshots.auto-freeze:false}") boolean autoFreeze) {
+        this.seasonRepository = seasonRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.statsAggregationRepository = statsAggregationRepository;
+        this.redisTemplate = redisTemplate;
+        this.instanceIdentity = instanceIdentity;
+        this.directory = directory;
+        this.autoFreeze = autoFreeze;
+
+        meterRegistry.gaugeMapSize("nba.seasons.frozen", List.of(), snapshots);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFrozenSeasons() {
+        try {
+            snapshotRepository.findSeasonIds(SeasonSnapshot.VERSION).forEach(this::load);
+            if (autoFreeze) {
+                seasonRepository.findClosedSeasonIds().stream()
+                        .filter(seasonId -> !snapshots.containsKey(seasonId))
+                        .forEach(this::freeze);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to load frozen seasons, they will be served from the live tables: {}", ex.getMessage());
+        }
+    }
+
+    public boolean isFrozen(long seasonId) {
+        return snapshots.containsKey(seasonId);
+    }
+
+    public SeasonSnapshot get(long seasonId) {
+        return snapshots.get(seasonId);
+    }
+
+    public Map<Long, Map<String, Object>> getFrozenSeasons() {
+        Map<Long, Map<String, Object>> seasons = new TreeMap<>();
+        snapshots.forEach((seasonId, snapshot) -> seasons.put(seasonId, Map.of(
+                "players", snapshot.getPlayerCount(),
+                "teams", snapshot.getTeamCount(),
+                "bytes", snapshot.sizeInBytes())));
+        return seasons;
+    }
+
+    public synchronized SeasonSnapshot freeze(long seasonId) {
+        if (!seasonRepository.isClosed(seasonId)) {
+            throw new InvalidPayloadException("Season " + seasonId + " has not ended and cannot be frozen");
+        }
+
+        SortedMap<Long, PlayerSeasonStats> players = new TreeMap<>();
+        for (List<Long> batch : batches(seasonRepository.findPlayerIds(seasonId))) {
+            statsAggregationRepository.getPlayerSeasonStats(batch, seasonId)
+                    .forEach(row -> players.putIfAbsent(row.getPlayerId(), row));
+        }
+
+        SortedMap<Long, List<TeamSeasonStats>> teams = new TreeMap<>();
+        for (List<Long> batch : batches(seasonRepository.findTeamIds(seasonId))) {
+            statsAggregationRepository.getTeamSeasonStats(batch, seasonId)
+                    .forEach(row -> teams.computeIfAbsent(row.getTeamId(), id -> new ArrayList<>()).add(row));
+        }
+
+        byte[] data = SeasonSnapshot.encode(seasonId, players, teams, codec);
+        snapshotRepository.save(seasonId, SeasonSnapshot.VERSION, players.size(), teams.size(), data);
+        SeasonSnapshot snapshot = install(seasonId, data);
+
+        redisTemplate.convertAndSend(CHANNEL, instanceIdentity.getId() + SEPARATOR + seasonId);
+        log.info("Froze season {}: {} players, {} teams, {} bytes", seasonId, players.size(), teams.size(), data.length);
+        return snapshot;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 2);
+        if (parts.length < 2 || instanceIdentity.isSelf(parts[0])) {
+            return;
+        }
+
+        try {
+            load(Long.parseLong(parts[1]));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to load snapshot of season {}: {}", parts[1], ex.getMessage());
+        }
+    }
+
+    private void load(long seasonId) {
+        snapshotRepository.findSnapshot(seasonId).ifPresent(data -> install(seasonId, data));
+    }
+
+    private SeasonSnapshot install(long seasonId, byte[] data) {
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve("season-" + seasonId + ".snapshot");
+            Path temp = directory.resolve("season-" + seasonId + ".snapshot.tmp");
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            SeasonSnapshot snapshot = SeasonSnapshot.map(file, codec);
+            snapshots.put(seasonId, snapshot);
+            return snapshot;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to install snapshot of season " + seasonId, ex);
+        }
+    }
+
+    private static List<List<Long>> batches(List<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            batches.add(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,79 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.analytics.SplitRollup;
+import com.doron.shaul.nba.cache.CacheKeys;
+import com.doron.shaul.nba.model.GameMetadata;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.model.SplitStats;
+import com.doron.shaul.nba.repository.SplitRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Home/away, opponent and playoff/regular season splits, kept in rollup tables that are updated in the ingest
+ * transaction and served through the averages caches under the same generations as the season averages.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SplitRollupService {
+
+    private final SplitRollupRepository splitRollupRepository;
+
+    /**
+     * Adds freshly saved lines to the split rollups; must run in the transaction that saved them, after the season
+     * rollups.
+     */
+    public void apply(List<PlayerGameStats> statsList, Map<Long, GameMetadata> games) {
+        if (statsList.isEmpty()) {
+            return;
+        }
+
+        List<Long> playerIds = statsList.stream().map(PlayerGameStats::getPlayerId).distinct().toList();
+        List<Long> seasonIds = games.values().stream().map(GameMetadata::getSeasonId).distinct().toList();
+        Map<Long, Map<Long, Set<Long>>> playerTeams = splitRollupRepository.findPlayerTeams(playerIds, seasonIds);
+
+        SplitRollup rollup = new SplitRollup();
+        for (PlayerGameStats line : statsList) {
+            GameMetadata game = games.get(line.getGameId());
+            rollup.add(line, game, playerTeams.getOrDefault(game.getSeasonId(), Map.of())
+                    .getOrDefault(line.getPlayerId(), Set.of()));
+        }
+
+        splitRollupRepository.addPlayerTotals(rollup.playerTotals());
+        splitRollupRepository.addTeamTotals(rollup.teamTotals());
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        splitRollupRepository.rebuildFromRawRows();
+        log.info("Rebuilt split rollups from raw rows in {} ms", System.currentTimeMillis() - start);
+    }
+
+    @Cacheable(cacheNames = CacheKeys.PLAYER_SPLIT_STATS, sync = true,
+            key = "@cacheGenerations.playerSplitsKey(#playerId, #seasonId)")
+    public List<SplitStats> getPlayerSplits(long playerId, long seasonId) {
+        List<SplitStats> splits = splitRollupRepository.findPlayerSplits(playerId, seasonId);
+        if (splits.isEmpty()) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        return splits;
+    }
+
+    @Cacheable(cacheNames = CacheKeys.TEAM_SPLIT_STATS, sync = true,
+            key = "@cacheGenerations.teamSplitsKey(#teamId, #seasonId)")
+    public List<SplitStats> getTeamSplits(long teamId, long seasonId) {
+        List<SplitStats> splits = splitRollupRepository.findTeamSplits(teamId, seasonId);
+        if (splits.isEmpty()) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        return splits;
+    }
+}
@@ -0,0 +1,25 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.model.PlayerGameStats;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Getter
+@RequiredArgsConstructor
+public class StatsRecordedEvent {
+
+    private final List<PlayerGameStats> stats;
+    private final Map<Long, Long> seasonIdsByGameId;
+    private final Map<Long, Set<Long>> teamIdsBySeasonId;
+    private final Map<Long, Long> leaderboardEpochsBySeasonId;
+
+    public Map<Long, List<PlayerGameStats>> statsBySeasonId() {
+        return stats.stream()
+                .collect(Collectors.groupingBy(line -> seasonIdsByGameId.get(line.getGameId())));
+    }
+}
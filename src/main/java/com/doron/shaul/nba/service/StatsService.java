@@ -1,80 +1,210 @@
 package com.doron.shaul.nba.service;
 
+import com.doron.shaul.nba.cache.BatchCacheReader;
+import com.doron.shaul.nba.cache.CacheGenerations;
+import com.doron.shaul.nba.cache.CacheKeys;
+import com.doron.shaul.nba.cache.GameMetadataIndex;
+import com.doron.shaul.nba.cache.SeasonSnapshot;
+import com.doron.shaul.nba.config.DataSourceRouting;
+import com.doron.shaul.nba.exception.SeasonFrozenException;
+import com.doron.shaul.nba.model.GameMetadata;
 import com.doron.shaul.nba.model.PlayerGameStats;
 import com.doron.shaul.nba.model.PlayerSeasonStats;
 import com.doron.shaul.nba.model.TeamSeasonStats;
-import com.doron.shaul.nba.repository.GameRepository;
 import com.doron.shaul.nba.repository.PlayerStatsRepository;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import com.doron.shaul.nba.repository.SeasonRollupRepository;
 import com.doron.shaul.nba.repository.StatsAggregationRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.cache.CacheManager;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class StatsService {
 
     private final PlayerStatsRepository playerStatsRepository;
     private final StatsAggregationRepository statsAggregationRepository;
-    private final GameRepository gameRepository;
-    private final CacheManager cacheManager;
+    private final GameMetadataIndex gameMetadataIndex;
+    private final SeasonRollupRepository seasonRollupRepository;
+    private final SeasonRepository seasonRepository;
+    private final SplitRollupService splitRollupService;
+    private final CacheGenerations cacheGenerations;
+    private final BatchCacheReader batchCacheReader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SeasonSnapshotService seasonSnapshotService;
+    private final DistributionSummary batchLines;
+
+    public StatsService(PlayerStatsRepository playerStatsRepository,
+                        StatsAggregationRepository statsAggregationRepository,
+                        GameMetadataIndex gameMetadataIndex,
+                        SeasonRollupRepository seasonRollupRepository,
+                        SeasonRepository seasonRepository,
+                        SplitRollupService splitRollupService,
+                        CacheGenerations cacheGenerations,
+                        BatchCacheReader batchCacheReader,
+                        ApplicationEventPublisher eventPublisher,
+                        SeasonSnapshotService seasonSnapshotService,
+                        MeterRegistry meterRegistry) {
+        this.playerStatsRepository = playerStatsRepository;
+        this.statsAggregationRepository = statsAggregationRepository;
+        this.gameMetadataIndex = gameMetadataIndex;
+        this.seasonRollupRepository = seasonRollupRepository;
+        this.seasonRepository = seasonRepository;
+        this.splitRollupService = splitRollupService;
+        this.cacheGenerations = cacheGenerations;
+        this.batchCacheReader = batchCacheReader;
+        this.eventPublisher = eventPublisher;
+        this.seasonSnapshotService = seasonSnapshotService;
+        this.batchLines = DistributionSummary.builder("nba.ingest.batch.lines")
+                .tag("operation", "recordPlayerStats")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
     @Transactional
     public List<Long> recordPlayerStats(List<PlayerGameStats> statsList) {
+        batchLines.record(statsList.size());
+
+        Map<Long, Long> seasonIdsByGameId = new HashMap<>();
+        Map<Long, Set<Long>> teamIdsBySeasonId = new HashMap<>();
+
+        Set<Long> gameIds = statsList.stream()
+                .map(PlayerGameStats::getGameId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<Long, GameMetadata> games = gameMetadataIndex.getAll(gameIds);
+        for (Long gameId : gameIds) {
+            GameMetadata game = games.get(gameId);
+            if (game == null) {
+                throw new EmptyResultDataAccessException("Game " + gameId + " not found", 1);
+            }
+            if (seasonSnapshotService.isFrozen(game.getSeasonId())) {
+                throw new SeasonFrozenException(game.getSeasonId());
+            }
+            seasonIdsByGameId.put(gameId, game.getSeasonId());
+            Set<Long> teamIds = teamIdsBySeasonId.computeIfAbsent(game.getSeasonId(), id -> new HashSet<>());
+            teamIds.add(game.getHomeTeamId());
+            teamIds.add(game.getAwayTeamId());
+        }
 
-        Set<Long> playerIds = statsList.stream()
-                .map(PlayerGameStats::getPlayerId)
-                .collect(Collectors.toSet());
-
-        Long gameId = statsList.stream().map(PlayerGameStats::getGameId).findFirst().orElse(null);
-        Long seasonId = gameRepository.findSeasonIdByGameId(gameId);
-        Set<Long> teamIds = gameRepository.findTeamIdsByGameId(gameId);
+        Map<Long, Long> leaderboardEpochs = seasonRepository.lockLeaderboardEpochs(teamIdsBySeasonId.keySet());
 
         List<Long> result = playerStatsRepository.savePlayerStats(statsList);
+        for (int i = 0; i < result.size(); i++) {
+            statsList.get(i).setStatId(result.get(i));
+        }
+        seasonRollupRepository.applyStatLines(result);
+        splitRollupService.apply(statsList, games);
 
-        evictPlayerCaches(playerIds, seasonId);
-        evictTeamCaches(teamIds, seasonId);
+        eventPublisher.publishEvent(new StatsRecordedEvent(statsList, seasonIdsByGameId, teamIdsBySeasonId,
+                leaderboardEpochs));
 
         return result;
     }
 
-    @Cacheable(cacheNames = "playerSeasonStats",
-            key = "'player_' + #playerId + '_season_' + #seasonId")
+    @Cacheable(cacheNames = CacheKeys.PLAYER_SEASON_STATS, sync = true,
+            key = "@cacheGenerations.playerKey(#playerId, #seasonId)",
+            condition = "!@seasonSnapshotService.isFrozen(#seasonId)")
     public PlayerSeasonStats getPlayerSeasonStats(long playerId, long seasonId) {
-        return statsAggregationRepository.getPlayerSeasonStats(playerId, seasonId);
+        SeasonSnapshot snapshot = seasonSnapshotService.get(seasonId);
+        if (snapshot != null) {
+            PlayerSeasonStats stats = snapshot.player(playerId);
+            if (stats == null) {
+                throw new EmptyResultDataAccessException(1);
+            }
+            return stats;
+        }
+        try (DataSourceRouting.Scope ignored = cacheGenerations.playerLoads(List.of(playerId), seasonId)) {
+            return statsAggregationRepository.getPlayerSeasonStats(playerId, seasonId);
+        }
     }
 
-    @Cacheable(cacheNames = "teamSeasonStats",
-            key = "'team_' + #teamId + '_season_' + #seasonId")
+    @Cacheable(cacheNames = CacheKeys.TEAM_SEASON_STATS, sync = true,
+            key = "@cacheGenerations.teamKey(#teamId, #seasonId)",
+            condition = "!@seasonSnapshotService.isFrozen(#seasonId)")
     public List<TeamSeasonStats> getTeamSeasonStats(long teamId, long seasonId) {
-        return statsAggregationRepository.getTeamSeasonStats(teamId, seasonId);
+        SeasonSnapshot snapshot = seasonSnapshotService.get(seasonId);
+        if (snapshot != null) {
+            return snapshot.team(teamId);
+        }
+        try (DataSourceRouting.Scope ignored = cacheGenerations.teamLoads(List.of(teamId), seasonId)) {
+            return statsAggregationRepository.getTeamSeasonStats(teamId, seasonId);
+        }
     }
 
-    private void evictPlayerCaches(Set<Long> playerIds, Long seasonId) {
-        if (playerIds == null || playerIds.isEmpty() || seasonId == null) {
-            return;
+    public List<PlayerSeasonStats> getPlayerSeasonStats(Collection<Long> playerIds, long seasonId) {
+        SeasonSnapshot snapshot = seasonSnapshotService.get(seasonId);
+        if (snapshot != null) {
+            return playerIds.stream()
+                    .distinct()
+                    .map(snapshot::player)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
         }
 
-        for (Long playerId : playerIds) {
-            String cacheKey = "player_" + playerId + "_season_" + seasonId;
-            cacheManager.getCache("playerSeasonStats").evict(cacheKey);
-        }
+        Map<Long, String> keysByPlayerId = cacheGenerations.playerKeys(playerIds, seasonId);
+        Map<String, Long> playerIdsByKey = new LinkedHashMap<>();
+        keysByPlayerId.forEach((playerId, key) -> playerIdsByKey.put(key, playerId));
+
+        Map<String, PlayerSeasonStats> stats = batchCacheReader.getAll(CacheKeys.PLAYER_SEASON_STATS,
+                playerIdsByKey.keySet(),
+                missingKeys -> {
+                    List<Long> missingPlayerIds = missingKeys.stream().map(playerIdsByKey::get).toList();
+                    Map<String, PlayerSeasonStats> loaded = new LinkedHashMap<>();
+                    try (DataSourceRouting.Scope ignored = cacheGenerations.playerLoads(missingPlayerIds, seasonId)) {
+                        statsAggregationRepository.getPlayerSeasonStats(missingPlayerIds, seasonId).forEach(row ->
+                                loaded.putIfAbsent(keysByPlayerId.get(row.getPlayerId()), row));
+                    }
+                    return loaded;
+                });
+
+        return new ArrayList<>(stats.values());
     }
 
-    private void evictTeamCaches(Set<Long> teamIds, Long seasonId) {
-        if (teamIds == null || teamIds.isEmpty() || seasonId == null) {
-            return;
+    public List<TeamSeasonStats> getTeamSeasonStats(Collection<Long> teamIds, long seasonId) {
+        SeasonSnapshot snapshot = seasonSnapshotService.get(seasonId);
+        if (snapshot != null) {
+            return teamIds.stream()
+                    .distinct()
+                    .flatMap(teamId -> snapshot.team(teamId).stream())
+                    .collect(Collectors.toList());
         }
 
-        for (Long teamId : teamIds) {
-            String cacheKey = "team_" + teamId + "_season_" + seasonId;
-            cacheManager.getCache("teamSeasonStats").evict(cacheKey);
-        }
+        Map<Long, String> keysByTeamId = cacheGenerations.teamKeys(teamIds, seasonId);
+        Map<String, Long> teamIdsByKey = new LinkedHashMap<>();
+        keysByTeamId.forEach((teamId, key) -> teamIdsByKey.put(key, teamId));
+
+        Map<String, List<TeamSeasonStats>> stats = batchCacheReader.getAll(CacheKeys.TEAM_SEASON_STATS,
+                teamIdsByKey.keySet(),
+                missingKeys -> {
+                    List<Long> missingTeamIds = missingKeys.stream().map(teamIdsByKey::get).toList();
+                    Map<String, List<TeamSeasonStats>> loaded = new LinkedHashMap<>();
+                    missingKeys.forEach(key -> loaded.put(key, new ArrayList<>()));
+                    try (DataSourceRouting.Scope ignored = cacheGenerations.teamLoads(missingTeamIds, seasonId)) {
+                        statsAggregationRepository.getTeamSeasonStats(missingTeamIds, seasonId).forEach(row ->
+                                loaded.get(keysByTeamId.get(row.getTeamId())).add(row));
+                    }
+                    return loaded;
+                });
+
+        return stats.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
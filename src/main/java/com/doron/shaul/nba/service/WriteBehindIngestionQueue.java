@@ -0,0 +1,292 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.exception.IngestionQueueFullException;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class WriteBehindIngestionQueue implements SmartLifecycle {
+
+    private record PendingBatch(long sequence, List<PlayerGameStats> stats) {
+    }
+
+    private final StatsService statsService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int capacity;
+    private final int maxGroupLines;
+    private final Duration flushInterval;
+    private final Duration drainTimeout;
+    private final Path journalDirectory;
+    private final boolean fsync;
+    private final DataSize journalSegmentSize;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+
+    private final BlockingQueue<PendingBatch> queue;
+    private final AtomicInteger pendingLines = new AtomicInteger();
+    private final Object enqueueLock = new Object();
+
+    private final Timer commitTimer;
+    private final DistributionSummary groupSize;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Counter retries;
+
+    private IngestionJournal journal;
+    private List<PendingBatch> replay = List.of();
+    private Thread flusher;
+    private volatile boolean running;
+
+    public WriteBehindIngestionQueue(StatsService statsService,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${nba.ingest.write-behind.enabled:false}") boolean enabled,
+                                     @Value("${nba.ingest.write-behind.capacity:1000}") int capacity,
+                                     @Value("${nba.ingest.write-behind.max-group-lines:2000}") int maxGroupLines,
+                                     @Value("${nba.ingest.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                     @Value("${nba.ingest.write-behind.drain-timeout:30s}") Duration drainTimeout,
+                                     @Value("${nba.ingest.write-behind.journal-dir:data/ingest-journal}") Path journalDirectory,
+                                     @Value("${nba.ingest.write-behind.fsync:true}") boolean fsync,
+                                     @Value("${nba.ingest.write-behind.journal-segment-size:64MB}")
+                                     DataSize journalSegmentSize,
+                                     @Value("${nba.ingest.write-behind.retry-backoff:100ms}") Duration retryBackoff,
+                                     @Value("${nba.ingest.write-behind.max-retry-backoff:10s}") Duration maxRetryBackoff) {
+        this.statsService = statsService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.maxGroupLines = maxGroupLines;
+        this.flushInterval = flushInterval;
+        this.drainTimeout = drainTimeout;
+        this.journalDirectory = journalDirectory;
+        this.fsync = fsync;
+        this.journalSegmentSize = journalSegmentSize;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        meterRegistry.gauge("nba.ingest.queue.depth", queue, BlockingQueue::size);
+        meterRegistry.gauge("nba.ingest.queue.lines", pendingLines);
+        this.commitTimer = Timer.builder("nba.ingest.queue.commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.groupSize = DistributionSummary.builder("nba.ingest.queue.group.lines")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("nba.ingest.queue.rejected");
+        this.failed = meterRegistry.counter("nba.ingest.queue.failed");
+        this.retries = meterRegistry.counter("nba.ingest.queue.retries");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueue(List<PlayerGameStats> statsList) {
+        synchronized (enqueueLock) {
+            if (!running) {
+                rejected.increment();
+                throw new IngestionQueueFullException("Ingestion queue is not accepting batches");
+            }
+            if (queue.remainingCapacity() == 0) {
+                rejected.increment();
+                throw new IngestionQueueFullException("Ingestion queue is full (" + capacity + " batches)");
+            }
+
+            long sequence = journal.append(statsList);
+            pendingLines.addAndGet(statsList.size());
+            queue.add(new PendingBatch(sequence, statsList));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            journal = new IngestionJournal(journalDirectory, objectMapper, fsync, journalSegmentSize.toBytes());
+            // Replayed by the flusher ahead of new batches, so a database outage at startup is retried like any other
+            replay = journal.readUncommitted().stream()
+                    .map(entry -> new PendingBatch(entry.getSequence(), entry.getStats()))
+                    .toList();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to open ingestion journal in " + journalDirectory, ex);
+        }
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "ingest-flusher");
+        flusher.start();
+        log.info("Write-behind ingestion enabled (capacity {}, group size {}, flush interval {})",
+                capacity, maxGroupLines, flushInterval);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+
+        synchronized (enqueueLock) {
+            running = false;
+        }
+        log.info("Draining {} queued ingestion batches", queue.size());
+
+        try {
+            flusher.join(drainTimeout.toMillis());
+            if (flusher.isAlive()) {
+                log.warn("Ingestion queue did not drain within {}, {} batches left in the journal",
+                        drainTimeout, queue.size());
+                flusher.interrupt();
+                flusher.join(drainTimeout.toMillis());
+            }
+            journal.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            log.warn("Failed to close ingestion journal: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void runFlusher() {
+        List<PendingBatch> group = new ArrayList<>();
+        try {
+            if (!replay.isEmpty()) {
+                log.info("Replaying {} uncommitted batches from the ingestion journal", replay.size());
+                commit(replay);
+                replay = List.of();
+            }
+
+            while (running || !queue.isEmpty()) {
+                PendingBatch first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+
+                int lines = first.stats().size();
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (lines < maxGroupLines) {
+                    PendingBatch next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    lines += next.stats().size();
+                }
+
+                try {
+                    commit(group);
+                } finally {
+                    pendingLines.addAndGet(-lines);
+                    group.clear();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            // Only reached while stopping with the database unavailable: nothing uncommitted was checkpointed
+            log.warn("Stopped with the current group and {} queued ingestion batches uncommitted, they are replayed "
+                    + "from the journal on the next start: {}", queue.size(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Commits the group in one transaction, falling back to one transaction per batch if the data is rejected. The
+     * checkpoint only moves past batches that were committed or dead-lettered.
+     */
+    private void commit(List<PendingBatch> group) throws InterruptedException {
+        List<PlayerGameStats> merged = new ArrayList<>();
+        group.forEach(batch -> merged.addAll(batch.stats()));
+        groupSize.record(merged.size());
+
+        long start = System.nanoTime();
+        try {
+            RuntimeException rejection = record(merged);
+            if (rejection == null) {
+                journal.commit(group.get(group.size() - 1).sequence());
+                return;
+            }
+
+            log.warn("Group commit of {} batches was rejected ({}), committing batches individually",
+                    group.size(), rejection.getMessage());
+            for (PendingBatch batch : group) {
+                RuntimeException batchRejection = record(batch.stats());
+                if (batchRejection != null) {
+                    failed.increment();
+                    log.error("Dead-lettering queued batch {} of {} stat lines: {}",
+                            batch.sequence(), batch.stats().size(), batchRejection.getMessage());
+                    journal.deadLetter(batch.sequence(), batch.stats(), batchRejection.getMessage());
+                }
+                journal.commit(batch.sequence());
+            }
+        } finally {
+            commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records the lines, retrying with exponential backoff until they are committed or the queue stops. Returns the
+     * exception if the data itself was rejected, which no retry can fix.
+     */
+    private RuntimeException record(List<PlayerGameStats> stats) throws InterruptedException {
+        long backoff = retryBackoff.toMillis();
+        while (true) {
+            try {
+                statsService.recordPlayerStats(stats);
+                return null;
+            } catch (RuntimeException ex) {
+                if (isRejection(ex)) {
+                    return ex;
+                }
+                if (!running) {
+                    throw ex;
+                }
+                retries.increment();
+                log.warn("Committing {} queued stat lines failed ({}), retrying in {} ms",
+                        stats.size(), ex.getMessage(), backoff);
+                TimeUnit.MILLISECONDS.sleep(backoff);
+                backoff = Math.min(backoff * 2, maxRetryBackoff.toMillis());
+            }
+        }
+    }
+
+    private static boolean isRejection(RuntimeException ex) {
+        return ex instanceof NonTransientDataAccessException
+                && !(ex instanceof NonTransientDataAccessResourceException);
+    }
+}
@@ -0,0 +1,12 @@
+-- KEYS[1]: hash of a season's distributions, one field per stat and position, plus the stat lines they cover
+-- ARGV[1]: stat lines covered by the rollup snapshot the new distributions were built from
+-- ARGV[2]: '1' to publish even if the published distributions cover as many lines (a rebuild)
+-- ARGV[3..]: field, value pairs of the new distributions
+-- Returns 1 if the distributions were replaced, 0 if the published ones are at least as recent
+local published = tonumber(redis.call('HGET', KEYS[1], 'lines') or '-1')
+if ARGV[2] ~= '1' and tonumber(ARGV[1]) <= published then
+    return 0
+end
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], 'lines', ARGV[1], unpack(ARGV, 3))
+return 1
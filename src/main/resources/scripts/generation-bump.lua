@@ -0,0 +1,19 @@
+-- KEYS: generation counters to bump
+-- ARGV[1]: current time in milliseconds; a bumped counter moves to at least this value, so every generation is no
+-- older than the bump that produced it, and a counter that does not exist (or was evicted) starts above any value
+-- it could have reached
+-- Returns the previous (0 if the counter did not exist) and the new generation of every key, in KEYS order
+local now = tonumber(ARGV[1])
+local generations = {}
+for i = 1, #KEYS do
+    local previous = redis.call('GET', KEYS[i])
+    if previous then
+        generations[2 * i - 1] = tonumber(previous)
+        generations[2 * i] = math.max(tonumber(previous) + 1, now)
+    else
+        generations[2 * i - 1] = 0
+        generations[2 * i] = now
+    end
+    redis.call('SET', KEYS[i], string.format('%d', generations[2 * i]))
+end
+return generations
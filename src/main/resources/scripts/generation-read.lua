@@ -0,0 +1,12 @@
+-- KEYS: generation counters to read
+-- ARGV[1]: seed for counters that do not exist yet (see generation-bump.lua)
+local generations = {}
+for i = 1, #KEYS do
+    local generation = redis.call('GET', KEYS[i])
+    if not generation then
+        redis.call('SET', KEYS[i], ARGV[1])
+        generation = ARGV[1]
+    end
+    generations[i] = tonumber(generation)
+end
+return generations
@@ -0,0 +1,39 @@
+-- KEYS[1]: epoch string, KEYS[2]: games-played hash, then per stat category: sum hash, average zset and one zset per
+-- games threshold
+-- ARGV[1]: leaderboard epoch the lines were committed under, ARGV[2]: number of stat categories, ARGV[3]: number of
+-- games thresholds, then the thresholds in KEYS order, then per stat line: player id followed by one value per category
+-- Returns 0 if the lines are already counted by a rebuilt snapshot and -1 if a rebuild that will not count them has
+-- not been swapped in yet; the caller retries those later
+local epoch = tonumber(ARGV[1])
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+if epoch < current then
+    return 0
+end
+if epoch > current then
+    return -1
+end
+
+-- A player enters a threshold's zset once their games played reach it
+local categories = tonumber(ARGV[2])
+local thresholds = tonumber(ARGV[3])
+local stride = 2 + thresholds
+local i = 4 + thresholds
+local lines = 0
+while i <= #ARGV do
+    local player = ARGV[i]
+    local games = redis.call('HINCRBY', KEYS[2], player, 1)
+    for c = 1, categories do
+        local base = 2 + (c - 1) * stride
+        local sum = redis.call('HINCRBYFLOAT', KEYS[base + 1], player, ARGV[i + c])
+        local average = tonumber(sum) / games
+        redis.call('ZADD', KEYS[base + 2], average, player)
+        for t = 1, thresholds do
+            if games >= tonumber(ARGV[3 + t]) then
+                redis.call('ZADD', KEYS[base + 2 + t], average, player)
+            end
+        end
+    end
+    lines = lines + 1
+    i = i + categories + 1
+end
+return lines
@@ -0,0 +1,27 @@
+-- KEYS[1]: epoch string, then the live keys followed by their staged copies in the same order
+-- ARGV[1]: leaderboard epoch of the snapshot the staged keys were built from
+-- Renames every staged key over its live key (deleting live keys that have no staged copy) and moves the epoch, so
+-- readers and the record script see either the old leaderboards or the whole snapshot. Returns 0 without touching
+-- the live keys if a snapshot of the same or a newer epoch was already swapped in.
+local epoch = tonumber(ARGV[1])
+local count = (#KEYS - 1) / 2
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+if current >= epoch then
+    for i = 1, count do
+        redis.call('DEL', KEYS[1 + count + i])
+    end
+    return 0
+end
+
+for i = 1, count do
+    local live = KEYS[1 + i]
+    local staged = KEYS[1 + count + i]
+    if redis.call('EXISTS', staged) == 1 then
+        redis.call('RENAME', staged, live)
+        redis.call('PERSIST', live)
+    else
+        redis.call('DEL', live)
+    end
+end
+redis.call('SET', KEYS[1], ARGV[1])
+return 1
@@ -2,7 +2,9 @@ package com.doron.shaul.nba;
 
 import com.doron.shaul.nba.model.PlayerGameStats;
 import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.SeasonStatsBatchRequest;
 import com.doron.shaul.nba.model.TeamSeasonStats;
+import com.doron.shaul.nba.service.SeasonRollupService;
 import com.doron.shaul.nba.service.StatsService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +14,7 @@ import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -28,7 +31,10 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @Testcontainers
@@ -44,6 +50,9 @@ public class NbaStatisticsIntegrationTest {
     @Autowired
     private StatsService statsService;
 
+    @Autowired
+    private SeasonRollupService seasonRollupService;
+
     @Container
     static MySQLContainer<?> mysqlContainer = new MySQLContainer<>(DockerImageName.parse("mysql:8.0"))
             .withDatabaseName("nba_stats_test")
@@ -131,5 +140,101 @@ public class NbaStatisticsIntegrationTest {
 
         assertEquals(HttpStatus.OK, teamStatsResponse.getStatusCode());
         assertNotNull(teamStatsResponse.getBody());
+
+        SeasonStatsBatchRequest batchRequest = new SeasonStatsBatchRequest();
+        batchRequest.setSeasonId(1L);
+        batchRequest.setIds(Arrays.asList(1L, 2L));
+
+        ResponseEntity<List<PlayerSeasonStats>> batchResponse = restTemplate.exchange(
+                "http://localhost:" + port + "/api/v1/players/stats/averages:batch",
+                HttpMethod.POST,
+                new HttpEntity<>(batchRequest),
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        assertEquals(HttpStatus.OK, batchResponse.getStatusCode());
+        assertNotNull(batchResponse.getBody());
+        assertEquals(2, batchResponse.getBody().size());
+
+        assertTrue(seasonRollupService.verify().isConsistent());
+    }
+
+    @Test
+    void testConditionalGetReturnsNotModifiedUntilStatsChange() {
+        String statsUrl = "http://localhost:" + port + "/api/v1/games/2/stats";
+        String playerUrl = "http://localhost:" + port + "/api/v1/players/2/stats/averages?seasonId=1";
+        String teamUrl = "http://localhost:" + port + "/api/v1/teams/2/stats/averages?seasonId=1";
+
+        assertEquals(HttpStatus.CREATED, restTemplate.postForEntity(statsUrl, List.of(statLine(2L, 2L)), String.class)
+                .getStatusCode());
+
+        ResponseEntity<String> player = restTemplate.getForEntity(playerUrl, String.class);
+        assertEquals(HttpStatus.OK, player.getStatusCode());
+        String playerETag = player.getHeaders().getETag();
+        assertNotNull(playerETag);
+        assertEquals(HttpStatus.NOT_MODIFIED, conditionalGet(playerUrl, playerETag).getStatusCode());
+
+        String teamETag = restTemplate.getForEntity(teamUrl, String.class).getHeaders().getETag();
+        assertNotNull(teamETag);
+        assertEquals(HttpStatus.NOT_MODIFIED, conditionalGet(teamUrl, teamETag).getStatusCode());
+
+        assertEquals(HttpStatus.CREATED, restTemplate.postForEntity(statsUrl, List.of(statLine(1L, 2L)), String.class)
+                .getStatusCode());
+
+        ResponseEntity<String> team = conditionalGet(teamUrl, teamETag);
+        assertEquals(HttpStatus.OK, team.getStatusCode());
+        assertNotEquals(teamETag, team.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, conditionalGet(playerUrl, playerETag).getStatusCode());
+    }
+
+    @Test
+    void testSeasonExportStreamsCsvAndNdjson() {
+        String exportUrl = "http://localhost:" + port + "/api/v1/seasons/1/export/";
+        assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("http://localhost:" + port +
+                "/api/v1/games/3/stats", List.of(statLine(1L, 3L)), String.class).getStatusCode());
+
+        ResponseEntity<String> csv = restTemplate.getForEntity(exportUrl + "game-lines?format=csv&teamId=1",
+                String.class);
+        assertEquals(HttpStatus.OK, csv.getStatusCode());
+        assertNotNull(csv.getBody());
+        assertTrue(csv.getBody().startsWith("stat_id,game_id,game_date,playoff,player_id,team_id,venue,points,"));
+        List<String> lines = csv.getBody().lines().skip(1).toList();
+        assertFalse(lines.isEmpty());
+        lines.forEach(line -> assertEquals("1", line.split(",")[5]));
+
+        ResponseEntity<String> ndjson = restTemplate.getForEntity(exportUrl + "player-averages?playoff=false",
+                String.class);
+        assertEquals(HttpStatus.OK, ndjson.getStatusCode());
+        assertEquals("application/x-ndjson", ndjson.getHeaders().getContentType().toString().split(";")[0]);
+        assertNotNull(ndjson.getBody());
+        List<String> averages = ndjson.getBody().lines().toList();
+        assertFalse(averages.isEmpty());
+        averages.forEach(line -> assertTrue(line.startsWith("{\"player_id\":")));
+        assertEquals(averages.size(), averages.stream().distinct().count());
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(exportUrl + "box-scores", String.class).getStatusCode());
+    }
+
+    private ResponseEntity<String> conditionalGet(String url, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private static PlayerGameStats statLine(long playerId, long gameId) {
+        PlayerGameStats stats = new PlayerGameStats();
+        stats.setPlayerId(playerId);
+        stats.setGameId(gameId);
+        stats.setPoints(12);
+        stats.setRebounds(4);
+        stats.setAssists(6);
+        stats.setSteals(1);
+        stats.setBlocks(0);
+        stats.setFouls(2);
+        stats.setTurnovers(3);
+        stats.setMinutesPlayed(24.0);
+        return stats;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,124 @@
+package com.doron.shaul.nba.analytics;
+
+import com.doron.shaul.nba.model.AnalyticsQuery;
+import com.doron.shaul.nba.model.AnalyticsRow;
+import com.doron.shaul.nba.model.GameLine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColumnarQueryEngineTest {
+
+    private static final LocalDate SEASON_START = LocalDate.of(2023, 10, 24);
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final ColumnarQueryEngine engine = new ColumnarQueryEngine(pool, 64);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testParallelScanMatchesSequentialTotals() {
+        SeasonColumnStore store = new SeasonColumnStore(1, 16);
+        List<GameLine> lines = new ArrayList<>();
+        long expectedPoints = 0;
+        for (int i = 0; i < 1000; i++) {
+            GameLine line = line(i + 1, i / 10 + 1, i % 10 + 1, i % 2 == 0 ? 1L : 2L, i % 2 == 0, i >= 900);
+            line.setPoints(i % 30);
+            expectedPoints += i % 30;
+            lines.add(line);
+        }
+        store.append(lines);
+
+        List<AnalyticsRow> rows = engine.execute(store.snapshot(), new AnalyticsQuery());
+
+        assertEquals(1, rows.size());
+        assertEquals(1000, rows.get(0).getGamesPlayed());
+        assertEquals((double) expectedPoints, rows.get(0).getTotals().get("points"));
+        assertEquals(20_000.0, rows.get(0).getTotals().get("minutesPlayed"));
+    }
+
+    @Test
+    void testFiltersAndGroupBy() {
+        SeasonColumnStore store = new SeasonColumnStore(1, 16);
+        List<GameLine> lines = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            GameLine line = line(i + 1, i / 4 + 1, i % 4 + 1, i % 2 == 0 ? 1L : 2L, i % 2 == 0, i >= 200);
+            line.setPoints(i % 4 * 10);
+            lines.add(line);
+        }
+        store.append(lines);
+
+        AnalyticsQuery query = new AnalyticsQuery();
+        query.setGroupBy(AnalyticsQuery.GroupBy.PLAYER);
+        query.setPlayoff(false);
+        query.setHome(true);
+        query.setOrderBy("points");
+        List<AnalyticsRow> rows = engine.execute(store.snapshot(), query);
+
+        assertEquals(2, rows.size());
+        assertEquals(3L, rows.get(0).getGroupId());
+        assertEquals(50, rows.get(0).getGamesPlayed());
+        assertEquals(20.0, rows.get(0).getAverages().get("points"));
+        assertEquals(1L, rows.get(1).getGroupId());
+
+        query.setPlayoff(null);
+        query.setHome(null);
+        query.setGroupBy(AnalyticsQuery.GroupBy.TEAM);
+        query.setTeamIds(List.of(2L));
+        query.setFrom(SEASON_START.plusDays(51));
+        query.setPer36(true);
+        rows = engine.execute(store.snapshot(), query);
+
+        assertEquals(1, rows.size());
+        assertEquals(2L, rows.get(0).getGroupId());
+        assertEquals(100, rows.get(0).getGamesPlayed());
+        assertEquals(36.0, rows.get(0).getPer36().get("points"));
+    }
+
+    @Test
+    void testAppendSkipsKnownStatIdsAndKeepsOldSnapshotsStable() {
+        SeasonColumnStore store = new SeasonColumnStore(1, 16);
+        store.append(List.of(line(1, 1, 1, 1L, true, false)));
+        SeasonColumnStore.Snapshot before = store.snapshot();
+
+        List<GameLine> more = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            more.add(line(i, i, 2, null, false, false));
+        }
+        assertEquals(99, store.append(more));
+
+        assertEquals(1, before.getRows());
+        assertEquals(100, store.size());
+        assertTrue(engine.execute(store.snapshot(), teamQuery(7L)).isEmpty());
+    }
+
+    private static AnalyticsQuery teamQuery(long teamId) {
+        AnalyticsQuery query = new AnalyticsQuery();
+        query.setTeamIds(List.of(teamId));
+        return query;
+    }
+
+    private static GameLine line(long statId, long gameId, long playerId, Long teamId, boolean home, boolean playoff) {
+        GameLine line = new GameLine();
+        line.setStatId(statId);
+        line.setGameId(gameId);
+        line.setPlayerId(playerId);
+        line.setSeasonId(1L);
+        line.setTeamId(teamId);
+        line.setGameDate(SEASON_START.plusDays(gameId));
+        line.setHome(home);
+        line.setPlayoff(playoff);
+        line.setMinutesPlayed(20.0);
+        return line;
+    }
+}
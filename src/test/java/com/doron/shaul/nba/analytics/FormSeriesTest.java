@@ -0,0 +1,78 @@
+package com.doron.shaul.nba.analytics;
+
+import com.doron.shaul.nba.model.FormAverages;
+import com.doron.shaul.nba.model.GameLine;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class FormSeriesTest {
+
+    private static final LocalDate SEASON_START = LocalDate.of(2023, 10, 24);
+
+    @Test
+    void testLastGamesAndDateRange() {
+        List<GameLine> lines = new ArrayList<>();
+        for (int game = 1; game <= 10; game++) {
+            lines.add(line(game, game, game * 2, game * 1.5));
+        }
+        FormSeries form = FormSeries.EMPTY.with(lines);
+
+        FormAverages lastFive = form.lastGames(5);
+        assertEquals(5, lastFive.getGamesPlayed());
+        assertEquals(16.0, lastFive.getAvgPoints());
+        assertEquals(12.0, lastFive.getAvgMinutesPlayed());
+        assertEquals(SEASON_START.plusDays(12), lastFive.getFrom());
+        assertEquals(SEASON_START.plusDays(20), lastFive.getTo());
+
+        FormAverages range = form.between(SEASON_START.plusDays(3), SEASON_START.plusDays(6));
+        assertEquals(2, range.getGamesPlayed());
+        assertEquals(5.0, range.getAvgPoints());
+
+        assertEquals(10, form.lastGames(50).getGamesPlayed());
+
+        FormAverages empty = form.between(SEASON_START.minusDays(10), SEASON_START.minusDays(1));
+        assertEquals(0, empty.getGamesPlayed());
+        assertNull(empty.getAvgPoints());
+    }
+
+    @Test
+    void testLateAndRepeatedLinesMatchBulkBuild() {
+        List<GameLine> all = new ArrayList<>();
+        for (int game = 1; game <= 8; game++) {
+            all.add(line(game, game, game, 30.5));
+            all.add(line(100 + game, game, game * 3, 12));
+        }
+
+        FormSeries incremental = FormSeries.EMPTY.with(all.subList(0, 6));
+        incremental = incremental.with(List.of(all.get(14), all.get(15)));
+        incremental = incremental.with(all.subList(6, 14));
+        assertSame(incremental, incremental.with(all));
+
+        FormSeries bulk = FormSeries.EMPTY.with(all);
+        assertEquals(bulk.games(), incremental.games());
+        assertEquals(bulk.lastGames(3), incremental.lastGames(3));
+        assertEquals(bulk.between(SEASON_START, SEASON_START.plusDays(8)),
+                incremental.between(SEASON_START, SEASON_START.plusDays(8)));
+        assertEquals(24, bulk.weight());
+        assertEquals(16.0, bulk.lastGames(1).getAvgPoints());
+    }
+
+    private static GameLine line(long statId, long gameId, int points, double minutesPlayed) {
+        GameLine line = new GameLine();
+        line.setStatId(statId);
+        line.setGameId(gameId);
+        line.setPlayerId(1L);
+        line.setSeasonId(1L);
+        line.setGameDate(SEASON_START.plusDays(gameId * 2));
+        line.setPoints(points);
+        line.setMinutesPlayed(minutesPlayed);
+        return line;
+    }
+}
@@ -0,0 +1,99 @@
+package com.doron.shaul.nba.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KllSketchTest {
+
+    private static final double RANK_ERROR = 0.02;
+
+    @Test
+    void testRanksAndQuantilesStayWithinErrorBound() {
+        Random random = new Random(42);
+        double[] values = new double[200_000];
+        KllSketch sketch = new KllSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(45);
+            sketch.update(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, sketch.count());
+        assertEquals(0.0, sketch.min());
+        assertEquals(44.0, sketch.max());
+        assertTrue(sketch.toBytes().length < 10_000);
+        for (int value = 0; value < 45; value += 4) {
+            assertEquals(exactRank(values, value), sketch.rank(value), RANK_ERROR);
+        }
+        for (double fraction = 0.1; fraction < 1; fraction += 0.2) {
+            assertEquals(fraction, exactRank(values, sketch.quantile(fraction)), 0.03 + RANK_ERROR);
+        }
+        assertEquals(0.0, sketch.quantile(0));
+        assertEquals(44.0, sketch.quantile(1));
+    }
+
+    @Test
+    void testMergedPartialsMatchTheCombinedStream() {
+        Random random = new Random(7);
+        double[] values = new double[100_000];
+        KllSketch first = new KllSketch();
+        KllSketch second = new KllSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 10 + 20;
+            (i < values.length / 3 ? first : second).update(values[i]);
+        }
+        Arrays.sort(values);
+
+        first.merge(second);
+
+        assertEquals(values.length, first.count());
+        assertEquals(values[0], first.min());
+        assertEquals(values[values.length - 1], first.max());
+        for (double value = 0; value <= 40; value += 5) {
+            assertEquals(exactRank(values, value), first.rank(value), RANK_ERROR);
+        }
+    }
+
+    @Test
+    void testSerializationRoundTrip() {
+        KllSketch sketch = new KllSketch(64);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.update(i % 37);
+        }
+
+        KllSketch copy = KllSketch.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch.k(), copy.k());
+        assertEquals(sketch.count(), copy.count());
+        for (int value = 0; value < 37; value++) {
+            assertEquals(sketch.rank(value), copy.rank(value));
+        }
+        assertEquals(sketch.quantile(0.5), copy.quantile(0.5));
+
+        copy.update(100);
+        assertEquals(sketch.count() + 1, copy.count());
+        assertEquals(100.0, copy.max());
+    }
+
+    @Test
+    void testEmptySketch() {
+        KllSketch sketch = new KllSketch();
+
+        assertTrue(sketch.isEmpty());
+        assertTrue(Double.isNaN(sketch.rank(1)));
+        assertTrue(KllSketch.fromBytes(sketch.toBytes()).isEmpty());
+    }
+
+    private static double exactRank(double[] sorted, double value) {
+        int count = 0;
+        while (count < sorted.length && sorted[count] <= value) {
+            count++;
+        }
+        return (double) count / sorted.length;
+    }
+}
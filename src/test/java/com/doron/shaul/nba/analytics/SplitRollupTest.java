@@ -0,0 +1,100 @@
+package com.doron.shaul.nba.analytics;
+
+import com.doron.shaul.nba.model.GameMetadata;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.model.SplitTotals;
+import com.doron.shaul.nba.model.SplitType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SplitRollupTest {
+
+    private static final GameMetadata HOME_VS_2 = new GameMetadata(10, 1, 1, 2, LocalDate.of(2024, 1, 5), false);
+    private static final GameMetadata AWAY_AT_3 = new GameMetadata(11, 1, 3, 1, LocalDate.of(2024, 1, 7), false);
+    private static final GameMetadata PLAYOFF_AT_2 = new GameMetadata(12, 1, 2, 1, LocalDate.of(2024, 4, 20), true);
+
+    @Test
+    void testLinesAddToVenueOpponentAndPhaseSplits() {
+        SplitRollup rollup = new SplitRollup();
+        rollup.add(line(7, 10, 30, 35.5), HOME_VS_2, Set.of(1L));
+        rollup.add(line(7, 11, 20, 30.0), AWAY_AT_3, Set.of(1L));
+        rollup.add(line(8, 10, 10, 20.0), HOME_VS_2, Set.of(1L));
+
+        Collection<SplitTotals> players = rollup.playerTotals();
+        assertEquals(30, find(players, 7, SplitType.HOME, 0).getPoints());
+        assertEquals(20, find(players, 7, SplitType.AWAY, 0).getPoints());
+        assertEquals(30, find(players, 7, SplitType.OPPONENT, 2).getPoints());
+        assertEquals(20, find(players, 7, SplitType.OPPONENT, 3).getPoints());
+        SplitTotals regular = find(players, 7, SplitType.REGULAR, 0);
+        assertEquals(50, regular.getPoints());
+        assertEquals(2, regular.getStatLines());
+        assertEquals(new BigDecimal("65.5"), regular.getMinutesPlayed());
+        assertNull(find(players, 7, SplitType.PLAYOFF, 0));
+
+        Collection<SplitTotals> teams = rollup.teamTotals();
+        SplitTotals home = find(teams, 1, SplitType.HOME, 0);
+        assertEquals(40, home.getPoints());
+        assertEquals(2, home.getStatLines());
+        assertEquals(40, find(teams, 1, SplitType.OPPONENT, 2).getPoints());
+        assertEquals(60, find(teams, 1, SplitType.REGULAR, 0).getPoints());
+        assertEquals(8, players.size());
+        assertEquals(5, teams.size());
+    }
+
+    @Test
+    void testPlayoffLinesCountOnlyTowardsPlayoffPhase() {
+        SplitRollup rollup = new SplitRollup();
+        rollup.add(line(7, 12, 25, 40.0), PLAYOFF_AT_2, Set.of(1L));
+
+        assertEquals(25, find(rollup.playerTotals(), 7, SplitType.PLAYOFF, 0).getPoints());
+        assertEquals(25, find(rollup.teamTotals(), 1, SplitType.PLAYOFF, 0).getPoints());
+        assertEquals(25, find(rollup.teamTotals(), 1, SplitType.AWAY, 0).getPoints());
+        assertNull(find(rollup.playerTotals(), 7, SplitType.REGULAR, 0));
+    }
+
+    @Test
+    void testTeamsNotPlayingTheGameAreSkipped() {
+        SplitRollup rollup = new SplitRollup();
+        // Traded from team 4 to team 1 mid-season: only team 1 played this game
+        rollup.add(line(7, 10, 30, 35.0), HOME_VS_2, Set.of(4L, 1L));
+        // Not on either roster: only the phase split is known
+        rollup.add(line(9, 10, 5, 10.0), HOME_VS_2, List.of());
+
+        assertEquals(3, rollup.teamTotals().size());
+        assertEquals(1, find(rollup.teamTotals(), 1, SplitType.HOME, 0).getStatLines());
+        assertEquals(5, find(rollup.playerTotals(), 9, SplitType.REGULAR, 0).getPoints());
+        assertNull(find(rollup.playerTotals(), 9, SplitType.HOME, 0));
+        assertEquals(4, rollup.playerTotals().size());
+    }
+
+    private static SplitTotals find(Collection<SplitTotals> totals, long entityId, SplitType split, long opponent) {
+        return totals.stream()
+                .filter(row -> row.getEntityId() == entityId && row.getSplit() == split
+                        && row.getOpponentTeamId() == opponent)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static PlayerGameStats line(long playerId, long gameId, int points, double minutes) {
+        PlayerGameStats line = new PlayerGameStats();
+        line.setPlayerId(playerId);
+        line.setGameId(gameId);
+        line.setPoints(points);
+        line.setRebounds(5);
+        line.setAssists(4);
+        line.setSteals(1);
+        line.setBlocks(1);
+        line.setFouls(2);
+        line.setTurnovers(3);
+        line.setMinutesPlayed(minutes);
+        return line;
+    }
+}
@@ -0,0 +1,141 @@
+package com.doron.shaul.nba.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Testcontainers
+public class BatchCacheReaderTest {
+
+    private static final String CACHE = "playerSeasonStats";
+
+    @Container
+    static GenericContainer<?> redisContainer = new GenericContainer<>(DockerImageName.parse("redis:7.0"))
+            .withExposedPorts(6379);
+
+    private final TwoLevelCacheManager cacheManager = mock(TwoLevelCacheManager.class);
+    private final RedisCacheManager redisCacheManager = mock(RedisCacheManager.class);
+    private final List<List<String>> loads = new ArrayList<>();
+    private final List<CacheLoadCoordinator> coordinators = new ArrayList<>();
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private BatchCacheReader reader;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisContainer.getHost(), redisContainer.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+
+        // Entries of season 1 live for a minute, every other one for an hour
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl((key, value) -> ((String) key).endsWith("_season_1")
+                        ? Duration.ofMinutes(1)
+                        : Duration.ofHours(1));
+        when(redisCacheManager.getCacheConfigurations()).thenReturn(Map.of(CACHE, config));
+        reader = new BatchCacheReader(cacheManager, redisCacheManager, redisTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coordinators.forEach(CacheLoadCoordinator::close);
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void testLoaderOnlyGetsKeysMissingFromBothLevels() {
+        freshLocalCache();
+        reader.getAll(CACHE, List.of("player_2_season_1"), this::load);
+
+        // A new L1 keeps player 2 in Redis only, then player 1 is put in L1 only
+        TwoLevelCache cache = freshLocalCache();
+        cache.putAllLocal(Map.of("player_1_season_1", "local"));
+        loads.clear();
+
+        Map<String, String> values = reader.getAll(CACHE,
+                List.of("player_1_season_1", "player_2_season_1", "player_3_season_1"), this::load);
+
+        assertEquals(Map.of("player_1_season_1", "local",
+                "player_2_season_1", "loaded player_2_season_1",
+                "player_3_season_1", "loaded player_3_season_1"), values);
+        assertEquals(List.of(List.of("player_3_season_1")), loads);
+        assertEquals(Map.of("player_3_season_1", "loaded player_3_season_1"),
+                cache.getAllLocal(List.of("player_3_season_1")));
+    }
+
+    @Test
+    void testLoadedEntriesAreWrittenWithTheirOwnTtl() {
+        freshLocalCache();
+
+        Map<String, String> values = reader.getAll(CACHE, List.of("player_1_season_1", "player_1_season_2"),
+                this::load);
+
+        assertEquals(2, values.size());
+        assertEquals(List.of(List.of("player_1_season_1", "player_1_season_2")), loads);
+        long seasonOneTtl = redisTemplate.getExpire(CACHE + "::player_1_season_1", TimeUnit.SECONDS);
+        long seasonTwoTtl = redisTemplate.getExpire(CACHE + "::player_1_season_2", TimeUnit.SECONDS);
+        assertTrue(seasonOneTtl > 0 && seasonOneTtl <= 60, "season 1 TTL was " + seasonOneTtl);
+        assertTrue(seasonTwoTtl > 60 && seasonTwoTtl <= 3600, "season 2 TTL was " + seasonTwoTtl);
+    }
+
+    @Test
+    void testKeysTheLoaderCannotFindAreLeftOut() {
+        freshLocalCache();
+
+        Map<String, String> values = reader.getAll(CACHE, List.of("player_1_season_1", "player_9_season_1"),
+                keys -> load(keys.subList(0, 1)));
+
+        assertEquals(Map.of("player_1_season_1", "loaded player_1_season_1"), values);
+        assertTrue(redisTemplate.keys(CACHE + "::player_9*").isEmpty());
+    }
+
+    private Map<String, String> load(List<String> keys) {
+        loads.add(List.copyOf(keys));
+        return keys.stream().collect(Collectors.toMap(Function.identity(), key -> "loaded " + key));
+    }
+
+    private TwoLevelCache freshLocalCache() {
+        CacheLoadCoordinator coordinator = new CacheLoadCoordinator(redisTemplate, false, Duration.ofSeconds(10),
+                Duration.ofSeconds(2), Duration.ofMillis(25), Duration.ZERO, 1, false);
+        coordinators.add(coordinator);
+        TwoLevelCache cache = new TwoLevelCache(CACHE,
+                Caffeine.newBuilder().build(),
+                new ConcurrentMapCache(CACHE),
+                new CacheInvalidationPublisher(redisTemplate, "test"),
+                coordinator,
+                new SimpleMeterRegistry());
+        when(cacheManager.getCache(CACHE)).thenReturn(cache);
+        return cache;
+    }
+}
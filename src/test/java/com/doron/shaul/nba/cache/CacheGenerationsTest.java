@@ -0,0 +1,194 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.config.DataSourceRouting;
+import com.doron.shaul.nba.config.InstanceIdentity;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.service.StatsRecordedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CacheGenerationsTest {
+
+    private final Map<String, Long> counters = new HashMap<>();
+    private final List<String> broadcasts = new ArrayList<>();
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final BatchCacheReader batchCacheReader = mock(BatchCacheReader.class);
+    private boolean redisDown;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation -> {
+            RedisScript<?> script = invocation.getArgument(0);
+            List<String> keys = invocation.getArgument(1);
+            long seed = Long.parseLong(invocation.getArgument(2));
+            boolean bump = script.getScriptAsString().contains("INCR");
+            if (bump && redisDown) {
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+
+            List<Long> result = new ArrayList<>();
+            for (String key : keys) {
+                Long previous = counters.get(key);
+                if (bump) {
+                    counters.put(key, previous != null ? Math.max(previous + 1, seed) : seed);
+                    result.add(previous != null ? previous : 0L);
+                } else if (previous == null) {
+                    counters.put(key, seed);
+                }
+                result.add(counters.get(key));
+            }
+            return result;
+        });
+        when(redisTemplate.convertAndSend(eq(CacheGenerations.CHANNEL), any(String.class))).thenAnswer(invocation -> {
+            broadcasts.add(invocation.getArgument(1));
+            return 1L;
+        });
+    }
+
+    @Test
+    void testRecordedStatsMoveOnlyTouchedKeysAndDeleteSupersededEntries() {
+        CacheGenerations generations = generations();
+        String player = generations.playerKey(1, 1);
+        String otherPlayer = generations.playerKey(2, 1);
+        String team = generations.teamKey(1, 1);
+        assertEquals(player, generations.playerKey(1, 1));
+        assertEquals("player_1_season_1", CacheKeys.identity(player));
+
+        generations.onStatsRecorded(event(1L, 1L, Set.of(1L, 2L)));
+
+        assertNotEquals(player, generations.playerKey(1, 1));
+        assertNotEquals(team, generations.teamKey(1, 1));
+        assertEquals(otherPlayer, generations.playerKey(2, 1));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Collection<String>>> deleted = ArgumentCaptor.forClass(Map.class);
+        verify(batchCacheReader).evictAll(deleted.capture());
+        assertEquals(List.of(player), List.copyOf(deleted.getValue().get(CacheKeys.PLAYER_SEASON_STATS)));
+        assertEquals(List.of(team), List.copyOf(deleted.getValue().get(CacheKeys.TEAM_SEASON_STATS)));
+        assertEquals(List.of(CacheKeys.qualify(player, CacheKeys.SPLITS)),
+                List.copyOf(deleted.getValue().get(CacheKeys.PLAYER_SPLIT_STATS)));
+    }
+
+    @Test
+    void testSplitKeysMoveWithTheEntityGenerations() {
+        CacheGenerations generations = generations();
+        String splits = generations.playerSplitsKey(1, 1);
+        assertEquals("player_1_season_1_splits", CacheKeys.identity(splits));
+        assertEquals(CacheKeys.generation(generations.playerKey(1, 1)), CacheKeys.generation(splits));
+
+        generations.onStatsRecorded(event(1L, 1L, Set.of(1L, 2L)));
+
+        assertNotEquals(splits, generations.playerSplitsKey(1, 1));
+        assertEquals(CacheKeys.generation(generations.teamKey(2, 1)),
+                CacheKeys.generation(generations.teamSplitsKey(2, 1)));
+    }
+
+    @Test
+    void testSeasonInvalidationMovesEveryKeyOfTheSeason() {
+        CacheGenerations generations = generations();
+        Map<Long, String> players = generations.playerKeys(List.of(1L, 2L, 3L), 1);
+        String otherSeason = generations.playerKey(1, 2);
+
+        generations.invalidateSeasons(List.of(1L));
+
+        Map<Long, String> moved = generations.playerKeys(List.of(1L, 2L, 3L), 1);
+        players.forEach((playerId, key) -> assertNotEquals(key, moved.get(playerId)));
+        assertEquals(otherSeason, generations.playerKey(1, 2));
+    }
+
+    @Test
+    void testOtherInstancesFollowBroadcastGenerations() {
+        CacheGenerations writer = generations();
+        CacheGenerations reader = generations();
+        assertEquals(writer.playerKey(1, 1), reader.playerKey(1, 1));
+
+        writer.onStatsRecorded(event(1L, 1L, Set.of(1L)));
+        reader.onMessage(new DefaultMessage(CacheGenerations.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                broadcasts.get(broadcasts.size() - 1).getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals(writer.playerKey(1, 1), reader.playerKey(1, 1));
+    }
+
+    @Test
+    void testLoadsOfRecentlyBumpedKeysReadThePrimary() {
+        counters.put("generation:season_1", 1L);
+        counters.put("generation:player_1_season_1", 1L);
+        counters.put("generation:player_2_season_1", 1L);
+        CacheGenerations generations = generations();
+
+        try (DataSourceRouting.Scope replica = DataSourceRouting.replicaReads()) {
+            try (DataSourceRouting.Scope ignored = generations.playerLoads(List.of(1L, 2L), 1)) {
+                assertTrue(DataSourceRouting.isReplicaReadAllowed());
+            }
+
+            generations.onStatsRecorded(event(1L, 1L, Set.of(1L)));
+
+            try (DataSourceRouting.Scope ignored = generations.playerLoads(List.of(1L, 2L), 1)) {
+                assertFalse(DataSourceRouting.isReplicaReadAllowed());
+            }
+            try (DataSourceRouting.Scope ignored = generations.playerLoads(List.of(2L), 1)) {
+                assertTrue(DataSourceRouting.isReplicaReadAllowed());
+            }
+        }
+    }
+
+    @Test
+    void testFailedBumpIsRetried() {
+        CacheGenerations generations = generations();
+        String player = generations.playerKey(1, 1);
+        String team = generations.teamKey(1, 1);
+
+        redisDown = true;
+        generations.onStatsRecorded(event(1L, 1L, Set.of(1L)));
+        generations.retryFailedBumps();
+        assertEquals(player, generations.playerKey(1, 1));
+
+        redisDown = false;
+        generations.retryFailedBumps();
+
+        assertNotEquals(player, generations.playerKey(1, 1));
+        assertNotEquals(team, generations.teamKey(1, 1));
+        verify(batchCacheReader).evictAll(any());
+    }
+
+    private CacheGenerations generations() {
+        return new CacheGenerations(redisTemplate, batchCacheReader, new InstanceIdentity(),
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(), 1000, Duration.ofMinutes(1),
+                Duration.ofSeconds(5), Duration.ofHours(1));
+    }
+
+    private static StatsRecordedEvent event(long playerId, long seasonId, Set<Long> teamIds) {
+        PlayerGameStats line = new PlayerGameStats();
+        line.setPlayerId(playerId);
+        line.setGameId(1L);
+        return new StatsRecordedEvent(List.of(line), Map.of(1L, seasonId), Map.of(seasonId, teamIds),
+                Map.of(seasonId, 0L));
+    }
+}
@@ -0,0 +1,66 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.TeamSeasonStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactStatsSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final CompactStatsSerializer serializer = new CompactStatsSerializer(jsonSerializer, 64);
+
+    @Test
+    void testPlayerRoundTripIsSmallerThanJson() {
+        PlayerSeasonStats stats = new PlayerSeasonStats();
+        stats.setPlayerId(1L);
+        stats.setFirstName("LeBron");
+        stats.setSeasonId(1L);
+        stats.setSeasonName("2023-24");
+        stats.setAvgPoints(25.5);
+        stats.setAvgMinutesPlayed(35.3);
+        stats.setGamesPlayed(71);
+
+        byte[] bytes = serializer.serialize(stats);
+
+        assertEquals(stats, serializer.deserialize(bytes));
+        assertTrue(bytes.length * 3 < jsonSerializer.serialize(stats).length);
+    }
+
+    @Test
+    void testTeamListRoundTripWithCompression() {
+        List<TeamSeasonStats> teams = new ArrayList<>();
+        for (long teamId = 1; teamId <= 10; teamId++) {
+            TeamSeasonStats stats = new TeamSeasonStats();
+            stats.setTeamId(teamId);
+            stats.setTeamName("Team " + teamId);
+            stats.setSeasonId(1L);
+            stats.setAvgPoints(10.0 + teamId);
+            stats.setPlayersCount(15);
+            teams.add(stats);
+        }
+
+        assertEquals(teams, serializer.deserialize(serializer.serialize(teams)));
+        assertEquals(List.of(), serializer.deserialize(serializer.serialize(new ArrayList<TeamSeasonStats>())));
+    }
+
+    @Test
+    void testReadsJsonEntriesAndIgnoresUnknownVersions() {
+        PlayerSeasonStats stats = new PlayerSeasonStats();
+        stats.setPlayerId(2L);
+        stats.setAvgPoints(12.0);
+
+        assertEquals(stats, serializer.deserialize(jsonSerializer.serialize(stats)));
+
+        byte[] future = serializer.serialize(stats);
+        future[1] = CompactStatsSerializer.VERSION + 1;
+        assertNull(serializer.deserialize(future));
+    }
+}
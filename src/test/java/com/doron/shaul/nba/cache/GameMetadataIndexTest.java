@@ -0,0 +1,62 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.model.GameMetadata;
+import com.doron.shaul.nba.repository.GameRepository;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GameMetadataIndexTest {
+
+    private final GameRepository gameRepository = mock(GameRepository.class);
+    private final GameMetadataIndex index = new GameMetadataIndex(gameRepository, mock(SeasonRepository.class),
+            new SimpleMeterRegistry(), List.of());
+
+    @Test
+    void testMissLoadsWholeSeasonOnce() {
+        List<GameMetadata> schedule = schedule(7, 5000);
+        when(gameRepository.findSeasonMetadataByGameIds(anyCollection())).thenReturn(schedule);
+
+        Map<Long, GameMetadata> games = index.getAll(List.of(10L, 20L));
+        assertEquals(2, games.size());
+        assertEquals(7, games.get(20L).getSeasonId());
+        assertEquals(schedule.get(20).getHomeTeamId(), games.get(20L).getHomeTeamId());
+
+        GameMetadata game = index.get(4999);
+        assertEquals(schedule.get(4999), game);
+        assertEquals(5000, index.size());
+        verify(gameRepository, times(1)).findSeasonMetadataByGameIds(anyCollection());
+    }
+
+    @Test
+    void testUnknownGameIsAbsent() {
+        when(gameRepository.findSeasonMetadataByGameIds(anyCollection())).thenReturn(List.of());
+
+        assertNull(index.get(42));
+        assertFalse(index.getAll(List.of(42L)).containsKey(42L));
+    }
+
+    private static List<GameMetadata> schedule(long seasonId, int games) {
+        List<GameMetadata> schedule = new ArrayList<>();
+        LocalDate start = LocalDate.of(2023, 10, 24);
+        for (int i = 0; i < games; i++) {
+            schedule.add(new GameMetadata(i, seasonId, i % 30 + 1, (i + 7) % 30 + 1, start.plusDays(i / 15),
+                    i >= 4900));
+        }
+        return schedule;
+    }
+}
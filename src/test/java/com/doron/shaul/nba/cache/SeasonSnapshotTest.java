@@ -0,0 +1,69 @@
+package com.doron.shaul.nba.cache;
+
+import com.doron.shaul.nba.model.PlayerSeasonStats;
+import com.doron.shaul.nba.model.TeamSeasonStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SeasonSnapshotTest {
+
+    private final CompactStatsSerializer codec =
+            new CompactStatsSerializer(new GenericJackson2JsonRedisSerializer(), Integer.MAX_VALUE);
+
+    @Test
+    void testMappedSnapshotServesEveryEntry(@TempDir Path directory) throws Exception {
+        SortedMap<Long, PlayerSeasonStats> players = new TreeMap<>();
+        for (long playerId = 1; playerId <= 600; playerId += 2) {
+            PlayerSeasonStats stats = new PlayerSeasonStats();
+            stats.setPlayerId(playerId);
+            stats.setSeasonId(3L);
+            stats.setSeasonName("2021-22");
+            stats.setAvgPoints(playerId / 10.0);
+            stats.setGamesPlayed((int) (playerId % 82));
+            players.put(playerId, stats);
+        }
+
+        SortedMap<Long, List<TeamSeasonStats>> teams = new TreeMap<>();
+        for (long teamId = 1; teamId <= 30; teamId++) {
+            TeamSeasonStats stats = new TeamSeasonStats();
+            stats.setTeamId(teamId);
+            stats.setTeamName("Team " + teamId);
+            stats.setSeasonId(3L);
+            stats.setAvgPoints(100.0 + teamId);
+            teams.put(teamId, List.of(stats));
+        }
+
+        Path file = directory.resolve("season-3.snapshot");
+        Files.write(file, SeasonSnapshot.encode(3, players, teams, codec));
+        SeasonSnapshot snapshot = SeasonSnapshot.map(file, codec);
+
+        assertEquals(3, snapshot.getSeasonId());
+        assertEquals(300, snapshot.getPlayerCount());
+        players.forEach((playerId, stats) -> assertEquals(stats, snapshot.player(playerId)));
+        teams.forEach((teamId, stats) -> assertEquals(stats, snapshot.team(teamId)));
+
+        assertNull(snapshot.player(2));
+        assertNull(snapshot.player(601));
+        assertEquals(List.of(), snapshot.team(31));
+    }
+
+    @Test
+    void testEmptySeason() {
+        SeasonSnapshot snapshot = SeasonSnapshot.wrap(
+                SeasonSnapshot.encode(9, new TreeMap<>(), new TreeMap<>(), codec), codec);
+
+        assertEquals(0, snapshot.getPlayerCount());
+        assertNull(snapshot.player(1));
+        assertEquals(List.of(), snapshot.team(1));
+    }
+}
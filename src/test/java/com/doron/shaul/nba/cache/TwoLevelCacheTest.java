@@ -0,0 +1,112 @@
+package com.doron.shaul.nba.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class TwoLevelCacheTest {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(16);
+    private CacheLoadCoordinator coordinator;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        coordinator.close();
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        TwoLevelCache cache = cache(Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return cache.get("player_1_season_1", () -> {
+                    loads.incrementAndGet();
+                    TimeUnit.MILLISECONDS.sleep(200);
+                    return "fresh";
+                });
+            }));
+        }
+        start.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("fresh", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEvictedValueIsServedWhileRefreshing() throws Exception {
+        TwoLevelCache cache = cache(Duration.ofSeconds(30));
+        cache.put("player_1_season_1", "old");
+        cache.evict("player_1_season_1");
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        String value = cache.get("player_1_season_1", () -> {
+            refreshed.countDown();
+            return "new";
+        });
+
+        assertEquals("old", value);
+        refreshed.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 50 && cache.get("player_1_season_1") == null; i++) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertEquals("new", cache.get("player_1_season_1", String.class));
+    }
+
+    @Test
+    void testStaleCopyOfPreviousGenerationReportsItsKey() throws Exception {
+        TwoLevelCache cache = cache(Duration.ofSeconds(30));
+        cache.put("player_1_season_1#1.1", "old");
+        cache.evict("player_1_season_1#1.1");
+
+        StaleReads.clear();
+        String value = cache.get("player_1_season_1#1.2", () -> "new");
+
+        assertEquals("old", value);
+        assertEquals("player_1_season_1#1.1", StaleReads.take());
+        assertNull(StaleReads.take());
+
+        for (int i = 0; i < 50 && cache.get("player_1_season_1#1.2") == null; i++) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        StaleReads.clear();
+        assertEquals("new", cache.get("player_1_season_1#1.2", () -> "unused"));
+        assertNull(StaleReads.take());
+    }
+
+    private TwoLevelCache cache(Duration staleTtl) {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        coordinator = new CacheLoadCoordinator(redisTemplate, false, Duration.ofSeconds(10), Duration.ofSeconds(2),
+                Duration.ofMillis(25), staleTtl, 1, false);
+        return new TwoLevelCache("playerSeasonStats",
+                Caffeine.newBuilder().build(),
+                new ConcurrentMapCache("playerSeasonStats"),
+                new CacheInvalidationPublisher(redisTemplate, "test"),
+                coordinator,
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,87 @@
+package com.doron.shaul.nba.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    void testTryAcquireIsBoundedByTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("read", 2, 1, 4);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+
+        limit.release(0, false);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyHoldsAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("read", 4, 2, 20);
+
+        for (int i = 0; i < 100; i++) {
+            saturatedCall(limit, FAST);
+        }
+        assertEquals(20, limit.getLimit());
+
+        for (int i = 0; i < 30; i++) {
+            saturatedCall(limit, FAST * 10);
+        }
+        assertTrue(limit.getLimit() < 10, "limit was " + limit.getLimit());
+    }
+
+    @Test
+    void testFailuresBackOffToTheMinimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("write", 10, 2, 10);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(FAST, true);
+        }
+
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    void testAcquireWaitsForAReleasedSlot() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("write", 1, 1, 1);
+        assertTrue(limit.tryAcquire());
+
+        assertFalse(limit.acquire(Duration.ofMillis(20)));
+
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> limit.acquire(Duration.ofSeconds(5)));
+        while (limit.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+        limit.release(FAST, false);
+
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limit.getInFlight());
+    }
+
+    /**
+     * Completes one call while the lane is full, the only state in which the limit moves on latency.
+     */
+    private static void saturatedCall(AdaptiveConcurrencyLimit limit, long latencyNanos) {
+        int acquired = 0;
+        while (limit.tryAcquire()) {
+            acquired++;
+        }
+        limit.release(latencyNanos, false);
+        for (int i = 1; i < acquired; i++) {
+            limit.release(0, false);
+        }
+    }
+}
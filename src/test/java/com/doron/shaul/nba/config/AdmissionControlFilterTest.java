@@ -0,0 +1,88 @@
+package com.doron.shaul.nba.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class AdmissionControlFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testWriteIsAdmittedAndReleasesItsSlot() throws Exception {
+        AdaptiveConcurrencyLimit writes = new AdaptiveConcurrencyLimit("write", 1, 1, 1);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter(writes).doFilter(request("POST", "/api/v1/games/1/stats"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(0, writes.getInFlight());
+        assertEquals(1, meterRegistry.counter("nba.admission.requests", "lane", "write", "result", "admitted")
+                .count());
+    }
+
+    @Test
+    void testWriteIsRejectedWhenNoSlotFreesUp() throws Exception {
+        AdaptiveConcurrencyLimit writes = new AdaptiveConcurrencyLimit("write", 1, 1, 1);
+        writes.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter(writes).doFilter(request("POST", "/api/v1/stats/bulk"), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.counter("nba.admission.requests", "lane", "write", "result", "rejected")
+                .count());
+    }
+
+    @Test
+    void testReadsPassThroughWhileWritesAreSaturated() throws Exception {
+        AdaptiveConcurrencyLimit writes = new AdaptiveConcurrencyLimit("write", 1, 1, 1);
+        writes.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter(writes).doFilter(request("GET", "/api/v1/players/1/stats/averages"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+    }
+
+    @Test
+    void testFailedWriteBacksOffTheLimit() throws Exception {
+        AdaptiveConcurrencyLimit writes = new AdaptiveConcurrencyLimit("write", 4, 1, 4);
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        });
+
+        filter(writes).doFilter(request("POST", "/api/v1/games/1/stats"), new MockHttpServletResponse(), chain);
+
+        assertEquals(3, writes.getLimit());
+    }
+
+    private AdmissionControlFilter filter(AdaptiveConcurrencyLimit writes) {
+        return new AdmissionControlFilter(writes, Duration.ofMillis(10), Duration.ofSeconds(1), meterRegistry);
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+}
@@ -0,0 +1,74 @@
+package com.doron.shaul.nba.config;
+
+import com.doron.shaul.nba.exception.ReadCapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReadAdmissionAspectTest {
+
+    private final AdaptiveConcurrencyLimit primaryReads = new AdaptiveConcurrencyLimit("read", 1, 1, 1);
+    private final AdaptiveConcurrencyLimit replicaReads = new AdaptiveConcurrencyLimit("replica-read", 1, 1, 1);
+    private final AdaptiveConcurrencyLimit writes = mock(AdaptiveConcurrencyLimit.class);
+    private final ReadAdmissionAspect aspect = new ReadAdmissionAspect(primaryReads, replicaReads, writes,
+            new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testPrimaryLoadsYieldToWaitingWrites() throws Throwable {
+        inRequest();
+        ProceedingJoinPoint load = load();
+
+        assertEquals("row", aspect.admit(load));
+        assertEquals(0, primaryReads.getInFlight());
+
+        when(writes.getWaiting()).thenReturn(1);
+        ProceedingJoinPoint shed = load();
+        assertThrows(ReadCapacityExceededException.class, () -> aspect.admit(shed));
+        verify(shed, never()).proceed();
+    }
+
+    @Test
+    void testReplicaLoadsUseTheirOwnLane() throws Throwable {
+        inRequest();
+        when(writes.getWaiting()).thenReturn(1);
+        primaryReads.tryAcquire();
+
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.replicaReads()) {
+            assertEquals("row", aspect.admit(load()));
+        }
+        assertEquals(0, replicaReads.getInFlight());
+    }
+
+    @Test
+    void testLoadsOutsideRequestsAreNotLimited() throws Throwable {
+        primaryReads.tryAcquire();
+
+        assertEquals("row", aspect.admit(load()));
+    }
+
+    private static void inRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private static ProceedingJoinPoint load() throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenReturn("row");
+        return joinPoint;
+    }
+}
@@ -0,0 +1,114 @@
+package com.doron.shaul.nba.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource = new ReadWriteRoutingDataSource(database("primary"), List.of(database("replica")));
+        jdbcTemplate = new JdbcTemplate(routingDataSource);
+    }
+
+    @Test
+    void testReadsUsePrimaryUnlessMarkedForReplica() {
+        assertEquals("primary", node());
+
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.replicaReads()) {
+            assertEquals("replica", node());
+        }
+
+        assertEquals("primary", node());
+    }
+
+    @Test
+    void testPinnedAndTransactionalReadsUsePrimary() {
+        try (DataSourceRouting.Scope pinned = DataSourceRouting.primaryOnly();
+             DataSourceRouting.Scope replica = DataSourceRouting.replicaReads()) {
+            assertEquals("primary", node());
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(routingDataSource));
+        String node = transaction.execute(status -> {
+            try (DataSourceRouting.Scope ignored = DataSourceRouting.replicaReads()) {
+                return node();
+            }
+        });
+        assertEquals("primary", node);
+    }
+
+    @Test
+    void testUnavailableReplicaFallsBackToPrimary() {
+        JdbcDataSource missing = new JdbcDataSource();
+        missing.setURL("jdbc:h2:mem:missing;IFEXISTS=TRUE");
+        jdbcTemplate = new JdbcTemplate(new ReadWriteRoutingDataSource(database("primary"), List.of(missing)));
+
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.replicaReads()) {
+            assertEquals("primary", node());
+        }
+    }
+
+    @Test
+    void testWriteRequestPinsFollowingReadsToPrimary() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/games/1/stats"), writeResponse,
+                (request, response) -> { });
+        Cookie cookie = writeResponse.getCookie(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+        assertTrue(Long.parseLong(cookie.getValue()) > System.currentTimeMillis());
+
+        MockHttpServletRequest pinnedRead = new MockHttpServletRequest("GET", "/api/v1/players/1/stats/averages");
+        pinnedRead.setCookies(cookie);
+        assertEquals("primary", readThrough(filter, pinnedRead));
+
+        MockHttpServletRequest expiredRead = new MockHttpServletRequest("GET", "/api/v1/players/1/stats/averages");
+        expiredRead.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, "1"));
+        assertEquals("replica", readThrough(filter, expiredRead));
+    }
+
+    private String readThrough(ReadYourWritesFilter filter, MockHttpServletRequest request) throws Exception {
+        AtomicReference<String> node = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            try (DataSourceRouting.Scope ignored = DataSourceRouting.replicaReads()) {
+                node.set(node());
+            }
+        });
+        return node.get();
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        template.update("DELETE FROM node");
+        template.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,82 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.model.BulkIngestionError;
+import com.doron.shaul.nba.model.BulkIngestionResult;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkIngestionServiceTest {
+
+    private final StatsService statsService = mock(StatsService.class);
+    private final BulkIngestionService service = new BulkIngestionService(statsService,
+            Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 10, 100, 2,
+            Duration.ofMillis(1));
+
+    @Test
+    void testConstraintViolationRejectsOnlyTheOffendingRow() throws Exception {
+        when(statsService.recordPlayerStats(anyList())).thenAnswer(invocation -> {
+            List<PlayerGameStats> stats = invocation.getArgument(0);
+            if (stats.size() > 1 || stats.get(0).getPlayerId() == 2) {
+                throw new DataIntegrityViolationException("Unknown player 2");
+            }
+            return List.of(1L);
+        });
+
+        BulkIngestionResult result = service.ingest(csv(1, 2, 3), BulkIngestionService.Format.CSV);
+
+        assertEquals(2, result.getRowsRecorded());
+        assertEquals(List.of(new BulkIngestionError(3, "Unknown player 2")), result.getErrors());
+    }
+
+    @Test
+    void testTransientFailureRetriesTheWholeChunk() throws Exception {
+        when(statsService.recordPlayerStats(anyList()))
+                .thenThrow(new CannotAcquireLockException("Deadlock found"))
+                .thenReturn(List.of(1L, 2L));
+
+        BulkIngestionResult result = service.ingest(csv(1, 2), BulkIngestionService.Format.CSV);
+
+        assertEquals(2, result.getRowsRecorded());
+        assertEquals(1, result.getChunksCommitted());
+        assertEquals(0, result.getRowsRejected());
+        verify(statsService, times(2)).recordPlayerStats(anyList());
+    }
+
+    @Test
+    void testUnavailableDatabaseAbortsWithoutRowByRowRetries() {
+        when(statsService.recordPlayerStats(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> service.ingest(csv(1, 2, 3), BulkIngestionService.Format.CSV));
+        verify(statsService, times(1)).recordPlayerStats(anyList());
+    }
+
+    private static InputStream csv(long... playerIds) {
+        StringBuilder body = new StringBuilder(
+                "gameId,playerId,points,rebounds,assists,steals,blocks,fouls,turnovers,minutesPlayed\n");
+        for (long playerId : playerIds) {
+            body.append("1,").append(playerId).append(",20,5,4,1,0,2,1,30.0\n");
+        }
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
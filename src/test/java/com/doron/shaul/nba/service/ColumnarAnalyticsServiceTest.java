@@ -0,0 +1,60 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.config.InstanceIdentity;
+import com.doron.shaul.nba.model.AnalyticsQuery;
+import com.doron.shaul.nba.repository.GameLineRepository;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ColumnarAnalyticsServiceTest {
+
+    private final GameLineRepository gameLineRepository = mock(GameLineRepository.class);
+    private final SeasonRepository seasonRepository = mock(SeasonRepository.class);
+    private final ColumnarAnalyticsService service = new ColumnarAnalyticsService(gameLineRepository,
+            seasonRepository, mock(StringRedisTemplate.class), new InstanceIdentity(),
+            mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(), List.of(), 1, 64, 4);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testUnknownSeasonIsNotLoaded() {
+        when(seasonRepository.exists(99)).thenReturn(false);
+
+        assertThrows(EmptyResultDataAccessException.class, () -> service.query(99, new AnalyticsQuery()));
+
+        verify(gameLineRepository, never()).countBySeasonId(anyLong());
+        verify(gameLineRepository, never()).findBySeasonId(anyLong());
+    }
+
+    @Test
+    void testSeasonIsLoadedOnce() {
+        when(seasonRepository.exists(1)).thenReturn(true);
+        when(gameLineRepository.countBySeasonId(1)).thenReturn(0);
+        when(gameLineRepository.findBySeasonId(1)).thenReturn(List.of());
+
+        assertTrue(service.query(1, new AnalyticsQuery()).isEmpty());
+        assertTrue(service.query(1, new AnalyticsQuery()).isEmpty());
+
+        verify(seasonRepository, times(1)).exists(1);
+        verify(gameLineRepository, times(1)).findBySeasonId(1);
+    }
+}
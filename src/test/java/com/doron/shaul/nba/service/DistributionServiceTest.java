@@ -0,0 +1,171 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.model.SeasonTotals;
+import com.doron.shaul.nba.model.StatCategory;
+import com.doron.shaul.nba.model.StatDistribution;
+import com.doron.shaul.nba.repository.PlayerRepository;
+import com.doron.shaul.nba.repository.SeasonRepository;
+import com.doron.shaul.nba.repository.SeasonRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DistributionServiceTest {
+
+    // Redis shared by every service instance of a test, with the publish script applied in memory
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final SeasonRollupRepository seasonRollupRepository = mock(SeasonRollupRepository.class);
+    private final PlayerRepository playerRepository = mock(PlayerRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<DistributionService> services = new ArrayList<>();
+    private boolean redisDown;
+
+    @BeforeEach
+    void setUp() {
+        when(playerRepository.findPositions(anyCollection())).thenReturn(Map.of(1L, "G", 3L, "f"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(DistributionService::shutdown);
+    }
+
+    @Test
+    void testPercentilesRankPlayerAverages() {
+        when(seasonRollupRepository.findPlayerTotals(1)).thenReturn(
+                List.of(assists(1, 10, 100), assists(2, 1, 2), assists(3, 4, 20)));
+        DistributionService service = service();
+
+        service.onStatsRecorded(event(1));
+        service.flush();
+
+        StatDistribution distribution = service.percentileOf(1, StatCategory.ASSISTS, null, 7.2);
+        assertEquals(3, distribution.getPlayers());
+        assertEquals(200.0 / 3, distribution.getPercentile(), 1e-9);
+        assertEquals(10.0, service.valueAt(1, StatCategory.ASSISTS, "g", 100).getValue());
+        assertEquals(1, service.percentileOf(1, StatCategory.ASSISTS, "F", 5).getPlayers());
+        assertEquals(1, meterRegistry.counter("nba.distributions.flushes", "result", "published").count());
+    }
+
+    @Test
+    void testOlderSnapshotDoesNotReplaceNewerDistributions() {
+        when(seasonRollupRepository.findPlayerTotals(1)).thenReturn(List.of(assists(1, 10, 100)),
+                List.of(assists(1, 9, 45)));
+        DistributionService current = service();
+        DistributionService lagging = service();
+
+        current.onStatsRecorded(event(1));
+        current.flush();
+        lagging.onStatsRecorded(event(1));
+        lagging.flush();
+
+        assertEquals(10.0, service().valueAt(1, StatCategory.ASSISTS, null, 50).getValue());
+        assertEquals(1, meterRegistry.counter("nba.distributions.flushes", "result", "stale").count());
+    }
+
+    @Test
+    void testRebuildReplacesDistributionsCoveringAsManyLines() {
+        when(seasonRollupRepository.findPlayerTotals(1)).thenReturn(List.of(assists(1, 10, 100)),
+                List.of(assists(1, 10, 50)));
+        DistributionService service = service();
+
+        service.onStatsRecorded(event(1));
+        service.flush();
+        assertEquals(1, service.rebuild(1));
+
+        assertEquals(5.0, service.valueAt(1, StatCategory.ASSISTS, null, 50).getValue());
+    }
+
+    @Test
+    void testFailedPublishIsRetriedOnNextFlush() {
+        when(seasonRollupRepository.findPlayerTotals(1)).thenReturn(List.of(assists(1, 10, 100)));
+        DistributionService service = service();
+
+        service.onStatsRecorded(event(1));
+        redisDown = true;
+        service.flush();
+        redisDown = false;
+        service.flush();
+
+        assertEquals(10.0, service.valueAt(1, StatCategory.ASSISTS, null, 50).getValue());
+        assertEquals(1, meterRegistry.counter("nba.distributions.flushes", "result", "failed").count());
+        assertEquals(1, meterRegistry.counter("nba.distributions.flushes", "result", "published").count());
+    }
+
+    private DistributionService service() {
+        DistributionService service = new DistributionService(redisTemplate(), seasonRollupRepository,
+                playerRepository, mock(SeasonRepository.class), meterRegistry, 200, Duration.ofHours(1),
+                Duration.ofMinutes(1));
+        services.add(service);
+        return service;
+    }
+
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate redisTemplate() {
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(hashOperations.get(anyString(), any())).thenAnswer(invocation ->
+                hashes.getOrDefault(invocation.<String>getArgument(0), Map.of()).get(invocation.getArgument(1)));
+
+        return new StringRedisTemplate() {
+            @Override
+            public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+                if (redisDown) {
+                    throw new RedisConnectionFailureException("Redis is down");
+                }
+                Map<String, String> hash = hashes.computeIfAbsent(keys.get(0), key -> new HashMap<>());
+                long published = Long.parseLong(hash.getOrDefault("lines", "-1"));
+                if (!"1".equals(args[1]) && Long.parseLong((String) args[0]) <= published) {
+                    return (T) Long.valueOf(0);
+                }
+                hash.clear();
+                hash.put("lines", (String) args[0]);
+                for (int i = 2; i < args.length; i += 2) {
+                    hash.put((String) args[i], (String) args[i + 1]);
+                }
+                return (T) Long.valueOf(1);
+            }
+
+            @Override
+            public <HK, HV> HashOperations<String, HK, HV> opsForHash() {
+                return (HashOperations<String, HK, HV>) (HashOperations<String, ?, ?>) hashOperations;
+            }
+        };
+    }
+
+    private static SeasonTotals assists(long playerId, int games, long assists) {
+        SeasonTotals totals = new SeasonTotals();
+        totals.setEntityId(playerId);
+        totals.setSeasonId(1L);
+        totals.setAssists(assists);
+        totals.setGamesPlayed(games);
+        return totals;
+    }
+
+    private static StatsRecordedEvent event(long seasonId) {
+        PlayerGameStats line = new PlayerGameStats();
+        line.setPlayerId(1L);
+        line.setGameId(1L);
+        return new StatsRecordedEvent(List.of(line), Map.of(1L, seasonId), Map.of(seasonId, Set.of(1L)),
+                Map.of(seasonId, 0L));
+    }
+}
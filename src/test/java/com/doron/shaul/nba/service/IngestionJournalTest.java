@@ -0,0 +1,82 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IngestionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testCommittedSegmentsAreDeletedWhileTheQueueStaysBusy() throws Exception {
+        try (IngestionJournal journal = journal()) {
+            for (int i = 0; i < 6; i++) {
+                journal.append(List.of(line(i)));
+            }
+            assertEquals(7, segments());
+
+            // Batch 6 is still pending, so the journal is never emptied, but the segments before it are dropped
+            journal.commit(5);
+            assertEquals(2, segments());
+        }
+    }
+
+    @Test
+    void testUncommittedBatchesAreReplayedAcrossSegments() throws Exception {
+        try (IngestionJournal journal = journal()) {
+            for (int i = 0; i < 4; i++) {
+                journal.append(List.of(line(i)));
+            }
+            journal.commit(2);
+        }
+
+        try (IngestionJournal journal = journal()) {
+            List<IngestionJournal.Entry> replay = journal.readUncommitted();
+
+            assertEquals(List.of(3L, 4L), replay.stream().map(IngestionJournal.Entry::getSequence).toList());
+            assertEquals(5, journal.append(List.of(line(5))));
+        }
+    }
+
+    @Test
+    void testFullyCommittedJournalIsEmptied() throws Exception {
+        try (IngestionJournal journal = journal()) {
+            journal.append(List.of(line(1)));
+            journal.append(List.of(line(2)));
+            journal.commit(2);
+        }
+
+        try (IngestionJournal journal = journal()) {
+            assertEquals(List.of(), journal.readUncommitted());
+            assertEquals(1, segments());
+        }
+    }
+
+    // Each record fills a segment, so every append rolls to a new one
+    private IngestionJournal journal() throws Exception {
+        return new IngestionJournal(directory, new ObjectMapper(), false, 1);
+    }
+
+    private long segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("ingest.journal.")).count();
+        }
+    }
+
+    private static PlayerGameStats line(long playerId) {
+        PlayerGameStats line = new PlayerGameStats();
+        line.setPlayerId(playerId);
+        line.setGameId(1L);
+        return line;
+    }
+}
@@ -0,0 +1,185 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.exception.InvalidPayloadException;
+import com.doron.shaul.nba.model.LeaderboardEntry;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.doron.shaul.nba.model.SeasonTotals;
+import com.doron.shaul.nba.model.StatCategory;
+import com.doron.shaul.nba.repository.SeasonRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Testcontainers
+public class LeaderboardServiceTest {
+
+    @Container
+    static GenericContainer<?> redisContainer = new GenericContainer<>(DockerImageName.parse("redis:7.0"))
+            .withExposedPorts(6379);
+
+    private final SeasonRollupRepository seasonRollupRepository = mock(SeasonRollupRepository.class);
+    private final SeasonRollupService seasonRollupService = mock(SeasonRollupService.class);
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private LeaderboardService service;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisContainer.getHost(), redisContainer.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        service = new LeaderboardService(redisTemplate, seasonRollupRepository, seasonRollupService,
+                new SimpleMeterRegistry(), List.of(2, 3), Duration.ofHours(1), 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void testTiedAveragesShareRank() {
+        record(points(1, 30), points(2, 20), points(3, 20), points(4, 10));
+
+        List<LeaderboardEntry> leaders = service.getLeaders(1, StatCategory.POINTS, 10, 0);
+
+        assertEquals(List.of(1L, 2L, 2L, 4L), leaders.stream().map(LeaderboardEntry::getRank).toList());
+        assertEquals(2, service.getPlayerRank(1, StatCategory.POINTS, 3, 0).getRank());
+        assertEquals(4, service.getPlayerRank(1, StatCategory.POINTS, 4, 0).getRank());
+    }
+
+    @Test
+    void testMinGamesOnlyRanksPlayersWhoReachedIt() {
+        record(points(1, 40), points(2, 10), points(3, 20));
+        record(points(2, 40), points(3, 20));
+        record(points(3, 20));
+
+        List<LeaderboardEntry> leaders = service.getLeaders(1, StatCategory.POINTS, 10, 2);
+
+        assertEquals(List.of(2L, 3L), leaders.stream().map(LeaderboardEntry::getPlayerId).toList());
+        assertEquals(25.0, leaders.get(0).getAverage());
+        assertEquals(2, leaders.get(0).getGamesPlayed());
+        assertEquals(1, service.getPlayerRank(1, StatCategory.POINTS, 3, 3).getRank());
+        assertThrows(EmptyResultDataAccessException.class,
+                () -> service.getPlayerRank(1, StatCategory.POINTS, 1, 2));
+        assertEquals(3, service.getPlayerRank(1, StatCategory.POINTS, 3, 1).getRank());
+    }
+
+    @Test
+    void testUnconfiguredMinGamesIsRejected() {
+        record(points(1, 40));
+
+        InvalidPayloadException ex = assertThrows(InvalidPayloadException.class,
+                () -> service.getLeaders(1, StatCategory.POINTS, 10, 5));
+        assertTrue(ex.getMessage().contains("[2, 3]"));
+    }
+
+    @Test
+    void testRebuildReplacesLeaderboardsAndSkipsLinesItCounted() {
+        record(points(1, 10), points(2, 50));
+        when(seasonRollupService.leaderboardSnapshot(1)).thenReturn(snapshot(1, totals(1, 2, 60), totals(3, 1, 25)));
+
+        assertEquals(2, service.rebuild(1));
+        record(0, points(1, 100));
+        record(1, points(3, 5));
+
+        assertEquals(List.of(1L, 3L), service.getLeaders(1, StatCategory.POINTS, 10, 0).stream()
+                .map(LeaderboardEntry::getPlayerId).toList());
+        assertEquals(30.0, service.getPlayerRank(1, StatCategory.POINTS, 1, 2).getAverage());
+        assertEquals(15.0, service.getPlayerRank(1, StatCategory.POINTS, 3, 2).getAverage());
+        assertThrows(EmptyResultDataAccessException.class,
+                () -> service.getPlayerRank(1, StatCategory.POINTS, 2, 0));
+        assertTrue(redisTemplate.keys("leaderboard:1:*:rebuild:*").isEmpty());
+    }
+
+    @Test
+    void testLinesOfNewerEpochWaitForTheSwap() {
+        record(1, points(1, 40));
+        assertTrue(service.getLeaders(1, StatCategory.POINTS, 10, 0).isEmpty());
+
+        when(seasonRollupService.leaderboardSnapshot(1)).thenReturn(snapshot(1, totals(1, 1, 20)));
+        service.rebuild(1);
+        service.retryDeferred();
+
+        LeaderboardEntry entry = service.getPlayerRank(1, StatCategory.POINTS, 1, 2);
+        assertEquals(30.0, entry.getAverage());
+        assertEquals(2, entry.getGamesPlayed());
+    }
+
+    @Test
+    void testOlderSnapshotIsNotSwappedOverNewerOne() {
+        when(seasonRollupService.leaderboardSnapshot(1)).thenReturn(snapshot(2, totals(1, 1, 20)),
+                snapshot(1, totals(1, 1, 5)));
+
+        service.rebuild(1);
+        service.rebuild(1);
+
+        assertEquals(20.0, service.getPlayerRank(1, StatCategory.POINTS, 1, 0).getAverage());
+        assertEquals("2", redisTemplate.opsForValue().get("leaderboard:1:epoch"));
+        assertTrue(redisTemplate.keys("leaderboard:1:*:rebuild:*").isEmpty());
+    }
+
+    private void record(PlayerGameStats... lines) {
+        record(0, lines);
+    }
+
+    private void record(long epoch, PlayerGameStats... lines) {
+        service.onStatsRecorded(new StatsRecordedEvent(List.of(lines), Map.of(1L, 1L), Map.of(1L, Set.of(1L)),
+                Map.of(1L, epoch)));
+    }
+
+    private static SeasonRollupService.LeaderboardSnapshot snapshot(long epoch, SeasonTotals... totals) {
+        return new SeasonRollupService.LeaderboardSnapshot(epoch, List.of(totals));
+    }
+
+    private static SeasonTotals totals(long playerId, int games, long points) {
+        SeasonTotals totals = new SeasonTotals();
+        totals.setEntityId(playerId);
+        totals.setSeasonId(1L);
+        totals.setPoints(points);
+        totals.setGamesPlayed(games);
+        return totals;
+    }
+
+    private static PlayerGameStats points(long playerId, int points) {
+        PlayerGameStats line = new PlayerGameStats();
+        line.setPlayerId(playerId);
+        line.setGameId(1L);
+        line.setPoints(points);
+        line.setRebounds(0);
+        line.setAssists(0);
+        line.setSteals(0);
+        line.setBlocks(0);
+        line.setFouls(0);
+        line.setTurnovers(0);
+        line.setMinutesPlayed(0.0);
+        return line;
+    }
+}
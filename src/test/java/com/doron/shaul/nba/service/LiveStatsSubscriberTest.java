@@ -0,0 +1,84 @@
+package com.doron.shaul.nba.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LiveStatsSubscriberTest {
+
+    private final Counter superseded = new SimpleMeterRegistry().counter("superseded");
+
+    @Test
+    void testBufferKeepsLatestUpdatePerKey() {
+        RecordingEmitter emitter = new RecordingEmitter(false);
+        LiveStatsSubscriber subscriber = new LiveStatsSubscriber(emitter, Set.of("a", "b"), superseded);
+
+        assertTrue(subscriber.offer(new LiveStatsSubscriber.Update("a", "player", "{\"v\":1}")));
+        assertFalse(subscriber.offer(new LiveStatsSubscriber.Update("b", "team", "[]")));
+        assertFalse(subscriber.offer(new LiveStatsSubscriber.Update("a", "player", "{\"v\":2}")));
+
+        assertEquals(2, subscriber.drain());
+        assertEquals(2, emitter.events.size());
+        assertTrue(emitter.events.get(0).contains("{\"v\":2}"));
+        assertEquals(1, superseded.count());
+
+        assertTrue(subscriber.offer(new LiveStatsSubscriber.Update("a", "player", "{\"v\":3}")));
+    }
+
+    @Test
+    void testSnapshotDoesNotReplaceLiveUpdate() {
+        RecordingEmitter emitter = new RecordingEmitter(false);
+        LiveStatsSubscriber subscriber = new LiveStatsSubscriber(emitter, Set.of("a", "b"), superseded);
+
+        assertTrue(subscriber.offer(new LiveStatsSubscriber.Update("a", "player", "{\"v\":2}")));
+        assertFalse(subscriber.offerSnapshot(new LiveStatsSubscriber.Update("a", "player", "{\"v\":1}")));
+        assertFalse(subscriber.offerSnapshot(new LiveStatsSubscriber.Update("b", "team", "[]")));
+
+        assertEquals(2, subscriber.drain());
+        assertTrue(emitter.events.get(0).contains("{\"v\":2}"));
+
+        assertFalse(subscriber.offerSnapshot(new LiveStatsSubscriber.Update("a", "player", "{\"v\":1}")));
+        assertEquals(0, subscriber.drain());
+        assertEquals(2, emitter.events.size());
+    }
+
+    @Test
+    void testFailedSendClosesSubscriber() {
+        LiveStatsSubscriber subscriber = new LiveStatsSubscriber(new RecordingEmitter(true), Set.of("a"), superseded);
+
+        assertTrue(subscriber.offer(new LiveStatsSubscriber.Update("a", "player", "{}")));
+        assertEquals(0, subscriber.drain());
+        assertTrue(subscriber.isClosed());
+        assertFalse(subscriber.offer(new LiveStatsSubscriber.Update("a", "player", "{}")));
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final boolean failing;
+        private final List<String> events = new ArrayList<>();
+
+        RecordingEmitter(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder event = new StringBuilder();
+            builder.build().forEach(part -> event.append(part.getData()));
+            events.add(event.toString());
+        }
+    }
+}
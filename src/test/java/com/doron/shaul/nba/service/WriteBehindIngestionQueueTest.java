@@ -0,0 +1,117 @@
+package com.doron.shaul.nba.service;
+
+import com.doron.shaul.nba.exception.SeasonFrozenException;
+import com.doron.shaul.nba.model.PlayerGameStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WriteBehindIngestionQueueTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    void testTransientFailuresAreRetriedBeforeCheckpointing() throws Exception {
+        StatsService statsService = mock(StatsService.class);
+        AtomicInteger attempts = new AtomicInteger();
+        when(statsService.recordPlayerStats(anyList())).thenAnswer(invocation -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new CannotCreateTransactionException("Connection refused");
+            }
+            return List.of(1L);
+        });
+
+        WriteBehindIngestionQueue queue = queue(statsService);
+        queue.start();
+        queue.enqueue(List.of(line(1)));
+        verify(statsService, timeout(5000).times(3)).recordPlayerStats(anyList());
+        queue.stop();
+
+        assertEquals("1", checkpoint());
+        assertFalse(Files.exists(journalDirectory.resolve("ingest.deadletter")));
+    }
+
+    @Test
+    void testRejectedBatchIsDeadLettered() throws Exception {
+        StatsService statsService = mock(StatsService.class);
+        when(statsService.recordPlayerStats(anyList())).thenThrow(new SeasonFrozenException(1));
+
+        WriteBehindIngestionQueue queue = queue(statsService);
+        queue.start();
+        queue.enqueue(List.of(line(1)));
+        verify(statsService, timeout(5000).times(2)).recordPlayerStats(anyList());
+        queue.stop();
+
+        assertEquals("1", checkpoint());
+        String deadLetters = Files.readString(journalDirectory.resolve("ingest.deadletter"));
+        assertTrue(deadLetters.contains("\"sequence\":1"));
+        assertTrue(deadLetters.contains("frozen"));
+    }
+
+    @Test
+    void testBatchesUncommittedAtShutdownAreReplayed() throws Exception {
+        StatsService unavailable = mock(StatsService.class);
+        when(unavailable.recordPlayerStats(anyList())).thenThrow(new CannotCreateTransactionException("Down"));
+
+        WriteBehindIngestionQueue first = queue(unavailable);
+        first.start();
+        first.enqueue(List.of(line(1)));
+        verify(unavailable, timeout(5000).atLeast(2)).recordPlayerStats(anyList());
+        first.stop();
+
+        assertFalse(Files.exists(journalDirectory.resolve("ingest.checkpoint")));
+
+        StatsService available = mock(StatsService.class);
+        when(available.recordPlayerStats(anyList())).thenReturn(List.of(1L));
+        WriteBehindIngestionQueue second = queue(available);
+        second.start();
+        verify(available, timeout(5000)).recordPlayerStats(List.of(line(1)));
+        second.stop();
+
+        assertEquals("1", checkpoint());
+    }
+
+    private WriteBehindIngestionQueue queue(StatsService statsService) {
+        return new WriteBehindIngestionQueue(statsService, new ObjectMapper(), new SimpleMeterRegistry(), true, 10,
+                100, Duration.ofMillis(10), Duration.ofSeconds(5), journalDirectory, false, DataSize.ofMegabytes(1),
+                Duration.ofMillis(10), Duration.ofMillis(50));
+    }
+
+    private String checkpoint() throws Exception {
+        return Files.readString(journalDirectory.resolve("ingest.checkpoint")).trim();
+    }
+
+    private static PlayerGameStats line(long playerId) {
+        PlayerGameStats line = new PlayerGameStats();
+        line.setGameId(1L);
+        line.setPlayerId(playerId);
+        line.setPoints(20);
+        line.setRebounds(5);
+        line.setAssists(4);
+        line.setSteals(1);
+        line.setBlocks(0);
+        line.setFouls(2);
+        line.setTurnovers(3);
+        line.setMinutesPlayed(30.0);
+        return line;
+    }
+}
@@ -3,6 +3,7 @@ CREATE TABLE seasons (
     season_name VARCHAR(9) NOT NULL, -- Format: "2023-24"
     start_date DATE NOT NULL,
     end_date DATE,  -- NULL if season is ongoing
+    leaderboard_epoch BIGINT NOT NULL DEFAULT 0, -- Bumped by each leaderboard rebuild
     UNIQUE KEY unique_season_name (season_name)
 );
 
@@ -137,6 +138,109 @@ JOIN
 GROUP BY
     t.team_id, t.team_name, s.season_id, s.season_name;
 
+-- Incrementally maintained rollups backing the season averages reads
+CREATE TABLE player_season_totals (
+    player_id INT NOT NULL,
+    season_id INT NOT NULL,
+    total_points BIGINT NOT NULL DEFAULT 0,
+    total_rebounds BIGINT NOT NULL DEFAULT 0,
+    total_assists BIGINT NOT NULL DEFAULT 0,
+    total_steals BIGINT NOT NULL DEFAULT 0,
+    total_blocks BIGINT NOT NULL DEFAULT 0,
+    total_fouls BIGINT NOT NULL DEFAULT 0,
+    total_turnovers BIGINT NOT NULL DEFAULT 0,
+    total_minutes_played DECIMAL(12,1) NOT NULL DEFAULT 0.0,
+    games_played INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (player_id, season_id),
+    FOREIGN KEY (player_id) REFERENCES players (player_id) ON DELETE CASCADE,
+    FOREIGN KEY (season_id) REFERENCES seasons (season_id) ON DELETE CASCADE
+);
+
+CREATE TABLE team_season_totals (
+    team_id INT NOT NULL,
+    season_id INT NOT NULL,
+    total_points BIGINT NOT NULL DEFAULT 0,
+    total_rebounds BIGINT NOT NULL DEFAULT 0,
+    total_assists BIGINT NOT NULL DEFAULT 0,
+    total_steals BIGINT NOT NULL DEFAULT 0,
+    total_blocks BIGINT NOT NULL DEFAULT 0,
+    total_fouls BIGINT NOT NULL DEFAULT 0,
+    total_turnovers BIGINT NOT NULL DEFAULT 0,
+    total_minutes_played DECIMAL(12,1) NOT NULL DEFAULT 0.0,
+    stat_lines INT NOT NULL DEFAULT 0,
+    games_played INT NOT NULL DEFAULT 0,
+    players_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (team_id, season_id),
+    FOREIGN KEY (team_id) REFERENCES teams (team_id) ON DELETE CASCADE,
+    FOREIGN KEY (season_id) REFERENCES seasons (season_id) ON DELETE CASCADE
+);
+
+-- Distinct games/players per team season, used to keep the team counts exact
+CREATE TABLE team_season_games (
+    team_id INT NOT NULL,
+    season_id INT NOT NULL,
+    game_id INT NOT NULL,
+    PRIMARY KEY (team_id, season_id, game_id)
+);
+
+CREATE TABLE team_season_players (
+    team_id INT NOT NULL,
+    season_id INT NOT NULL,
+    player_id INT NOT NULL,
+    PRIMARY KEY (team_id, season_id, player_id)
+);
+
+-- Rollups per season split: HOME, AWAY, PLAYOFF, REGULAR, or OPPONENT (per opponent_team_id, 0 for the others)
+CREATE TABLE player_split_totals (
+    player_id INT NOT NULL,
+    season_id INT NOT NULL,
+    split VARCHAR(8) NOT NULL,
+    opponent_team_id INT NOT NULL DEFAULT 0,
+    total_points BIGINT NOT NULL DEFAULT 0,
+    total_rebounds BIGINT NOT NULL DEFAULT 0,
+    total_assists BIGINT NOT NULL DEFAULT 0,
+    total_steals BIGINT NOT NULL DEFAULT 0,
+    total_blocks BIGINT NOT NULL DEFAULT 0,
+    total_fouls BIGINT NOT NULL DEFAULT 0,
+    total_turnovers BIGINT NOT NULL DEFAULT 0,
+    total_minutes_played DECIMAL(12,1) NOT NULL DEFAULT 0.0,
+    games_played INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (player_id, season_id, split, opponent_team_id),
+    FOREIGN KEY (player_id) REFERENCES players (player_id) ON DELETE CASCADE,
+    FOREIGN KEY (season_id) REFERENCES seasons (season_id) ON DELETE CASCADE
+);
+
+CREATE TABLE team_split_totals (
+    team_id INT NOT NULL,
+    season_id INT NOT NULL,
+    split VARCHAR(8) NOT NULL,
+    opponent_team_id INT NOT NULL DEFAULT 0,
+    total_points BIGINT NOT NULL DEFAULT 0,
+    total_rebounds BIGINT NOT NULL DEFAULT 0,
+    total_assists BIGINT NOT NULL DEFAULT 0,
+    total_steals BIGINT NOT NULL DEFAULT 0,
+    total_blocks BIGINT NOT NULL DEFAULT 0,
+    total_fouls BIGINT NOT NULL DEFAULT 0,
+    total_turnovers BIGINT NOT NULL DEFAULT 0,
+    total_minutes_played DECIMAL(12,1) NOT NULL DEFAULT 0.0,
+    stat_lines INT NOT NULL DEFAULT 0,
+    games_played INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (team_id, season_id, split, opponent_team_id),
+    FOREIGN KEY (team_id) REFERENCES teams (team_id) ON DELETE CASCADE,
+    FOREIGN KEY (season_id) REFERENCES seasons (season_id) ON DELETE CASCADE
+);
+
+-- Immutable aggregates of frozen (closed) seasons, see SeasonSnapshot for the encoding
+CREATE TABLE season_snapshots (
+    season_id INT PRIMARY KEY,
+    format_version INT NOT NULL,
+    players_count INT NOT NULL,
+    teams_count INT NOT NULL,
+    snapshot LONGBLOB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (season_id) REFERENCES seasons (season_id) ON DELETE CASCADE
+);
+
 -- Sample data insertion
 INSERT INTO seasons (season_id, season_name, start_date)
 VALUES (1, '2023-24', '2023-10-24');
@@ -160,4 +264,10 @@ INSERT INTO player_teams (player_id, team_id, season_id, join_date)
 VALUES (2, 2, 1, '2023-10-24');
 
 INSERT INTO games (game_id, game_date, home_team_id, away_team_id, season_id)
-VALUES (1, '2023-11-01', 1, 2, 1);
\ No newline at end of file
+VALUES (1, '2023-11-01', 1, 2, 1);
+
+INSERT INTO games (game_id, game_date, home_team_id, away_team_id, season_id)
+VALUES (2, '2023-11-03', 2, 1, 1);
+
+INSERT INTO games (game_id, game_date, home_team_id, away_team_id, season_id)
+VALUES (3, '2023-11-05', 1, 2, 1);
\ No newline at end of file